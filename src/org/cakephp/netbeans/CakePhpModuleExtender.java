@@ -98,10 +98,12 @@ public class CakePhpModuleExtender extends PhpModuleExtender {
 
     @Override
     public void addChangeListener(ChangeListener cl) {
+        getPanel().addChangeListener(cl);
     }
 
     @Override
     public void removeChangeListener(ChangeListener cl) {
+        getPanel().removeChangeListener(cl);
     }
 
     @Override
@@ -146,11 +148,13 @@ public class CakePhpModuleExtender extends PhpModuleExtender {
         if (p.getUnzipRadioButton().isSelected()) {
             // unzip
             Map<String, String> tagsMap = p.getTagsMap();
-            String url = tagsMap.get(p.getVersionList().getSelectedValue().toString());
+            String tag = p.getVersionList().getSelectedValue().toString();
+            String url = tagsMap.get(tag);
             File target = FileUtil.toFile(targetDirectory);
             boolean deleteEmpty = false;
             try {
-                CakePhpFileUtils.unzip(url, target, new CakeZipEntryFilter(deleteEmpty, p.getUnzipFileNameTextField()));
+                // the same tag is never changed, reuse the cached archive
+                CakePhpFileUtils.unzip(url, tag, target, new CakeZipEntryFilter(deleteEmpty, p.getUnzipFileNameTextField()));
             } catch (MalformedURLException ex) {
                 Exceptions.printStackTrace(ex);
             } catch (IOException ex) {
@@ -0,0 +1,295 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.commands;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.cakephp.netbeans.module.CakePhpModule;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.util.CakePhpSecurityString;
+import org.cakephp.netbeans.util.CakeVersion;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+
+/**
+ * Persistent cache of command items which are parsed from the output of
+ * command_list and &lt;command&gt; --help xml. Items are stored per project
+ * with a fingerprint of the shell directories (app and plugins) and the
+ * CakePHP version. They are reused until the fingerprint is changed. The
+ * cache file is written to a temporary file and renamed, so a broken file is
+ * never read as a complete one.
+ *
+ * @author junichi11
+ */
+final class CakeCommandsCache {
+
+    private static final Logger LOGGER = Logger.getLogger(CakeCommandsCache.class.getName());
+    private static final String CACHE_DIRECTORY = "cakephp/commands"; // NOI18N
+    private static final String COMMAND_DIRECTORY = "Command"; // NOI18N
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_DEPTH = 3;
+    private static final int MAX_ITEMS = 10000;
+
+    private CakeCommandsCache() {
+    }
+
+    /**
+     * Get the fingerprint of commands for the PHP module.
+     *
+     * @param phpModule PHP module
+     * @return fingerprint
+     */
+    static String getFingerprint(PhpModule phpModule) {
+        CakePhpModule module = CakePhpModule.forPhpModule(phpModule);
+        List<File> directories = new ArrayList<File>();
+        addCommandDirectory(directories, module.getConsoleDirectory(DIR_TYPE.APP));
+        for (DIR_TYPE type : Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN)) {
+            FileObject pluginsDirectory = module.getDirectory(type);
+            if (pluginsDirectory == null) {
+                continue;
+            }
+            for (FileObject plugin : pluginsDirectory.getChildren()) {
+                if (plugin.isFolder()) {
+                    addCommandDirectory(directories, module.getConsoleDirectory(type, plugin.getNameExt()));
+                }
+            }
+        }
+        return createFingerprint(CakeVersion.getInstance(phpModule).getVersion(), directories);
+    }
+
+    private static void addCommandDirectory(List<File> directories, FileObject consoleDirectory) {
+        if (consoleDirectory == null) {
+            return;
+        }
+        FileObject commandDirectory = consoleDirectory.getFileObject(COMMAND_DIRECTORY);
+        if (commandDirectory != null) {
+            directories.add(FileUtil.toFile(commandDirectory));
+        }
+    }
+
+    /**
+     * Create a fingerprint from the version and the directories. Paths, sizes
+     * and timestamps of files in the directories are used.
+     *
+     * @param version CakePHP version
+     * @param directories shell directories
+     * @return fingerprint
+     */
+    static String createFingerprint(String version, List<File> directories) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(version);
+        for (File directory : directories) {
+            if (directory != null) {
+                appendFiles(sb, directory, 0);
+            }
+        }
+        try {
+            return CakePhpSecurityString.hash(sb.toString(), "SHA-1"); // NOI18N
+        } catch (NoSuchAlgorithmException ex) {
+            // unreachable, SHA-1 is always available
+            return sb.toString();
+        }
+    }
+
+    private static void appendFiles(StringBuilder sb, File directory, int depth) {
+        File[] children = directory.listFiles();
+        sb.append('\n').append(directory.getAbsolutePath());
+        if (children == null || depth > MAX_DEPTH) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                appendFiles(sb, child, depth + 1);
+            } else {
+                sb.append('\n').append(child.getName())
+                        .append(':').append(child.length())
+                        .append(':').append(child.lastModified());
+            }
+        }
+    }
+
+    /**
+     * Read cached items of the PHP module.
+     *
+     * @param phpModule PHP module
+     * @param fingerprint current fingerprint
+     * @return items, null if they are not cached or the fingerprint is
+     * changed
+     */
+    static List<CakeCommandItem> read(PhpModule phpModule, String fingerprint) {
+        File file = getCacheFile(phpModule);
+        return file == null ? null : read(file, fingerprint);
+    }
+
+    static List<CakeCommandItem> read(File file, String fingerprint) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (input.readInt() != FORMAT_VERSION || !input.readUTF().equals(fingerprint)) {
+                    return null;
+                }
+                List<CakeCommandItem> items = readItems(input);
+                if (input.read() != -1) {
+                    throw new IOException("Unexpected data: " + file); // NOI18N
+                }
+                return items;
+            } finally {
+                input.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+        return null;
+    }
+
+    private static List<CakeCommandItem> readItems(DataInputStream input) throws IOException {
+        int size = input.readInt();
+        if (size < 0 || size > MAX_ITEMS) {
+            throw new IOException("Invalid size: " + size); // NOI18N
+        }
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<CakeCommandItem> items = new ArrayList<CakeCommandItem>(size);
+        for (int i = 0; i < size; i++) {
+            CakeCommandItem item = new CakeCommandItem(input.readUTF(), input.readUTF(), input.readUTF());
+            for (CakeCommandItem subcommand : readItems(input)) {
+                item.addSubcommand(subcommand);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Write items of the PHP module.
+     *
+     * @param phpModule PHP module
+     * @param fingerprint current fingerprint
+     * @param items command items
+     */
+    static void write(PhpModule phpModule, String fingerprint, List<CakeCommandItem> items) {
+        File file = getCacheFile(phpModule);
+        if (file != null) {
+            write(file, fingerprint, items);
+        }
+    }
+
+    static void write(File file, String fingerprint, List<CakeCommandItem> items) {
+        File tmpFile = null;
+        try {
+            File directory = file.getParentFile();
+            directory.mkdirs();
+            tmpFile = File.createTempFile(file.getName(), ".part", directory); // NOI18N
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(fingerprint);
+                writeItems(output, items);
+            } finally {
+                output.close();
+            }
+            // renameTo() doesn't replace an existing file on some platforms
+            if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+                throw new IOException("Can't rename " + tmpFile + " to " + file); // NOI18N
+            }
+            tmpFile = null;
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        } finally {
+            if (tmpFile != null && !tmpFile.delete()) {
+                tmpFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static void writeItems(DataOutputStream output, List<CakeCommandItem> items) throws IOException {
+        if (items == null) {
+            output.writeInt(0);
+            return;
+        }
+        output.writeInt(items.size());
+        for (CakeCommandItem item : items) {
+            output.writeUTF(nonNull(item.getCommand()));
+            output.writeUTF(nonNull(item.getDescription()));
+            output.writeUTF(nonNull(item.getDisplayName()));
+            writeItems(output, item.getSubcommands());
+        }
+    }
+
+    private static String nonNull(String string) {
+        return string == null ? "" : string; // NOI18N
+    }
+
+    private static File getCacheFile(PhpModule phpModule) {
+        FileObject cakePhpDirectory = CakePhpModule.getCakePhpDirectory(phpModule);
+        if (cakePhpDirectory == null) {
+            return null;
+        }
+        try {
+            String name = CakePhpSecurityString.hash(cakePhpDirectory.getPath(), "SHA-1"); // NOI18N
+            return new File(Places.getCacheSubdirectory(CACHE_DIRECTORY), name);
+        } catch (NoSuchAlgorithmException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+        return null;
+    }
+}
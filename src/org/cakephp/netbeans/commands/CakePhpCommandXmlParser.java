@@ -42,25 +42,33 @@
 package org.cakephp.netbeans.commands;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Collections;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.openide.util.Exceptions;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
+ * Parser for the xml of command_list --xml and &lt;command&gt; --help xml.
+ * The xml is read as a stream (StAX), no DOM is created.
+ *
  * @author junichi11
  */
 public class CakePhpCommandXmlParser {
 
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final String SHELLS = "shells"; // NOI18N
+    private static final String SHELL = "shell"; // NOI18N
+    private static final String COMMAND = "command"; // NOI18N
+    private static final String DESCRIPTION = "description"; // NOI18N
+    private static final String SUBCOMMANDS = "subcommands"; // NOI18N
     private List<CakeCommandItem> commands;
 
     public CakePhpCommandXmlParser(List<CakeCommandItem> commands) {
@@ -68,53 +76,165 @@ public class CakePhpCommandXmlParser {
     }
 
     public static void parse(File file, List<CakeCommandItem> commands) throws SAXException {
-        CakePhpCommandXmlParser parser = new CakePhpCommandXmlParser(commands);
-        DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
         try {
-            DocumentBuilder builder = builderFactory.newDocumentBuilder();
-            Document document = builder.parse(file);
-            Element root = document.getDocumentElement();
-            if (root.getNodeName().equals("shells")) { // NOI18N
-                parser.parseCommandList(root);
-            } else if (root.getNodeName().equals("shell")) { // NOI18N
-                parser.parseCommand(root);
-            } else {
-                return;
+            InputStream input = new FileInputStream(file);
+            try {
+                XMLStreamReader reader;
+                synchronized (INPUT_FACTORY) {
+                    reader = INPUT_FACTORY.createXMLStreamReader(input);
+                }
+                parse(reader, commands);
+            } finally {
+                input.close();
             }
         } catch (IOException ex) {
             Exceptions.printStackTrace(ex);
-        } catch (ParserConfigurationException ex) {
-            Exceptions.printStackTrace(ex);
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex);
+        }
+    }
+
+    /**
+     * Parse the xml of command_list or &lt;command&gt; --help xml.
+     *
+     * @param xml output of the command
+     * @param commands parsed items are added
+     * @throws SAXException
+     */
+    public static void parse(String xml, List<CakeCommandItem> commands) throws SAXException {
+        try {
+            XMLStreamReader reader;
+            synchronized (INPUT_FACTORY) {
+                reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+            }
+            parse(reader, commands);
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex);
+        }
+    }
+
+    private static void parse(XMLStreamReader reader, List<CakeCommandItem> commands) throws XMLStreamException {
+        CakePhpCommandXmlParser parser = new CakePhpCommandXmlParser(commands);
+        try {
+            // root element
+            reader.nextTag();
+            String root = reader.getLocalName();
+            if (root.equals(SHELLS)) {
+                parser.parseCommandList(reader);
+            } else if (root.equals(SHELL)) {
+                parser.parseCommand(reader);
+            }
+        } finally {
+            reader.close();
         }
     }
 
-    protected void parseCommandList(Element root) {
-        NodeList nodeList = root.getChildNodes();
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Node node = nodeList.item(i);
-            NamedNodeMap attr = node.getAttributes();
-            commands.add(new CakeCommandItem(
-                attr.getNamedItem("call_as").getNodeValue(), attr.getNamedItem("provider").getNodeValue(), attr.getNamedItem("name").getNodeValue())); // NOI18N
+    /**
+     * Parse children of shells element. e.g. &lt;shell name="Bake"
+     * call_as="bake" provider="CORE" help="bake -h"/&gt;
+     *
+     * @param reader the reader which is on the start of shells element
+     * @throws XMLStreamException
+     */
+    protected void parseCommandList(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 2) {
+                    commands.add(new CakeCommandItem(
+                        reader.getAttributeValue(null, "call_as"), reader.getAttributeValue(null, "provider"), reader.getAttributeValue(null, "name"))); // NOI18N
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
         }
     }
 
-    protected void parseCommand(Element root) {
-        String command = root.getElementsByTagName("command").item(0).getTextContent(); // NOI18N
-        String description = root.getElementsByTagName("description").item(0).getTextContent(); // NOI18N
+    /**
+     * Parse shell element. The first command and description elements are
+     * the command and its description. Children of subcommands elements are
+     * subcommands.
+     *
+     * @param reader the reader which is on the start of shell element
+     * @throws XMLStreamException
+     */
+    protected void parseCommand(XMLStreamReader reader) throws XMLStreamException {
+        String command = null;
+        String description = null;
+        List<CakeCommandItem> subcommands = new ArrayList<CakeCommandItem>();
+        int depth = 1;
+        // depth of the subcommands element, -1 if it's outside
+        int subcommandsDepth = -1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == subcommandsDepth) {
+                    subcommandsDepth = -1;
+                }
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            depth++;
+            String name = reader.getLocalName();
+            if (subcommandsDepth != -1) {
+                if (depth == subcommandsDepth + 1) {
+                    String subcommand = reader.getAttributeValue(null, "name"); // NOI18N
+                    subcommands.add(new CakeCommandItem(subcommand, reader.getAttributeValue(null, "help"), subcommand)); // NOI18N
+                }
+            } else if (name.equals(SUBCOMMANDS)) {
+                subcommandsDepth = depth;
+            } else if (command == null && name.equals(COMMAND)) {
+                command = readText(reader);
+                depth--;
+            } else if (description == null && name.equals(DESCRIPTION)) {
+                description = readText(reader);
+                depth--;
+            }
+        }
         CakeCommandItem item = new CakeCommandItem(command, description, command);
-        NodeList subcommands = root.getElementsByTagName("subcommands"); // NOI18N
-        for (int i = 0; i < subcommands.getLength(); i++) {
-            Node node = subcommands.item(i);
-            NodeList children = node.getChildNodes();
-            for (int j = 0; j < children.getLength(); j++) {
-                Node child = children.item(j);
-                NamedNodeMap attr = child.getAttributes();
-                item.addSubcommand(new CakeCommandItem(
-                    attr.getNamedItem("name").getTextContent(), // NOI18N
-                    attr.getNamedItem("help").getTextContent(), // NOI18N
-                    attr.getNamedItem("name").getTextContent()));
+        for (CakeCommandItem subcommand : subcommands) {
+            item.addSubcommand(subcommand);
+        }
+        commands.add(item);
+    }
+
+    /**
+     * Read text content of the current element. The reader is moved to the
+     * end of the element.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS: // no break
+                case XMLStreamConstants.CDATA: // no break
+                case XMLStreamConstants.SPACE:
+                    sb.append(reader.getText());
+                    break;
+                default:
+                    break;
             }
         }
-        Collections.singletonList(commands.add(item));
+        return sb.toString();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        return factory;
     }
 }
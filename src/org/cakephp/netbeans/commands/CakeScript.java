@@ -41,20 +41,24 @@
  */
 package org.cakephp.netbeans.commands;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.cakephp.netbeans.module.CakePhpModule;
+import org.cakephp.netbeans.options.CakePhpOptions;
 import org.cakephp.netbeans.preferences.CakePreferences;
 import org.cakephp.netbeans.util.CakeVersion;
 import org.netbeans.api.extexecution.ExecutionDescriptor;
@@ -72,6 +76,7 @@ import org.openide.NotifyDescriptor;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 import org.openide.windows.InputOutput;
 import org.xml.sax.SAXException;
 
@@ -89,6 +94,9 @@ public final class CakeScript {
     private static final List<String> DEFAULT_PARAMS = Collections.emptyList();
     private static final String CORE_SHELLS_DIRECTORY = "cake/console/libs"; // NOI18N
     private static final String VENDORS_SHELLS_DIRECTORY = "vendors/shells"; // NOI18N
+    // seconds
+    private static final long COMMAND_TIMEOUT = 30;
+    private static final RequestProcessor HELP_RP = new RequestProcessor(CakeScript.class.getName(), 4);
     private final String cakePath;
     private List<String> appParams = new ArrayList<String>();
 
@@ -264,97 +272,205 @@ public final class CakeScript {
     }
 
     private List<FrameworkCommand> getFrameworkCommandsInternalXml(PhpModule phpModule) {
-        File tmpFile;
-        try {
-            tmpFile = File.createTempFile("nb-cake-commands-", ".xml"); // NOI18N
-            tmpFile.deleteOnExit();
-        } catch (IOException ex) {
-            LOGGER.log(Level.WARNING, null, ex);
-            return null;
+        // reuse parsed items while shells are not changed
+        String fingerprint = CakeCommandsCache.getFingerprint(phpModule);
+        List<CakeCommandItem> commandItems = CakeCommandsCache.read(phpModule, fingerprint);
+        if (commandItems == null) {
+            AtomicBoolean incomplete = new AtomicBoolean();
+            commandItems = getCommandItems(phpModule, incomplete);
+            if (commandItems == null) {
+                return null;
+            }
+            if (incomplete.get()) {
+                // help commands are run again next time
+                LOGGER.log(Level.INFO, "Some help commands failed, commands are not cached"); // NOI18N
+            } else {
+                CakeCommandsCache.write(phpModule, fingerprint, commandItems);
+            }
         }
-        if (!redirectToFile(phpModule, tmpFile, LIST_XML_COMMAND)) {
+
+        List<FrameworkCommand> commands = new ArrayList<FrameworkCommand>();
+        for (CakeCommandItem item : commandItems) {
+            commands.add(new CakePhpCommand(phpModule,
+                item.getCommand(), item.getDescription(), item.getDisplayName()));
+            // add subcommands
+            List<CakeCommandItem> subcommands = item.getSubcommands();
+            if (subcommands == null) {
+                continue;
+            }
+            for (CakeCommandItem subcommand : subcommands) {
+                String[] command = {item.getCommand(), subcommand.getCommand()};
+                commands.add(new CakePhpCommand(phpModule,
+                    command, subcommand.getDescription(), subcommand.getDisplayName()));
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Run command_list and &lt;command&gt; --help xml, then get command items.
+     * Each item has the full command, description and display name, and its
+     * subcommands. Help commands are run in parallel if it's enabled in the
+     * options. If a help command fails or times out, the item of command_list
+     * is used, and the result is marked as incomplete.
+     *
+     * @param phpModule PHP module
+     * @param incomplete set to true if the item of command_list is used
+     * @return command items, null if the commands can't be parsed
+     */
+    private List<CakeCommandItem> getCommandItems(final PhpModule phpModule, final AtomicBoolean incomplete) {
+        long startTime = System.currentTimeMillis();
+        String listXml = runSilently(phpModule, LIST_XML_COMMAND);
+        if (listXml == null) {
             return null;
         }
         List<CakeCommandItem> commandsItem = new ArrayList<CakeCommandItem>();
         try {
-            CakePhpCommandXmlParser.parse(tmpFile, commandsItem);
+            CakePhpCommandXmlParser.parse(listXml, commandsItem);
         } catch (SAXException ex) {
             // incorrect xml provided by cakephp?
             LOGGER.log(Level.INFO, null, ex);
         }
         if (commandsItem.isEmpty()) {
             // error
-            tmpFile.delete();
             return null;
         }
+
         // parse each command
-        List<FrameworkCommand> commands = new ArrayList<FrameworkCommand>();
-        for (CakeCommandItem item : commandsItem) {
-            if (!redirectToFile(phpModule, tmpFile, Arrays.asList(item.getCommand(), HELP_COMMAND, "xml"))) { // NOI18N
-                commands.add(new CakePhpCommand(phpModule,
-                    item.getCommand(), item.getDescription(), item.getDisplayName()));
-                continue;
-            }
-            List<CakeCommandItem> mainCommandsItem = new ArrayList<CakeCommandItem>();
-            try {
-                CakePhpCommandXmlParser.parse(tmpFile, mainCommandsItem);
-            } catch (SAXException ex) {
-                LOGGER.log(Level.WARNING, "Xml file Error:{0}", ex.getMessage());
-                commands.add(new CakePhpCommand(phpModule,
-                    item.getCommand(), item.getDescription(), item.getDisplayName()));
-                continue;
-            }
-            if (mainCommandsItem.isEmpty()) {
-                tmpFile.delete();
-                return null;
+        boolean isParallel = CakePhpOptions.getInstance().isParallelCommandDiscovery();
+        List<Future<CakeCommandItem>> results = new ArrayList<Future<CakeCommandItem>>(commandsItem.size());
+        for (final CakeCommandItem item : commandsItem) {
+            Callable<CakeCommandItem> task = new Callable<CakeCommandItem>() {
+                @Override
+                public CakeCommandItem call() throws Exception {
+                    return getMainItem(phpModule, item, incomplete);
+                }
+            };
+            if (isParallel) {
+                results.add(HELP_RP.submit(task));
+            } else {
+                FutureTask<CakeCommandItem> future = new FutureTask<CakeCommandItem>(task);
+                future.run();
+                results.add(future);
             }
-            // add main command
-            CakeCommandItem main = mainCommandsItem.get(0);
-            String mainCommand = main.getCommand();
-            String provider = item.getDescription();
-            if (!provider.equals("CORE") && !provider.matches("^[a-z0-9-_]+")) { // NOI18N
-                mainCommand = provider + "." + mainCommand;
+        }
+        List<CakeCommandItem> items = new ArrayList<CakeCommandItem>(results.size());
+        try {
+            for (Future<CakeCommandItem> result : results) {
+                CakeCommandItem mainItem = result.get();
+                if (mainItem == null) {
+                    cancel(results);
+                    return null;
+                }
+                items.add(mainItem);
             }
-            commands.add(new CakePhpCommand(phpModule,
-                mainCommand, "[" + provider + "] " + main.getDescription(), main.getDisplayName())); // NOI18N
+        } catch (InterruptedException ex) {
+            cancel(results);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            cancel(results);
+            LOGGER.log(Level.WARNING, null, ex);
+            return null;
+        }
+        LOGGER.log(Level.INFO, "Discovered {0} commands in {1} ms (parallel: {2})", // NOI18N
+            new Object[]{items.size(), System.currentTimeMillis() - startTime, isParallel});
+        return items;
+    }
 
-            // add subcommands
-            List<CakeCommandItem> subcommands = main.getSubcommands();
-            if (subcommands == null) {
-                continue;
-            }
+    /**
+     * Get the main command item from the output of &lt;command&gt; --help xml.
+     *
+     * @param phpModule PHP module
+     * @param item item of command_list
+     * @param incomplete set to true if the help can't be get
+     * @return main command item, the item of command_list if the help can't
+     * be get, null if the help is not a command
+     */
+    private CakeCommandItem getMainItem(PhpModule phpModule, CakeCommandItem item, AtomicBoolean incomplete) {
+        String helpXml = runSilently(phpModule, Arrays.asList(item.getCommand(), HELP_COMMAND, "xml")); // NOI18N
+        if (helpXml == null) {
+            incomplete.set(true);
+            return item;
+        }
+        List<CakeCommandItem> mainCommandsItem = new ArrayList<CakeCommandItem>();
+        try {
+            CakePhpCommandXmlParser.parse(helpXml, mainCommandsItem);
+        } catch (SAXException ex) {
+            LOGGER.log(Level.WARNING, "Xml file Error:{0}", ex.getMessage());
+            incomplete.set(true);
+            return item;
+        }
+        if (mainCommandsItem.isEmpty()) {
+            return null;
+        }
+        return createMainItem(item, mainCommandsItem.get(0));
+    }
+
+    private static void cancel(List<Future<CakeCommandItem>> results) {
+        for (Future<CakeCommandItem> result : results) {
+            result.cancel(true);
+        }
+    }
+
+    /**
+     * Create the main command item which has the provider.
+     *
+     * @param item item of command_list
+     * @param main item of &lt;command&gt; --help xml
+     * @return main command item
+     */
+    private static CakeCommandItem createMainItem(CakeCommandItem item, CakeCommandItem main) {
+        String mainCommand = main.getCommand();
+        String provider = item.getDescription();
+        if (!provider.equals("CORE") && !provider.matches("^[a-z0-9-_]+")) { // NOI18N
+            mainCommand = provider + "." + mainCommand;
+        }
+        CakeCommandItem mainItem = new CakeCommandItem(mainCommand, "[" + provider + "] " + main.getDescription(), main.getDisplayName()); // NOI18N
+        List<CakeCommandItem> subcommands = main.getSubcommands();
+        if (subcommands != null) {
             for (CakeCommandItem subcommand : subcommands) {
-                String[] command = {mainCommand, subcommand.getCommand()};
-                commands.add(new CakePhpCommand(phpModule,
-                    command, "[" + provider + "] " + subcommand.getDescription(), main.getCommand() + " " + subcommand.getDisplayName())); // NOI18N
+                mainItem.addSubcommand(new CakeCommandItem(subcommand.getCommand(),
+                    "[" + provider + "] " + subcommand.getDescription(), main.getCommand() + " " + subcommand.getDisplayName())); // NOI18N
             }
         }
-        tmpFile.delete();
-        return commands;
+        return mainItem;
     }
 
-    private boolean redirectToFile(PhpModule phpModule, File file, List<String> commands) {
+    /**
+     * Run the command without output window, and get the output.
+     *
+     * @param phpModule PHP module
+     * @param commands command and parameters
+     * @return output, null if the command fails or it times out
+     */
+    private String runSilently(PhpModule phpModule, List<String> commands) {
+        HelpLineProcessor lineProcessor = new HelpLineProcessor();
         Future<Integer> result = createPhpExecutable(phpModule)
-            .fileOutput(file, true)
             .warnUser(false)
             .additionalParameters(commands)
-            .run(getSilentDescriptor());
+            .run(getSilentDescriptor(), getOutProcessorFactory(lineProcessor));
         try {
-            if (result == null || result.get() != 0) {
+            if (result == null || result.get(COMMAND_TIMEOUT, TimeUnit.SECONDS) != 0) {
                 // error
-                return false;
+                return null;
             }
+        } catch (TimeoutException ex) {
+            result.cancel(true);
+            LOGGER.log(Level.INFO, "Timed out: {0}", commands); // NOI18N
+            return null;
         } catch (CancellationException ex) {
             // canceled
-            return false;
+            return null;
         } catch (InterruptedException ex) {
+            result.cancel(true);
             Thread.currentThread().interrupt();
-            return false;
+            return null;
         } catch (ExecutionException ex) {
             // ignored
-            return false;
+            return null;
         }
-        return true;
+        return lineProcessor.getHelp();
     }
 
     private List<FrameworkCommand> getFrameworkCommandsInternalConsole(PhpModule phpModule) {
@@ -406,10 +522,10 @@ public final class CakeScript {
     //~ Inner classes
     private static class HelpLineProcessor implements LineProcessor {
 
-        private StringBuilder sb = new StringBuilder();
+        private final StringBuilder sb = new StringBuilder();
 
         @Override
-        public void processLine(String line) {
+        public synchronized void processLine(String line) {
             sb.append(line);
             sb.append("\n"); // NOI18N
         }
@@ -422,7 +538,7 @@ public final class CakeScript {
         public void close() {
         }
 
-        public String getHelp() {
+        public synchronized String getHelp() {
             return sb.toString();
         }
     }
@@ -41,6 +41,7 @@
  */
 package org.cakephp.netbeans.editor;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -49,14 +50,17 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.cakephp.netbeans.CakePhp;
+import org.cakephp.netbeans.editor.DefaultClassesCache.DefaultClass;
 import org.cakephp.netbeans.editor.visitors.CakePhpComponentVisitor;
-import org.cakephp.netbeans.editor.visitors.CakePhpControllerVisitor;
+import org.cakephp.netbeans.editor.visitors.CakePhpControllerInfo;
 import org.cakephp.netbeans.editor.visitors.CakePhpFieldsVisitor;
+import org.cakephp.netbeans.editor.visitors.CakePhpFieldsVisitor.Field;
 import org.cakephp.netbeans.editor.visitors.CakePhpHelperVisitor;
 import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
 import org.cakephp.netbeans.module.DefaultFileFilter;
 import org.cakephp.netbeans.util.CakePhpUtils;
+import org.cakephp.netbeans.util.CakeVersion;
 import org.netbeans.modules.csl.spi.ParserResult;
 import org.netbeans.modules.parsing.api.ParserManager;
 import org.netbeans.modules.parsing.api.ResultIterator;
@@ -143,25 +147,18 @@ public abstract class CakePhpEditorExtender extends EditorExtender {
     }
 
     private Set<PhpVariable> parseAction(final FileObject view) {
+        if (!CakePhpUtils.isView(view)) {
+            return Collections.emptySet();
+        }
         final FileObject controller = CakePhpUtils.getController(view);
-        if (controller == null) {
+        CakePhpControllerInfo controllerInfo = CakePhpControllerInfo.forController(controller);
+        if (controllerInfo == null) {
             return Collections.emptySet();
         }
         final Set<PhpVariable> phpVariables = new HashSet<PhpVariable>();
-        try {
-            ParserManager.parse(Collections.singleton(Source.create(controller)), new UserTask() {
-                @Override
-                public void run(ResultIterator resultIterator) throws Exception {
-                    ParserResult parseResult = (ParserResult) resultIterator.getParserResult();
-                    final CakePhpControllerVisitor controllerVisitor = new CakePhpControllerVisitor(view, getPhpClass(view));
-                    controllerVisitor.scan(Utils.getRoot(parseResult));
-                    phpVariables.addAll(controllerVisitor.getPhpVariables());
-                }
-            });
-        } catch (ParseException ex) {
-            LOGGER.log(Level.WARNING, null, ex);
+        for (String viewVarName : controllerInfo.getViewVarNames(CakePhpUtils.getActionName(view))) {
+            phpVariables.add(new PhpVariable("$" + viewVarName, new PhpClass("stdClass", "stdClass"), view, 0)); // NOI18N
         }
-
         return phpVariables;
     }
 
@@ -179,6 +176,11 @@ public abstract class CakePhpEditorExtender extends EditorExtender {
             return Collections.emptySet();
         }
 
+        // controller is parsed once for all features
+        if (isView || isController) {
+            return parseControllerFields(fo, target);
+        }
+
         final Set<PhpClass> phpClasses = new HashSet<PhpClass>();
         try {
             ParserManager.parse(Collections.singleton(Source.create(target)), new UserTask() {
@@ -186,9 +188,7 @@ public abstract class CakePhpEditorExtender extends EditorExtender {
                 public void run(ResultIterator resultIterator) throws Exception {
                     ParserResult parseResult = (ParserResult) resultIterator.getParserResult();
                     final CakePhpFieldsVisitor visitor;
-                    if (isView || isController) {
-                        visitor = new CakePhpControllerVisitor(fo, getPhpClass(fo));
-                    } else if (isComponent) {
+                    if (isComponent) {
                         visitor = new CakePhpComponentVisitor(fo, getPhpClass(fo));
                     } else if (isHelper) {
                         visitor = new CakePhpHelperVisitor(fo, getPhpClass(fo));
@@ -209,6 +209,30 @@ public abstract class CakePhpEditorExtender extends EditorExtender {
         return phpClasses;
     }
 
+    private Set<PhpClass> parseControllerFields(FileObject fo, FileObject controller) {
+        CakePhpControllerInfo controllerInfo = CakePhpControllerInfo.forController(controller);
+        if (controllerInfo == null) {
+            return Collections.emptySet();
+        }
+        PhpClass phpClass = getPhpClass(fo);
+        if (phpClass == null) {
+            return Collections.emptySet();
+        }
+        Set<String> fieldNames = new HashSet<String>();
+        if (CakePhpUtils.isView(fo)) {
+            fieldNames.add(CakePhpFieldsVisitor.HELPERS);
+        } else if (CakePhpUtils.isController(fo)) {
+            fieldNames.add(CakePhpFieldsVisitor.USES);
+            fieldNames.add(CakePhpFieldsVisitor.COMPONENTS);
+        }
+        synchronized (phpClass) {
+            for (Field field : controllerInfo.getFields(fieldNames)) {
+                phpClass.addField(field.getName(), new PhpClass(field.getEntityName(), field.getClassName()), field.getFile(), 0);
+            }
+        }
+        return Collections.singleton(phpClass);
+    }
+
     /**
      * Get extends class name. (e.g. component : Component, helper : AppHelper)
      *
@@ -244,17 +268,8 @@ public abstract class CakePhpEditorExtender extends EditorExtender {
         }
 
         FileObject helperDirectory = module.getHelperDirectory(DIR_TYPE.CORE);
-        if (helperDirectory != null) {
-            List<FileObject> helpers = module.getFiles(helperDirectory, new DefaultFileFilter());
-            for (FileObject helper : helpers) {
-                String fullyQualifiedName = getFullyQualifiedClassName(helper);
-                if (StringUtils.isEmpty(fullyQualifiedName)) {
-                    continue;
-                }
-                String className = CakePhpUtils.getClassName(helper);
-                String name = className.replace(CakePhpModule.FILE_TYPE.HELPER.toString(), ""); // NOI18N
-                phpClass.addField(name, new PhpClass(name, fullyQualifiedName), fo, 0);
-            }
+        for (DefaultClass helper : getDefaultClasses(module, helperDirectory, CakePhpModule.FILE_TYPE.HELPER)) {
+            phpClass.addField(helper.getName(), new PhpClass(helper.getName(), helper.getFullyQualifiedName()), fo, 0);
         }
     }
 
@@ -265,18 +280,42 @@ public abstract class CakePhpEditorExtender extends EditorExtender {
         }
 
         FileObject componentDirectory = module.getComponentDirectory(DIR_TYPE.CORE);
-        if (componentDirectory != null) {
-            List<FileObject> components = module.getFiles(componentDirectory, new DefaultFileFilter());
-            for (FileObject component : components) {
-                String fullyQualifiedName = getFullyQualifiedClassName(component);
-                if (StringUtils.isEmpty(fullyQualifiedName)) {
-                    continue;
-                }
-                String className = CakePhpUtils.getClassName(component);
-                String name = className.replace(CakePhpModule.FILE_TYPE.COMPONENT.toString(), ""); // NOI18N
-                phpClass.addField(name, new PhpClass(name, fullyQualifiedName), fo, 0);
+        for (DefaultClass component : getDefaultClasses(module, componentDirectory, CakePhpModule.FILE_TYPE.COMPONENT)) {
+            phpClass.addField(component.getName(), new PhpClass(component.getName(), component.getFullyQualifiedName()), fo, 0);
+        }
+    }
+
+    /**
+     * Get core classes of the directory. They are enumerated once for each
+     * core directory and version.
+     *
+     * @param module CakePhpModule
+     * @param directory core directory
+     * @param fileType FILE_TYPE.HELPER or FILE_TYPE.COMPONENT
+     * @return classes of the directory
+     */
+    private List<DefaultClass> getDefaultClasses(CakePhpModule module, FileObject directory, CakePhpModule.FILE_TYPE fileType) {
+        if (directory == null || !directory.isFolder()) {
+            return Collections.emptyList();
+        }
+        // fully qualified names depend on the extender
+        String key = DefaultClassesCache.createKey(directory, CakeVersion.getInstance(phpModule).getVersion(), getClass().getName());
+        List<DefaultClass> defaultClasses = DefaultClassesCache.get(key);
+        if (defaultClasses != null) {
+            return defaultClasses;
+        }
+
+        defaultClasses = new ArrayList<DefaultClass>();
+        for (FileObject file : module.getFiles(directory, new DefaultFileFilter())) {
+            String fullyQualifiedName = getFullyQualifiedClassName(file);
+            if (StringUtils.isEmpty(fullyQualifiedName)) {
+                continue;
             }
+            String className = CakePhpUtils.getClassName(file);
+            String name = className.replace(fileType.toString(), ""); // NOI18N
+            defaultClasses.add(new DefaultClass(name, fullyQualifiedName));
         }
+        return DefaultClassesCache.put(key, directory, defaultClasses);
     }
 
     public abstract String getFullyQualifiedClassName(FileObject target);
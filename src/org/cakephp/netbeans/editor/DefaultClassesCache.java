@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.editor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+
+/**
+ * Cache of core classes (helpers, components) which are added to $this for
+ * code completion. Core directories are shared by projects which use the same
+ * CakePHP core, so classes are enumerated once per directory and version.
+ * Entries are removed when files of the directory are changed.
+ *
+ * @author junichi11
+ */
+final class DefaultClassesCache {
+
+    private static final ConcurrentMap<String, Entry> CACHE = new ConcurrentHashMap<String, Entry>();
+
+    private DefaultClassesCache() {
+    }
+
+    /**
+     * Get cached classes.
+     *
+     * @param key key for the directory, version and class name style
+     * @return classes if they are cached, otherwise null
+     */
+    static List<DefaultClass> get(String key) {
+        Entry entry = CACHE.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return entry.classes;
+    }
+
+    /**
+     * Cache classes of the directory.
+     *
+     * @param key key for the directory, version and class name style
+     * @param directory core directory
+     * @param classes classes of the directory
+     * @return cached classes
+     */
+    static List<DefaultClass> put(String key, FileObject directory, List<DefaultClass> classes) {
+        Entry entry = new Entry(key, directory, classes);
+        Entry other = CACHE.putIfAbsent(key, entry);
+        if (other != null) {
+            return other.classes;
+        }
+        directory.addFileChangeListener(entry);
+        return entry.classes;
+    }
+
+    static String createKey(FileObject directory, String version, String style) {
+        return directory.getPath() + "|" + version + "|" + style; // NOI18N
+    }
+
+    //~ Inner classes
+    static final class DefaultClass {
+
+        private final String name;
+        private final String fullyQualifiedName;
+
+        DefaultClass(String name, String fullyQualifiedName) {
+            this.name = name;
+            this.fullyQualifiedName = fullyQualifiedName;
+        }
+
+        /**
+         * Get field name. (e.g. Html)
+         *
+         * @return field name
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getFullyQualifiedName() {
+            return fullyQualifiedName;
+        }
+    }
+
+    private static final class Entry extends FileChangeAdapter {
+
+        private final String key;
+        private final FileObject directory;
+        private final List<DefaultClass> classes;
+
+        Entry(String key, FileObject directory, List<DefaultClass> classes) {
+            this.key = key;
+            this.directory = directory;
+            this.classes = Collections.unmodifiableList(new ArrayList<DefaultClass>(classes));
+        }
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            invalidate();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            invalidate();
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            invalidate();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            invalidate();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            invalidate();
+        }
+
+        private void invalidate() {
+            if (CACHE.remove(key, this)) {
+                directory.removeFileChangeListener(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.editor;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.cakephp.netbeans.editor.codecompletion.CakePhpEditorExtenderFactory;
+import org.cakephp.netbeans.util.CakePhpUtils;
+import org.netbeans.api.editor.EditorRegistry;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.filesystems.FileObject;
+import org.openide.modules.OnStart;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Resolve the controller of a view and parse it in background when the editor
+ * of a view, an element or a layout gets focus. Results are cached by
+ * CakePhpControllerInfo, so the first code completion in the template doesn't
+ * wait for them. Cached results are reused if the controller is not changed.
+ *
+ * @author junichi11
+ */
+@OnStart
+public final class ViewWarmUp implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(ViewWarmUp.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ViewWarmUp.class.getName(), 1, true);
+    // wait for opening the editor
+    private static final int WARM_UP_DELAY = 500;
+    private static final RequestProcessor.Task WARM_UP_TASK = RP.create(new Runnable() {
+        @Override
+        public void run() {
+            FileObject template = pendingTemplate;
+            pendingTemplate = null;
+            if (template != null) {
+                warmUp(template);
+            }
+        }
+    });
+    // the last focused template, it is warmed up again when the controller is changed
+    private static volatile FileObject pendingTemplate;
+
+    @Override
+    public void run() {
+        EditorRegistry.addPropertyChangeListener(new RegistryListener());
+    }
+
+    private static void editorFocused(JTextComponent editor) {
+        Document document = editor.getDocument();
+        if (document == null) {
+            return;
+        }
+        FileObject fileObject = NbEditorUtilities.getFileObject(document);
+        if (fileObject == null || !CakePhpUtils.isCtpFile(fileObject)) {
+            return;
+        }
+        pendingTemplate = fileObject;
+        WARM_UP_TASK.setPriority(Thread.MIN_PRIORITY);
+        WARM_UP_TASK.schedule(WARM_UP_DELAY);
+    }
+
+    private static void warmUp(FileObject template) {
+        if (!template.isValid()) {
+            return;
+        }
+        PhpModule phpModule = PhpModule.forFileObject(template);
+        if (phpModule == null || !CakePhpUtils.isCakePHP(phpModule)) {
+            return;
+        }
+        CakePhpEditorExtender extender = CakePhpEditorExtenderFactory.create(phpModule);
+        if (extender == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // same as code completion: controller, its fields and view vars, default helpers
+        extender.getElementsForCodeCompletion(template);
+        LOGGER.log(Level.FINE, "{0} is warmed up in {1} ms", new Object[]{template.getPath(), System.currentTimeMillis() - start}); // NOI18N
+    }
+
+    //~ Inner classes
+    private static class RegistryListener implements PropertyChangeListener {
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            String propertyName = evt.getPropertyName();
+            if (EditorRegistry.FOCUS_GAINED_PROPERTY.equals(propertyName)) {
+                Object component = evt.getNewValue();
+                if (component instanceof JTextComponent) {
+                    editorFocused((JTextComponent) component);
+                }
+            } else if (EditorRegistry.FOCUSED_DOCUMENT_PROPERTY.equals(propertyName)) {
+                JTextComponent component = EditorRegistry.focusedComponent();
+                if (component != null) {
+                    editorFocused(component);
+                }
+            }
+        }
+    }
+}
@@ -44,11 +44,13 @@ package org.cakephp.netbeans.editor.codecompletion.methods;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import static org.cakephp.netbeans.editor.codecompletion.methods.Method.DOT;
 import static org.cakephp.netbeans.editor.codecompletion.methods.Method.SLASH;
 import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
 import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.cakephp.netbeans.module.WebrootAssetIndex;
 import org.cakephp.netbeans.util.CakeVersion;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.openide.filesystems.FileObject;
@@ -88,20 +90,25 @@ public class AssetMethod extends Method {
     protected List<String> extFilter;
     protected String subDirectoryPath = ""; // NOI18N
     protected final List<DIR_TYPE> dirTypes = Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN, DIR_TYPE.APP);
+    // the number of webroot assets which are added at most
+    private static final int MAX_ELEMENTS = 200;
+    private final CakePhpModule cakeModule;
 
     public AssetMethod(PhpModule phpModule) {
         super(phpModule);
+        cakeModule = CakePhpModule.forPhpModule(phpModule);
     }
 
     @Override
     public List<String> getElements(int argCount, String filter) {
-        int cakeVersion = CakeVersion.getInstance(phpModule).getMajor();
         List<String> elements = new LinkedList<String>();
         if (type == null) {
             return elements;
         }
 
         if (argCount == 1) {
+            int cakeVersion = CakeVersion.getInstance(phpModule).getMajor();
+            WebrootAssetIndex index = cakeModule.getWebrootAssetIndex();
             String pluginName = null;
             boolean isPlugin = false;
 
@@ -112,7 +119,7 @@ public class AssetMethod extends Method {
 
                 // is plugin?
                 if (splitLength > 0) {
-                    isPlugin = isPlugin(split[0]);
+                    isPlugin = !split[0].startsWith(SLASH) && index.getPlugins().containsKey(split[0]);
                     if (isPlugin) {
                         if (splitLength > 1) {
                             filter = split[1];
@@ -126,8 +133,7 @@ public class AssetMethod extends Method {
 
             // check subdirectory
             filter = setSubDirectoryPath(filter);
-
-            CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
+            String prefix = filter.startsWith(SLASH) ? filter.substring(1) : filter;
 
             // add elements
             for (DIR_TYPE dirType : dirTypes) {
@@ -146,8 +152,10 @@ public class AssetMethod extends Method {
                         targetDirectory = webrootDirectory.getFileObject(getRelativePath());
                     }
                     if (targetDirectory != null) {
-                        for (FileObject element : targetDirectory.getChildren()) {
-                            addElement(element, filter, elements, pluginName);
+                        for (WebrootAssetIndex.Entry entry : index.getChildren(targetDirectory, prefix)) {
+                            if (addElement(entry, filter, elements, pluginName) && elements.size() >= MAX_ELEMENTS) {
+                                return elements;
+                            }
                         }
                         break;
                     }
@@ -164,21 +172,14 @@ public class AssetMethod extends Method {
             // plugin names
             // CakePHP 2.x
             if (cakeVersion >= 2) {
-                for (DIR_TYPE dirType : PLUGINS) {
-                    FileObject pluginDirectory = cakeModule.getDirectory(dirType);
-                    if (pluginDirectory != null) {
-                        for (FileObject child : pluginDirectory.getChildren()) {
-                            if (child.isFolder()) {
-                                String name = child.getNameExt();
-                                FileObject webrootDirectory = cakeModule.getDirectory(dirType, FILE_TYPE.WEBROOT, name);
-                                if (webrootDirectory != null && webrootDirectory.getFileObject(type.toString()) != null) {
-                                    if (name.startsWith(filter)) {
-                                        name = name + DOT;
-                                        elements.add(name);
-                                    }
-                                }
-                            }
-                        }
+                for (Map.Entry<String, DIR_TYPE> plugin : index.getPlugins().entrySet()) {
+                    String name = plugin.getKey();
+                    if (!name.startsWith(filter)) {
+                        continue;
+                    }
+                    FileObject webrootDirectory = cakeModule.getDirectory(plugin.getValue(), FILE_TYPE.WEBROOT, name);
+                    if (webrootDirectory != null && webrootDirectory.getFileObject(type.toString()) != null) {
+                        elements.add(name + DOT);
                     }
                 }
             }
@@ -186,25 +187,6 @@ public class AssetMethod extends Method {
         return elements;
     }
 
-    /**
-     * Check whether plugin exists.
-     *
-     * @param pluginName plugin name
-     * @return true if plugin directory exists, otherwise false.
-     */
-    private boolean isPlugin(String pluginName) {
-        if (!pluginName.startsWith(SLASH)) {
-            CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
-            for (DIR_TYPE dirType : PLUGINS) {
-                FileObject pluginDirectory = cakeModule.getDirectory(dirType, FILE_TYPE.NONE, pluginName);
-                if (pluginDirectory != null) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     /**
      * Set subdirectory path, and return string except for subdirectory path.
      *
@@ -232,7 +214,24 @@ public class AssetMethod extends Method {
      * @return true if add, otherwise false
      */
     protected boolean addElement(FileObject fo, String filter, List<String> elements, String pluginName) {
-        String name = getFileName(fo);
+        return addElement(getFileName(fo.getNameExt(), fo.getName()), fo.getExt(), fo.isFolder(), filter, elements, pluginName);
+    }
+
+    /**
+     * Add element of the index starting with filter value to list.
+     *
+     * @param entry entry of {@link WebrootAssetIndex}
+     * @param filter filtering with this value
+     * @param elements List for adding (add to this)
+     * @param pluginName plugin name if target is not plugin, set the null
+     * @return true if add, otherwise false
+     */
+    private boolean addElement(WebrootAssetIndex.Entry entry, String filter, List<String> elements, String pluginName) {
+        return addElement(getFileName(entry.getNameExt(), entry.getName()), entry.getExt(), entry.isFolder(), filter, elements, pluginName);
+    }
+
+    private boolean addElement(String fileName, String ext, boolean isFolder, String filter, List<String> elements, String pluginName) {
+        String name = fileName;
         // set subdirectory path
         if (!subDirectoryPath.isEmpty()) {
             name = subDirectoryPath + SLASH + name; // NOI18N
@@ -245,15 +244,14 @@ public class AssetMethod extends Method {
         }
 
         // filtering
-        String fileName = getFileName(fo);
         if (fileName.startsWith(filter)) {
-            if (!fo.isFolder()
+            if (!isFolder
                     && extFilter != null
-                    && !extFilter.contains(fo.getExt())) {
+                    && !extFilter.contains(ext)) {
                 return false;
             }
-            if (fo.isFolder() || !fo.getExt().isEmpty()) {
-                if (fo.isFolder()) {
+            if (isFolder || !ext.isEmpty()) {
+                if (isFolder) {
                     name = name + SLASH;
                 }
                 if (pluginName != null && !pluginName.isEmpty()) {
@@ -282,15 +280,13 @@ public class AssetMethod extends Method {
      * Get file name. If ASSET_TYPE is IMAGE, get name with extention, otherwise
      * only name.
      *
-     * @param fo target FileObject
+     * @param nameExt name with extension
+     * @param name name without extension
      * @return file name if type is image, with extention.
      */
-    private String getFileName(FileObject fo) {
-        String name;
+    private String getFileName(String nameExt, String name) {
         if (type == ASSET_TYPE.IMAGE) {
-            name = fo.getNameExt();
-        } else {
-            name = fo.getName();
+            return nameExt;
         }
         return name;
     }
@@ -60,7 +60,7 @@ import org.openide.filesystems.FileObject;
 public class ImageMethod extends AssetMethod {
 
     private static final List<String> EXT_FILTER = Arrays.asList("jpeg", "jpg", "png", "gif", "bmp", "ico"); // NOI18N
-    private static final String SPLIT_PLUGIN_REGEX_PATTERN = "^([A-Z].+?\\.|)(.+\\.[a-zA-Z]+)$";// NOI18N
+    private static final Pattern SPLIT_PLUGIN_PATTERN = Pattern.compile("^([A-Z].+?\\.|)(.+\\.[a-zA-Z]+)$"); // NOI18N
     private CakePhpModule cakeModule;
 
     ImageMethod(PhpModule phpModule) {
@@ -83,8 +83,7 @@ public class ImageMethod extends AssetMethod {
      * @return FileObject
      */
     private FileObject getFileObject(String element) {
-        Pattern pattern = Pattern.compile(SPLIT_PLUGIN_REGEX_PATTERN);
-        Matcher matcher = pattern.matcher(element);
+        Matcher matcher = SPLIT_PLUGIN_PATTERN.matcher(element);
         String pluginName = ""; // NOI18N
         String filePath = ""; // NOI18N
         if (matcher.find()) {
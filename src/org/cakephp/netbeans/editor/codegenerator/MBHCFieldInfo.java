@@ -45,28 +45,23 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.swing.text.JTextComponent;
 import static org.cakephp.netbeans.editor.codegenerator.FieldInfo.Type.ACTS_AS;
 import static org.cakephp.netbeans.editor.codegenerator.FieldInfo.Type.COMPONENTS;
 import static org.cakephp.netbeans.editor.codegenerator.FieldInfo.Type.HELPERS;
 import static org.cakephp.netbeans.editor.codegenerator.FieldInfo.Type.USES;
 import org.cakephp.netbeans.module.CakePhpModule;
-import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
 import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
 import org.cakephp.netbeans.util.CakePhpCodeUtils;
-import org.cakephp.netbeans.util.CakePhpUtils;
 import org.netbeans.modules.parsing.api.ParserManager;
 import org.netbeans.modules.parsing.api.ResultIterator;
 import org.netbeans.modules.parsing.api.Source;
 import org.netbeans.modules.parsing.api.UserTask;
 import org.netbeans.modules.parsing.spi.ParseException;
-import org.netbeans.modules.php.api.editor.EditorSupport;
-import org.netbeans.modules.php.api.editor.PhpClass;
-import org.netbeans.modules.php.api.phpmodule.PhpModule;
-import org.netbeans.modules.php.api.util.StringUtils;
 import org.netbeans.modules.php.editor.CodeUtils;
 import org.netbeans.modules.php.editor.parser.PHPParseResult;
 import org.netbeans.modules.php.editor.parser.api.Utils;
@@ -76,9 +71,7 @@ import org.netbeans.modules.php.editor.parser.astnodes.Expression;
 import org.netbeans.modules.php.editor.parser.astnodes.FieldsDeclaration;
 import org.netbeans.modules.php.editor.parser.astnodes.SingleFieldDeclaration;
 import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
-import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
-import org.openide.util.Lookup;
 
 /**
  *
@@ -153,12 +146,13 @@ public class MBHCFieldInfo extends FieldInfo {
         final MBHCFileldsVisitor visitor = new MBHCFileldsVisitor();
         visitor.scan(Utils.getRoot(result));
         Map<Type, Integer> insertOffsetMap = visitor.getInsertOffsetMap();
-        List<String> existings = visitor.getExistings(type);
+        Set<String> ignored = new HashSet<String>(visitor.getExistings(type));
+        ignored.addAll(Arrays.asList(filters));
         List<String> allProperties = getAllCommonNames(type);
 
         // add properties
         for (String property : allProperties) {
-            if (existings.contains(property) || Arrays.asList(filters).contains(property)) {
+            if (ignored.contains(property)) {
                 continue;
             }
             getPossibleProperties().add(new Property(property, 0, type.toString()));
@@ -198,7 +192,8 @@ public class MBHCFieldInfo extends FieldInfo {
     }
 
     /**
-     * Get all common names for specified type.
+     * Get all common names for specified type. Names are provided by the
+     * catalog of the project.
      *
      * @param type Type
      * @return common names
@@ -208,32 +203,11 @@ public class MBHCFieldInfo extends FieldInfo {
         if (fileType == FILE_TYPE.NONE) {
             return Collections.emptyList();
         }
-        List<String> list = new ArrayList<String>();
-        PhpModule phpModule = getPhpModule();
-        CakePhpModule module = CakePhpModule.forPhpModule(phpModule);
-        EditorSupport editorSupport = Lookup.getDefault().lookup(EditorSupport.class);
-        FileObject appDir = module.getDirectory(DIR_TYPE.APP, fileType, null);
-        list.addAll(getCommonNames(appDir, editorSupport, null));
-        if (fileType != FILE_TYPE.MODEL) {
-            FileObject coreDir = module.getDirectory(DIR_TYPE.CORE, fileType, null);
-            list.addAll(getCommonNames(coreDir, editorSupport, null));
-            for (DIR_TYPE dirType : Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN)) {
-                FileObject appPlugin = module.getDirectory(dirType);
-                if (appPlugin == null) {
-                    continue;
-                }
-                for (FileObject child : appPlugin.getChildren()) {
-                    if (!child.isFolder()) {
-                        continue;
-                    }
-                    FileObject appPluginObject = module.getDirectory(dirType, fileType, child.getName());
-                    if (appPluginObject != null) {
-                        list.addAll(getCommonNames(appPluginObject, editorSupport, child.getName()));
-                    }
-                }
-            }
+        CakePhpModule module = CakePhpModule.forPhpModule(getPhpModule());
+        if (module == null) {
+            return Collections.emptyList();
         }
-        return list;
+        return module.getCommonNameCatalog().getNames(fileType);
     }
 
     /**
@@ -263,60 +237,6 @@ public class MBHCFieldInfo extends FieldInfo {
         return fileType;
     }
 
-    /**
-     * Get common names.
-     *
-     * @param targetDirectory FileObject (directory)
-     * @param editorSupport EditorSupport
-     * @param plugin plugin name: e.g. DebugKit
-     * @return common names
-     */
-    private List<String> getCommonNames(FileObject targetDirectory, EditorSupport editorSupport, String plugin) {
-        List<String> list = new LinkedList<String>();
-        if (targetDirectory.isFolder()) {
-            for (FileObject child : targetDirectory.getChildren()) {
-                if (child.isFolder()) {
-                    continue;
-                }
-                String name = getCommonName(child, editorSupport);
-                if (plugin != null && !plugin.isEmpty()) {
-                    name = plugin + "." + name; // NOI18N
-                }
-                if (!StringUtils.isEmpty(name)) {
-                    list.add(name);
-                }
-            }
-        }
-        Collections.sort(list);
-        return list;
-    }
-
-    /**
-     * Get common name(for example:Html(HtmlHelper), Session(SessionComponent)).
-     *
-     * @param target FileObject (file)
-     * @param editorSupport EditorSupport
-     * @return common name
-     */
-    private String getCommonName(FileObject target, EditorSupport editorSupport) {
-        String name = null;
-        for (PhpClass phpClass : editorSupport.getClasses(target)) {
-            name = phpClass.getName();
-            break;
-        }
-        if (name == null) {
-            return null;
-        }
-        if (CakePhpUtils.isComponent(target)) {
-            name = name.replace(CakePhpModule.FILE_TYPE.COMPONENT.toString(), ""); // NOI18N
-        } else if (CakePhpUtils.isHelper(target)) {
-            name = name.replace(CakePhpModule.FILE_TYPE.HELPER.toString(), ""); // NOI18N
-        } else if (CakePhpUtils.isBehavior(target)) {
-            name = name.replace(CakePhpModule.FILE_TYPE.BEHAVIOR.toString(), ""); // NOI18N
-        }
-        return name;
-    }
-
     //~ inner class
     private static final class MBHCFileldsVisitor extends DefaultVisitor {
 
@@ -46,17 +46,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.cakephp.netbeans.editor.codegenerator.FieldInfo.FieldInfoFactory;
 import org.cakephp.netbeans.editor.codegenerator.FieldInfo.Type;
 import org.cakephp.netbeans.editor.codegenerator.ui.FieldsGeneratorPanel;
+import org.cakephp.netbeans.module.CakePhpModule;
+import org.cakephp.netbeans.module.CommonNameCatalog;
 import org.cakephp.netbeans.util.CakePhpDocUtils;
 import org.cakephp.netbeans.util.CakePhpUtils;
 import org.cakephp.netbeans.util.CakeVersion;
 import org.cakephp.netbeans.util.DocUtils;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.api.progress.ProgressUtils;
 import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
 import org.netbeans.lib.editor.codetemplates.api.CodeTemplate;
@@ -81,6 +85,7 @@ public class MBHCGenerator implements CodeGenerator {
 
     JTextComponent textComp;
     List<FieldInfo> fields;
+    private final List<Type> types;
     private int offset;
 
     /**
@@ -94,11 +99,7 @@ public class MBHCGenerator implements CodeGenerator {
 
     private MBHCGenerator(Lookup context, List<Type> types) {
         textComp = context.lookup(JTextComponent.class);
-        // create FiledInfo
-        fields = new ArrayList<FieldInfo>();
-        for (Type type : types) {
-            fields.add(FieldInfoFactory.create(type, textComp));
-        }
+        this.types = types;
     }
 
     /**
@@ -121,6 +122,15 @@ public class MBHCGenerator implements CodeGenerator {
         if (project == null) {
             return;
         }
+        if (!waitCommonNames(fo)) {
+            return;
+        }
+
+        // create FiledInfo with complete names
+        fields = new ArrayList<FieldInfo>();
+        for (Type type : types) {
+            fields.add(FieldInfoFactory.create(type, textComp));
+        }
 
         // create dialog
         FieldsGeneratorPanel panel = new FieldsGeneratorPanel(getFileObject(), fields);
@@ -147,6 +157,33 @@ public class MBHCGenerator implements CodeGenerator {
         }
     }
 
+    /**
+     * Wait for the common name catalog with a progress dialog if it is not
+     * built yet.
+     *
+     * @param fo current file
+     * @return true if names are ready, false if it is canceled
+     */
+    @NbBundle.Messages("LBL_CommonNamesProgress=Collecting models, behaviors, helpers and components...")
+    private boolean waitCommonNames(FileObject fo) {
+        CakePhpModule module = CakePhpModule.forPhpModule(PhpModule.forFileObject(fo));
+        if (module == null) {
+            return true;
+        }
+        final CommonNameCatalog catalog = module.getCommonNameCatalog();
+        if (catalog.isReady()) {
+            return true;
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ProgressUtils.runOffEventDispatchThread(new Runnable() {
+            @Override
+            public void run() {
+                catalog.waitReady();
+            }
+        }, Bundle.LBL_CommonNamesProgress(), cancelled, false);
+        return !cancelled.get();
+    }
+
     /**
      * Get document.
      *
@@ -207,6 +244,11 @@ public class MBHCGenerator implements CodeGenerator {
                 }
 
                 if (!types.isEmpty()) {
+                    // start the catalog, it is used when the generator is invoked
+                    CakePhpModule module = CakePhpModule.forPhpModule(phpModule);
+                    if (module != null) {
+                        module.getCommonNameCatalog();
+                    }
                     return Collections.singletonList(new MBHCGenerator(context, types));
                 }
             }
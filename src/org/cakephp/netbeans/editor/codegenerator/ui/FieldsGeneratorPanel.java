@@ -42,7 +42,11 @@
 package org.cakephp.netbeans.editor.codegenerator.ui;
 
 import java.util.List;
+import java.util.Locale;
 import javax.swing.JTree;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.MutableTreeNode;
 import org.cakephp.netbeans.editor.codegenerator.FieldInfo;
 import org.cakephp.netbeans.editor.codegenerator.Property;
@@ -57,6 +61,7 @@ public class FieldsGeneratorPanel extends javax.swing.JPanel {
     private static final long serialVersionUID = -2775979252996739813L;
     protected final String className;
     private List<FieldInfo> fields;
+    private JTree tree;
 
     /**
      * Creates new form FieldsGeneratorPanel
@@ -70,10 +75,26 @@ public class FieldsGeneratorPanel extends javax.swing.JPanel {
     }
 
     private void initPanel() {
+        filterTextField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+        });
     }
 
     private void initTree() {
-        JTree tree = new JTree(getRootNode());
+        tree = new JTree(getRootNode());
         tree.setCellRenderer(new CheckBoxTreeRenderer());
         tree.putClientProperty("JTree.lineStyle", "Angled");  //NOI18N
         NodeSelectionListener listener = new NodeSelectionListener(tree);
@@ -93,14 +114,25 @@ public class FieldsGeneratorPanel extends javax.swing.JPanel {
         expandAll(tree);
     }
 
+    /**
+     * Show only properties which contain the filter text. Selected
+     * properties are kept by Property.
+     */
+    private void filterChanged() {
+        tree.setModel(new DefaultTreeModel(getRootNode()));
+        expandAll(tree);
+    }
+
     protected MutableTreeNode getRootNode() {
+        String filter = filterTextField.getText().trim().toLowerCase(Locale.ENGLISH);
         // init root node
         CheckNode root = new CheckNode.MBHCNode(className);
         for (FieldInfo field : fields) {
             CheckNode.MBHCNode mbhcNode = new CheckNode.MBHCNode(field.getName());
             for (Property property : field.getPossibleProperties()) {
                 String propertyName = property.getName();
-                if (propertyName != null && !propertyName.isEmpty()) {
+                if (propertyName != null && !propertyName.isEmpty()
+                        && propertyName.toLowerCase(Locale.ENGLISH).contains(filter)) {
                     mbhcNode.add(new CheckNode.MBHCClassNode(property));
                 }
             }
@@ -128,9 +160,16 @@ public class FieldsGeneratorPanel extends javax.swing.JPanel {
 
         scrollPane = new javax.swing.JScrollPane();
         topMessageLabel = new javax.swing.JLabel();
+        filterLabel = new javax.swing.JLabel();
+        filterTextField = new javax.swing.JTextField();
 
         org.openide.awt.Mnemonics.setLocalizedText(topMessageLabel, org.openide.util.NbBundle.getMessage(FieldsGeneratorPanel.class, "FieldsGeneratorPanel.topMessageLabel.text")); // NOI18N
 
+        filterLabel.setLabelFor(filterTextField);
+        org.openide.awt.Mnemonics.setLocalizedText(filterLabel, org.openide.util.NbBundle.getMessage(FieldsGeneratorPanel.class, "FieldsGeneratorPanel.filterLabel.text")); // NOI18N
+
+        filterTextField.setText(org.openide.util.NbBundle.getMessage(FieldsGeneratorPanel.class, "FieldsGeneratorPanel.filterTextField.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -141,7 +180,11 @@ public class FieldsGeneratorPanel extends javax.swing.JPanel {
                     .addComponent(scrollPane)
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(topMessageLabel)
-                        .addGap(0, 284, Short.MAX_VALUE)))
+                        .addGap(0, 284, Short.MAX_VALUE))
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(filterLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(filterTextField)))
                 .addContainerGap())
         );
         layout.setVerticalGroup(
@@ -151,10 +194,16 @@ public class FieldsGeneratorPanel extends javax.swing.JPanel {
                 .addComponent(topMessageLabel)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(scrollPane, javax.swing.GroupLayout.PREFERRED_SIZE, 358, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(filterLabel)
+                    .addComponent(filterTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap())
         );
     }// </editor-fold>//GEN-END:initComponents
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JLabel filterLabel;
+    private javax.swing.JTextField filterTextField;
     private javax.swing.JScrollPane scrollPane;
     private javax.swing.JLabel topMessageLabel;
     // End of variables declaration//GEN-END:variables
@@ -41,16 +41,20 @@
  */
 package org.cakephp.netbeans.editor.hyperlink;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.Document;
 import org.cakephp.netbeans.module.CakePhpModule;
-import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.ElementIndex;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
 import org.netbeans.api.lexer.Token;
 import org.netbeans.api.lexer.TokenHierarchy;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkProvider;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
 import org.netbeans.modules.csl.api.UiUtils;
+import org.netbeans.modules.editor.NbEditorUtilities;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.editor.lexer.PHPTokenId;
 import org.openide.filesystems.FileObject;
@@ -62,11 +66,20 @@ import org.openide.filesystems.FileObject;
 @MimeRegistration(mimeType = "text/x-php5", service = HyperlinkProvider.class)
 public class CakePhpHyperlinkProvider implements HyperlinkProvider {
 
-    private static final String ELEMENTS_DIR_NAME = "Elements";
     private FileObject element;
     private String target;
     private int targetStart;
     private int targetEnd;
+    // last result, it is reused while the mouse is on the same token and the
+    // element index is not built again
+    private Reference<Document> lastDocument = new WeakReference<Document>(null);
+    private long lastVersion = -1;
+    private int lastTokenStart = -1;
+    private int lastTokenEnd = -1;
+    // null if the element index was not used
+    private Reference<ElementIndex> lastIndex;
+    private int lastIndexRevision = ElementIndex.NOT_BUILT;
+    private boolean lastResult;
 
     @Override
     public boolean isHyperlinkPoint(Document doc, int offset) {
@@ -75,51 +88,90 @@ public class CakePhpHyperlinkProvider implements HyperlinkProvider {
 
     @SuppressWarnings("unchecked")
     public boolean verifyState(Document doc, int offset) {
+        long version = DocumentUtilities.getDocumentVersion(doc);
+        if (lastDocument.get() == doc && lastVersion == version
+                && lastTokenStart <= offset && offset < lastTokenEnd
+                && isSameIndexRevision()) {
+            return lastResult;
+        }
+
+        // only tokens are checked in the read lock
+        String elementName = null;
+        int tokenStart = offset;
+        int tokenEnd = offset + 1;
         AbstractDocument ad = (AbstractDocument) doc;
         ad.readLock();
         try {
             TokenHierarchy hierarchy = TokenHierarchy.get(doc);
             TokenSequence<PHPTokenId> ts = hierarchy.tokenSequence(PHPTokenId.language());
-            if (ts == null) {
-                return false;
-            }
-
-            ts.move(offset);
-            ts.moveNext();
-            Token<PHPTokenId> token = ts.token();
-            target = token.text().toString();
-            PHPTokenId id = token.id();
-            int newOffset = ts.offset();
-
-            if (!isElement(ts)) {
-                return false;
-            }
-
-            if (id == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
-                target = token.text().toString();
-                if (target.length() > 2) {
-                    target = target.substring(1, target.length() - 1);
-                } else {
-                    target = ""; // NOI18N
-                    return false;
-                }
-                PhpModule pm = PhpModule.inferPhpModule();
-                CakePhpModule module = CakePhpModule.forPhpModule(pm);
-                element = module.getViewFile(DIR_TYPE.APP, ELEMENTS_DIR_NAME, target);
-                if (element == null) {
-                    element = module.getViewFile(DIR_TYPE.CORE, ELEMENTS_DIR_NAME, target);
-                }
-                if (element != null) {
-                    targetStart = newOffset + 1;
-                    targetEnd = targetStart + target.length();
-                    return true;
+            if (ts != null) {
+                ts.move(offset);
+                if (ts.moveNext()) {
+                    Token<PHPTokenId> token = ts.token();
+                    tokenStart = ts.offset();
+                    tokenEnd = tokenStart + token.length();
+                    if (token.id() == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING && isElement(ts)) {
+                        String text = token.text().toString();
+                        if (text.length() > 2) {
+                            elementName = text.substring(1, text.length() - 1);
+                        }
+                    }
                 }
             }
         } finally {
             ad.readUnlock();
         }
 
-        return false;
+        ElementIndex index = elementName == null ? null : getElementIndex(doc);
+        int indexRevision = index != null ? index.getRevision() : ElementIndex.NOT_BUILT;
+        element = index != null ? index.getElement(elementName) : null;
+        if (element != null) {
+            target = elementName;
+            targetStart = tokenStart + 1;
+            targetEnd = targetStart + elementName.length();
+        } else {
+            target = ""; // NOI18N
+        }
+        lastResult = element != null;
+        if (index != null && indexRevision == ElementIndex.NOT_BUILT) {
+            // the element might be found after the index is built
+            lastDocument = new WeakReference<Document>(null);
+            return lastResult;
+        }
+        lastDocument = new WeakReference<Document>(doc);
+        lastVersion = version;
+        lastTokenStart = tokenStart;
+        lastTokenEnd = tokenEnd;
+        lastIndex = index != null ? new WeakReference<ElementIndex>(index) : null;
+        lastIndexRevision = indexRevision;
+        return lastResult;
+    }
+
+    private boolean isSameIndexRevision() {
+        if (lastIndex == null) {
+            return true;
+        }
+        ElementIndex index = lastIndex.get();
+        return index != null && index.getRevision() == lastIndexRevision;
+    }
+
+    /**
+     * Get the element index of the project.
+     *
+     * @param doc document
+     * @return element index, null if it is not a CakePHP project
+     */
+    private ElementIndex getElementIndex(Document doc) {
+        FileObject fileObject = NbEditorUtilities.getFileObject(doc);
+        PhpModule pm = fileObject != null ? PhpModule.forFileObject(fileObject) : PhpModule.inferPhpModule();
+        if (pm == null) {
+            return null;
+        }
+        CakePhpModule module = CakePhpModule.forPhpModule(pm);
+        if (module == null) {
+            return null;
+        }
+        return module.getElementIndex();
     }
 
     @Override
@@ -0,0 +1,297 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.editor.visitors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.Document;
+import org.cakephp.netbeans.editor.visitors.CakePhpFieldsVisitor.Field;
+import org.cakephp.netbeans.module.CakePhpModule;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.cakephp.netbeans.util.ConcurrentWeakHashMap;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.netbeans.modules.parsing.api.ParserManager;
+import org.netbeans.modules.parsing.api.ResultIterator;
+import org.netbeans.modules.parsing.api.Source;
+import org.netbeans.modules.parsing.api.UserTask;
+import org.netbeans.modules.parsing.spi.ParseException;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.editor.parser.api.Utils;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Results of CakePhpControllerVisitor for a controller file. It is shared by
+ * code completion and go to actions. The controller is parsed again only if
+ * the timestamp of the file or the version of the opened document is changed,
+ * or php files of the project are created or deleted (e.g. a component of
+ * $components is added).
+ *
+ * @author junichi11
+ */
+public final class CakePhpControllerInfo {
+
+    private static final Logger LOGGER = Logger.getLogger(CakePhpControllerInfo.class.getName());
+    private static final ConcurrentWeakHashMap<FileObject, CakePhpControllerInfo> CACHE = new ConcurrentWeakHashMap<FileObject, CakePhpControllerInfo>();
+    private static final long NO_DOCUMENT = -1L;
+    private static final int NO_REVISION = -1;
+    /**
+     * Field names of controller. ($uses, $components, $helpers)
+     */
+    public static final Set<String> CONTROLLER_FIELD_NAMES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            CakePhpFieldsVisitor.USES,
+            CakePhpFieldsVisitor.COMPONENTS,
+            CakePhpFieldsVisitor.HELPERS)));
+    private final long timestamp;
+    private final long documentVersion;
+    private final int fileRevision;
+    private final List<Field> fields;
+    private final Set<String> methodNames;
+    private final Map<String, Set<String>> viewNames;
+    private final Map<String, Set<String>> themeNames;
+    private final Map<String, Set<String>> viewVarNames;
+    private final boolean hasThemeField;
+
+    private CakePhpControllerInfo(CakePhpControllerVisitor visitor, long timestamp, long documentVersion, int fileRevision) {
+        this.timestamp = timestamp;
+        this.documentVersion = documentVersion;
+        this.fileRevision = fileRevision;
+        this.fields = Collections.unmodifiableList(new ArrayList<Field>(visitor.getFields()));
+        this.methodNames = Collections.unmodifiableSet(new HashSet<String>(visitor.getMethodNames()));
+        this.viewNames = copy(visitor.getMethodViewNames());
+        this.themeNames = copy(visitor.getMethodThemeNames());
+        this.viewVarNames = copy(visitor.getMethodViewVarNames());
+        this.hasThemeField = visitor.hasThemeField();
+    }
+
+    /**
+     * Get the information of the controller.
+     *
+     * @param controller controller file
+     * @return CakePhpControllerInfo if the controller can be parsed, otherwise
+     * null
+     */
+    public static CakePhpControllerInfo forController(FileObject controller) {
+        if (controller == null || !controller.isValid()) {
+            return null;
+        }
+        long timestamp = controller.lastModified().getTime();
+        long documentVersion = getDocumentVersion(controller);
+        // get it before parsing, files which are created while parsing are resolved next time
+        int fileRevision = getFileRevision(controller);
+        CakePhpControllerInfo info = CACHE.get(controller);
+        if (info != null && info.timestamp == timestamp && info.documentVersion == documentVersion
+                && info.fileRevision == fileRevision) {
+            return info;
+        }
+        info = parse(controller, timestamp, documentVersion, fileRevision);
+        if (info != null) {
+            CACHE.put(controller, info);
+        }
+        return info;
+    }
+
+    private static CakePhpControllerInfo parse(final FileObject controller, final long timestamp, final long documentVersion, final int fileRevision) {
+        final CakePhpControllerInfo[] info = new CakePhpControllerInfo[1];
+        try {
+            ParserManager.parse(Collections.singleton(Source.create(controller)), new UserTask() {
+                @Override
+                public void run(ResultIterator resultIterator) throws Exception {
+                    ParserResult parseResult = (ParserResult) resultIterator.getParserResult();
+                    CakePhpControllerVisitor visitor = new CakePhpControllerVisitor(controller);
+                    visitor.scan(Utils.getRoot(parseResult));
+                    info[0] = new CakePhpControllerInfo(visitor, timestamp, documentVersion, fileRevision);
+                }
+            });
+        } catch (ParseException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+        }
+        return info[0];
+    }
+
+    private static long getDocumentVersion(FileObject controller) {
+        Source source = Source.create(controller);
+        Document document = source != null ? source.getDocument(false) : null;
+        if (document == null) {
+            return NO_DOCUMENT;
+        }
+        return DocumentUtilities.getDocumentVersion(document);
+    }
+
+    private static int getFileRevision(FileObject controller) {
+        PhpModule phpModule = PhpModule.forFileObject(controller);
+        if (phpModule == null) {
+            return NO_REVISION;
+        }
+        CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
+        if (cakeModule == null) {
+            return NO_REVISION;
+        }
+        return cakeModule.getFileRevision();
+    }
+
+    private static Map<String, Set<String>> copy(Map<String, Set<String>> map) {
+        Map<String, Set<String>> copy = new HashMap<String, Set<String>>(map.size());
+        for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<String>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Set<String> get(Map<String, Set<String>> map, String methodName) {
+        Set<String> values = map.get(methodName);
+        if (values == null) {
+            return Collections.emptySet();
+        }
+        return values;
+    }
+
+    /**
+     * Get fields which are declared as the field names or added with
+     * ClassRegistry::init().
+     *
+     * @param fieldNames field names (e.g. $uses, $helpers)
+     * @return fields
+     */
+    public List<Field> getFields(Set<String> fieldNames) {
+        List<Field> result = new ArrayList<Field>();
+        for (Field field : fields) {
+            if (field.isClassRegistry() || fieldNames.contains(field.getFieldName())) {
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get files of fields for FILE_TYPE.
+     *
+     * @param fileType FILE_TYPE
+     * @param fieldNames field names (e.g. $uses, $helpers)
+     * @return files
+     */
+    public List<FileObject> getFiles(FILE_TYPE fileType, Set<String> fieldNames) {
+        List<FileObject> files = new ArrayList<FileObject>();
+        for (Field field : getFields(fieldNames)) {
+            if (field.getFileType() == fileType) {
+                files.add(field.getFile());
+            }
+        }
+        return files;
+    }
+
+    public Set<String> getMethodNames() {
+        return methodNames;
+    }
+
+    /**
+     * Get view names which are specified in the method.
+     *
+     * @param methodName method name
+     * @return view names
+     */
+    public Set<String> getViewNames(String methodName) {
+        return get(viewNames, methodName);
+    }
+
+    /**
+     * Get all view names. i.e. method names and view names which are
+     * specified in all methods.
+     *
+     * @return all view names
+     */
+    public Set<String> getAllViewNames() {
+        Set<String> allViewNames = new HashSet<String>(methodNames);
+        for (Set<String> names : viewNames.values()) {
+            allViewNames.addAll(names);
+        }
+        return allViewNames;
+    }
+
+    /**
+     * Get theme names which are specified in the method.
+     *
+     * @param methodName method name
+     * @return theme names
+     */
+    public Set<String> getThemeNames(String methodName) {
+        return get(themeNames, methodName);
+    }
+
+    /**
+     * Get theme names which are specified in other methods.
+     *
+     * @param methodName method name
+     * @return theme names
+     */
+    public Set<String> getOtherThemeNames(String methodName) {
+        Set<String> otherThemeNames = new HashSet<String>();
+        for (Map.Entry<String, Set<String>> entry : themeNames.entrySet()) {
+            if (!entry.getKey().equals(methodName)) {
+                otherThemeNames.addAll(entry.getValue());
+            }
+        }
+        return otherThemeNames;
+    }
+
+    public boolean hasThemeField() {
+        return hasThemeField;
+    }
+
+    /**
+     * Get variable names which are set with $this->set() in the method.
+     *
+     * @param methodName method name
+     * @return variable names
+     */
+    public Set<String> getViewVarNames(String methodName) {
+        return get(viewVarNames, methodName);
+    }
+}
@@ -42,8 +42,10 @@
 package org.cakephp.netbeans.editor.visitors;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import static org.cakephp.netbeans.editor.visitors.CakePhpFieldsVisitor.HELPERS;
 import org.cakephp.netbeans.util.CakePhpCodeUtils;
@@ -77,6 +79,12 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
     private final Set<String> allViewNames = new HashSet<String>();
     private final Set<String> themeNames = new HashSet<String>();
     private final Set<String> allThemeNames = new HashSet<String>();
+    // for each method
+    private final Set<String> methodNames = new HashSet<String>();
+    private final Map<String, Set<String>> methodViewNames = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> methodThemeNames = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> methodViewVarNames = new HashMap<String, Set<String>>();
+    private boolean hasThemeField = false;
     private String className = null;
     private String methodName = "";
     private String viewName = null;
@@ -144,6 +152,7 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
             String fieldName = CodeUtils.extractVariableName(field.getName());
             if ("$theme".equals(fieldName)) { // NOI18N
                 isTheme = true;
+                hasThemeField = true;
             }
         }
     }
@@ -182,12 +191,14 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
                 }
 
                 if ("view".equals(variableName)) { // NOI18N
+                    add(methodViewNames, methodName, rightValue);
                     if (methodName.equals(viewName)) {
                         viewNames.add(rightValue);
                     } else {
                         allViewNames.add(rightValue);
                     }
                 } else if ("theme".equals(variableName)) { // NOI18N
+                    add(methodThemeNames, methodName, rightValue);
                     if (methodName.equals(viewName)) {
                         themeNames.add(rightValue);
                         isTheme = true;
@@ -205,7 +216,7 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
         if (isController) {
             fieldNames.add(USES);
             fieldNames.add(COMPONENTS);
-            if (getPhpClass() == null) {
+            if (!hasPhpClass()) {
                 fieldNames.add(HELPERS);
             }
         } else if (isView) {
@@ -231,6 +242,9 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
     @Override
     public void visit(MethodDeclaration node) {
         methodName = CodeUtils.extractMethodName(node);
+        if (methodName != null) {
+            methodNames.add(methodName);
+        }
         super.visit(node);
     }
 
@@ -262,6 +276,7 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
                 viewPath = CakePhpCodeUtils.getStringValue(e);
             }
             if (!StringUtils.isEmpty(viewPath)) {
+                add(methodViewNames, methodName, viewPath);
                 if (methodName.equals(viewName)) {
                     viewNames.add(viewPath);
                 } else {
@@ -270,6 +285,10 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
             }
         }
 
+        if (className != null && invokedMethodName.equals("set") && CakePhpUtils.isControllerName(className) && !viewVarName.isEmpty()) { // NOI18N
+            add(methodViewVarNames, methodName, viewVarName);
+        }
+
         // in view
         if (isView) {
             if (methodName.equals(viewName) && invokedMethodName.equals("set") && CakePhpUtils.isControllerName(className) && !viewVarName.isEmpty()) {
@@ -301,6 +320,64 @@ public final class CakePhpControllerVisitor extends CakePhpFieldsVisitor {
         return allThemeNames;
     }
 
+    /**
+     * Check whether $theme field is declared.
+     *
+     * @return true if $theme field is declared, otherwise false
+     */
+    public boolean hasThemeField() {
+        return hasThemeField;
+    }
+
+    /**
+     * Get declared method names.
+     *
+     * @return method names
+     */
+    public Set<String> getMethodNames() {
+        return methodNames;
+    }
+
+    /**
+     * Get view names which are specified with $this->view or
+     * $this->render() in each method.
+     *
+     * @return method name and view names
+     */
+    public Map<String, Set<String>> getMethodViewNames() {
+        return methodViewNames;
+    }
+
+    /**
+     * Get theme names which are specified with $this->theme in each method.
+     *
+     * @return method name and theme names
+     */
+    public Map<String, Set<String>> getMethodThemeNames() {
+        return methodThemeNames;
+    }
+
+    /**
+     * Get variable names which are set with $this->set() in each method.
+     *
+     * @return method name and variable names
+     */
+    public Map<String, Set<String>> getMethodViewVarNames() {
+        return methodViewVarNames;
+    }
+
+    private static void add(Map<String, Set<String>> map, String key, String value) {
+        if (key == null) {
+            return;
+        }
+        Set<String> values = map.get(key);
+        if (values == null) {
+            values = new HashSet<String>();
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+
     private String prepareViewVar(String viewVarName) {
         if (!viewVarName.isEmpty()) {
             viewVarName = viewVarName.substring(1, viewVarName.length() - 1).trim();
@@ -82,6 +82,9 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
     private List<FileObject> helpers = new ArrayList<FileObject>();
     private List<FileObject> behaviors = new ArrayList<FileObject>();
     private List<FileObject> fixtures = new ArrayList<FileObject>();
+    private final List<Field> fields = new ArrayList<Field>();
+    // fields which are not resolved yet, in the order of appearance
+    private final List<PendingField> pendingFields = new ArrayList<PendingField>();
     public static final Map<String, FILE_TYPE> FILE_TYPES = new HashMap<String, CakePhpModule.FILE_TYPE>();
     public static final String USES = "$uses"; // NOI18N
     public static final String COMPONENTS = "$components"; // NOI18N
@@ -119,6 +122,7 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
         if (phpClass == null) {
             return null;
         }
+        resolveFields();
 
         synchronized (phpClass) {
             pc = phpClass;
@@ -127,25 +131,49 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
     }
 
     public List<FileObject> getModels() {
+        resolveFields();
         return models;
     }
 
     public List<FileObject> getComponents() {
+        resolveFields();
         return components;
     }
 
     public List<FileObject> getHelpers() {
+        resolveFields();
         return helpers;
     }
 
     public List<FileObject> getBehaviors() {
+        resolveFields();
         return behaviors;
     }
 
     public List<FileObject> getFixtures() {
+        resolveFields();
         return fixtures;
     }
 
+    /**
+     * Get resolved fields in the order of appearance.
+     *
+     * @return resolved fields
+     */
+    public List<Field> getFields() {
+        resolveFields();
+        return fields;
+    }
+
+    /**
+     * Check whether the PhpClass to which fields are added is specified.
+     *
+     * @return true if PhpClass is specified, otherwise false
+     */
+    protected boolean hasPhpClass() {
+        return phpClass != null;
+    }
+
     /**
      * Get filed name. (e.g. $helpers)
      *
@@ -172,7 +200,7 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
         CakePhpModule module = CakePhpModule.forPhpModule(phpModule);
         for (Expression parameter : parameters) {
             String entityName = CakePhpCodeUtils.getStringValue(parameter);
-            addField(entityName, USES, module, null);
+            addField(entityName, USES, module, null, true);
             break;
         }
     }
@@ -251,23 +279,11 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
             // get entity name
             String entityName = CakePhpCodeUtils.getStringValue(value);
             // add field to PhpClass
-            addField(entityName, fieldName, module, aliasName);
-        }
-    }
-
-    private FileObject getEntityFile(boolean isPlugin, CakePhpModule module, FILE_TYPE fileType, String entityName, String pluginName) {
-        FileObject object = null;
-        Set<CakePhpModule.DIR_TYPE> dirTypes = getDirTypes(isPlugin);
-        for (CakePhpModule.DIR_TYPE dirType : dirTypes) {
-            object = module.getFile(dirType, fileType, entityName, pluginName);
-            if (object != null) {
-                break;
-            }
+            addField(entityName, fieldName, module, aliasName, false);
         }
-        return object;
     }
 
-    private void addField(String entityName, String fieldName, CakePhpModule module, String aliasName) {
+    private void addField(String entityName, String fieldName, CakePhpModule module, String aliasName, boolean isClassRegistry) {
         // in TestCase
         if (CakePhpUtils.isTest(targetFile)) {
             FileObject entityFile = getFixtureFile(entityName, fieldName);
@@ -277,29 +293,96 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
             return;
         }
 
+        if (module == null || StringUtils.isEmpty(entityName)) {
+            return;
+        }
+
         // check app or plugin
-        boolean isPlugin = false;
         String pluginName = null;
         int dotPosition = entityName.indexOf("."); // NOI18N
         if (dotPosition > 0) {
-            isPlugin = true;
             pluginName = entityName.substring(0, dotPosition);
             entityName = entityName.substring(dotPosition + 1);
         }
-        //get entity file
-        FILE_TYPE fileType = FILE_TYPES.get(fieldName);
-        FileObject entityFile = getEntityFile(isPlugin, module, fileType, entityName, pluginName);
-        if (entityFile == null) {
+        // files are resolved together when they are used
+        pendingFields.add(new PendingField(fieldName, entityName, aliasName, pluginName, isClassRegistry));
+    }
+
+    /**
+     * Resolve pending fields. Files are resolved with one directory listing
+     * for each (DIR_TYPE, FILE_TYPE, plugin), then fields are added in the
+     * order of appearance.
+     */
+    private void resolveFields() {
+        if (pendingFields.isEmpty()) {
+            return;
+        }
+        List<PendingField> pending = new ArrayList<PendingField>(pendingFields);
+        pendingFields.clear();
+        CakePhpModule module = CakePhpModule.forPhpModule(phpModule);
+        if (module == null) {
             return;
         }
 
-        // add file
-        addFile(entityFile, fileType);
+        Map<String, Map<String, FileObject>> listings = new HashMap<String, Map<String, FileObject>>();
+        Map<FileObject, String> classNames = new HashMap<FileObject, String>();
+        for (PendingField field : pending) {
+            FILE_TYPE fileType = FILE_TYPES.get(field.fieldName);
+            FileObject entityFile = getEntityFile(module, listings, fileType, field.entityName, field.pluginName);
+            if (entityFile == null) {
+                continue;
+            }
+
+            // add file
+            addFile(entityFile, fileType);
+            String entityClassName;
+            if (classNames.containsKey(entityFile)) {
+                entityClassName = classNames.get(entityFile);
+            } else {
+                entityClassName = getFullyQualifiedClassName(entityFile);
+                classNames.put(entityFile, entityClassName);
+            }
+            fields.add(new Field(field.fieldName, field.entityName, field.aliasName, entityClassName, entityFile, field.isClassRegistry));
+
+            // add field
+            if (phpClass != null) {
+                addField(field.entityName, field.aliasName, entityClassName, entityFile);
+            }
+        }
+    }
+
+    private FileObject getEntityFile(CakePhpModule module, Map<String, Map<String, FileObject>> listings, FILE_TYPE fileType, String entityName, String pluginName) {
+        String fileName = module.getFileNameWithExt(fileType, entityName);
+        for (CakePhpModule.DIR_TYPE dirType : getDirTypes(pluginName != null)) {
+            FileObject file;
+            if (fileName.indexOf('/') != -1) {
+                file = module.getFile(dirType, fileType, entityName, pluginName);
+            } else {
+                file = getChildren(module, listings, dirType, fileType, pluginName).get(fileName);
+            }
+            if (file != null) {
+                return file;
+            }
+        }
+        return null;
+    }
 
-        // add field
-        if (phpClass != null) {
-            addField(entityName, aliasName, entityFile);
+    private static Map<String, FileObject> getChildren(CakePhpModule module, Map<String, Map<String, FileObject>> listings, CakePhpModule.DIR_TYPE dirType, FILE_TYPE fileType, String pluginName) {
+        String key = dirType + ":" + fileType + ":" + pluginName; // NOI18N
+        Map<String, FileObject> children = listings.get(key);
+        if (children == null) {
+            children = new HashMap<String, FileObject>();
+            FileObject directory = module.getDirectory(dirType, fileType, pluginName);
+            if (directory != null && directory.isFolder()) {
+                for (FileObject child : directory.getChildren()) {
+                    if (child.isData()) {
+                        children.put(child.getNameExt(), child);
+                    }
+                }
+            }
+            listings.put(key, children);
         }
+        return children;
     }
 
     private FileObject getFixtureFile(String entityName, String fieldName) {
@@ -380,8 +463,7 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
         }
     }
 
-    private void addField(String entityName, String aliasName, FileObject entityFile) {
-        String entityClassName = getFullyQualifiedClassName(entityFile);
+    private void addField(String entityName, String aliasName, String entityClassName, FileObject entityFile) {
         synchronized (phpClass) {
             if (aliasName == null) {
                 phpClass.addField(entityName, new PhpClass(entityName, entityClassName), entityFile, 0);
@@ -402,4 +484,88 @@ public abstract class CakePhpFieldsVisitor extends DefaultVisitor {
 
         return name;
     }
+
+    //~ Inner classes
+    private static final class PendingField {
+
+        private final String fieldName;
+        private final String entityName;
+        private final String aliasName;
+        private final String pluginName;
+        private final boolean isClassRegistry;
+
+        PendingField(String fieldName, String entityName, String aliasName, String pluginName, boolean isClassRegistry) {
+            this.fieldName = fieldName;
+            this.entityName = entityName;
+            this.aliasName = aliasName;
+            this.pluginName = pluginName;
+            this.isClassRegistry = isClassRegistry;
+        }
+    }
+
+    /**
+     * Resolved field. e.g. $uses = array('Post', 'Alias' => array('className' => 'Comment'));
+     */
+    public static final class Field {
+
+        private final String fieldName;
+        private final String entityName;
+        private final String aliasName;
+        private final String className;
+        private final FileObject file;
+        private final boolean isClassRegistry;
+
+        Field(String fieldName, String entityName, String aliasName, String className, FileObject file, boolean isClassRegistry) {
+            this.fieldName = fieldName;
+            this.entityName = entityName;
+            this.aliasName = aliasName;
+            this.className = className;
+            this.file = file;
+            this.isClassRegistry = isClassRegistry;
+        }
+
+        /**
+         * Get field name. (e.g. $uses)
+         *
+         * @return field name
+         */
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public String getEntityName() {
+            return entityName;
+        }
+
+        /**
+         * Get the name of variable. Alias name if it is specified.
+         *
+         * @return name
+         */
+        public String getName() {
+            return aliasName == null ? entityName : aliasName;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public FileObject getFile() {
+            return file;
+        }
+
+        public FILE_TYPE getFileType() {
+            return FILE_TYPES.get(fieldName);
+        }
+
+        /**
+         * Check whether the field is added with ClassRegistry::init().
+         *
+         * @return true if it is added with ClassRegistry::init(), otherwise
+         * false
+         */
+        public boolean isClassRegistry() {
+            return isClassRegistry;
+        }
+    }
 }
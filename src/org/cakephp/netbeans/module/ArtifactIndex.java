@@ -0,0 +1,578 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeListener;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.cakephp.netbeans.util.CakePhpSecurityString;
+import org.cakephp.netbeans.util.CakePhpUtils;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+import org.openide.util.ChangeSupport;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Index of CakePHP artifacts (controllers, models, components, helpers,
+ * behaviors, fixtures, ...) of a project.
+ *
+ * Files are kept per (DIR_TYPE, plugin, FILE_TYPE). Each bucket is built when
+ * it is used first, then it is maintained by file events of app and plugins
+ * directories. Buckets are stored to the cache directory and reused after
+ * restart if the folders of the bucket are not modified. Listeners are
+ * notified when files of built buckets are changed.
+ *
+ * @author junichi11
+ */
+public final class ArtifactIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ArtifactIndex.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ArtifactIndex.class.getName(), 1);
+    private static final String CACHE_DIRECTORY = "cakephp/artifacts"; // NOI18N
+    private static final int STORE_DELAY = 3000;
+    private static final int FORMAT_VERSION = 1;
+    private static final Comparator<FileObject> FILE_COMPARATOR = new Comparator<FileObject>() {
+        @Override
+        public int compare(FileObject o1, FileObject o2) {
+            return o1.getName().compareToIgnoreCase(o2.getName());
+        }
+    };
+    private final CakePhpModule cakeModule;
+    private final ConcurrentMap<Key, Bucket> buckets = new ConcurrentHashMap<Key, Bucket>();
+    private final List<FileObject> watchedRoots = new ArrayList<FileObject>();
+    private final FileChangeListener rootsListener = new RootsListener();
+    private final File storeFile;
+    private final RequestProcessor.Task storeTask;
+    private final ChangeSupport changeSupport = new ChangeSupport(this);
+    // buckets read from the cache directory, not validated yet
+    private Map<Key, StoredBucket> storedBuckets;
+
+    ArtifactIndex(CakePhpModule cakeModule, String projectPath) {
+        this.cakeModule = cakeModule;
+        this.storeFile = getStoreFile(projectPath);
+        this.storeTask = RP.create(new Runnable() {
+            @Override
+            public void run() {
+                store();
+            }
+        });
+        watch(cakeModule.getDirectory(DIR_TYPE.APP));
+        watch(cakeModule.getDirectory(DIR_TYPE.PLUGIN));
+    }
+
+    /**
+     * Get files for FILE_TYPE. Files are sorted by name.
+     *
+     * @param dirType DIR_TYPE
+     * @param pluginName plugin name, null if it's not plugin
+     * @param fileType FILE_TYPE
+     * @return files, empty list if there is no file
+     */
+    public List<FileObject> getFiles(DIR_TYPE dirType, String pluginName, FILE_TYPE fileType) {
+        Key key = new Key(dirType, pluginName, fileType);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = restore(key);
+            if (bucket == null) {
+                bucket = build(key);
+            }
+            Bucket other = buckets.putIfAbsent(key, bucket);
+            if (other != null) {
+                bucket = other;
+            } else {
+                scheduleStore();
+            }
+        }
+        return bucket.files;
+    }
+
+    /**
+     * Add the listener which is notified when files of buckets are added or
+     * removed, or buckets are discarded.
+     *
+     * @param listener ChangeListener
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeSupport.addChangeListener(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeSupport.removeChangeListener(listener);
+    }
+
+    /**
+     * Stop listening to file events.
+     */
+    synchronized void dispose() {
+        for (FileObject root : watchedRoots) {
+            root.removeRecursiveListener(rootsListener);
+        }
+        watchedRoots.clear();
+        buckets.clear();
+    }
+
+    private synchronized void watch(FileObject root) {
+        if (root == null || !root.isFolder()) {
+            return;
+        }
+        root.addRecursiveListener(rootsListener);
+        watchedRoots.add(root);
+    }
+
+    /**
+     * Check whether the file is an artifact of FILE_TYPE.
+     *
+     * @param fileType FILE_TYPE
+     * @param fo file
+     * @return true if the file is the artifact, otherwise false
+     */
+    boolean accept(FILE_TYPE fileType, FileObject fo) {
+        if (fo == null || !fo.isValid() || fo.isFolder()) {
+            return false;
+        }
+        switch (fileType) {
+            case CONTROLLER:
+                return !cakeModule.isTest(fo) && cakeModule.isController(fo);
+            case MODEL:
+                return !cakeModule.isTest(fo) && cakeModule.isModel(fo);
+            case COMPONENT:
+                return !cakeModule.isTest(fo) && cakeModule.isComponent(fo);
+            case HELPER:
+                return !cakeModule.isTest(fo) && cakeModule.isHelper(fo);
+            case BEHAVIOR:
+                return cakeModule.isBehavior(fo);
+            case FIXTURE:
+                return CakePhpUtils.isFixture(fo);
+            case TEST:
+                return cakeModule.isTest(fo);
+            case VIEW:
+                return CakePhpUtils.isCtpFile(fo);
+            default:
+                return true;
+        }
+    }
+
+    private Bucket build(Key key) {
+        FileObject directory = cakeModule.getDirectory(key.dirType, key.fileType, key.pluginName);
+        if (directory == null || !directory.isFolder()) {
+            return new Bucket(null, Collections.<FileObject>emptyList());
+        }
+        List<FileObject> files = new ArrayList<FileObject>();
+        Enumeration<? extends FileObject> children = directory.getChildren(true);
+        while (children.hasMoreElements()) {
+            FileObject child = children.nextElement();
+            if (accept(key.fileType, child)) {
+                files.add(child);
+            }
+        }
+        return new Bucket(directory, files);
+    }
+
+    /**
+     * Restore the bucket from the cache directory. It is used only if all
+     * folders in the bucket are not modified.
+     *
+     * @param key Key
+     * @return Bucket if it is available, otherwise null
+     */
+    private Bucket restore(Key key) {
+        StoredBucket stored;
+        synchronized (this) {
+            if (storedBuckets == null) {
+                storedBuckets = load();
+            }
+            stored = storedBuckets.remove(key);
+        }
+        if (stored == null) {
+            return null;
+        }
+        FileObject directory = cakeModule.getDirectory(key.dirType, key.fileType, key.pluginName);
+        if (directory == null || !directory.isFolder()) {
+            return null;
+        }
+        for (Map.Entry<String, Long> entry : stored.folders.entrySet()) {
+            FileObject folder = entry.getKey().isEmpty() ? directory : directory.getFileObject(entry.getKey());
+            if (folder == null || !folder.isFolder() || folder.lastModified().getTime() != entry.getValue()) {
+                return null;
+            }
+        }
+        List<FileObject> files = new ArrayList<FileObject>(stored.files.size());
+        for (String path : stored.files) {
+            FileObject file = directory.getFileObject(path);
+            if (file != null && file.isData()) {
+                files.add(file);
+            }
+        }
+        return new Bucket(directory, files);
+    }
+
+    private void fileCreatedOrRenamed(FileObject file) {
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (!bucket.contains(file) && bucket.isParentOf(file) && accept(entry.getKey().fileType, file)) {
+                update(entry.getKey(), bucket, file, true);
+            }
+        }
+    }
+
+    private void fileChanged(FileObject file) {
+        // fixtures are recognized by their class names
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Key key = entry.getKey();
+            Bucket bucket = entry.getValue();
+            if (key.fileType != FILE_TYPE.FIXTURE || !bucket.isParentOf(file)) {
+                continue;
+            }
+            boolean accepted = accept(key.fileType, file);
+            if (accepted != bucket.contains(file)) {
+                update(key, bucket, file, accepted);
+            }
+        }
+    }
+
+    private void fileDeletedOrRenamed(FileObject file) {
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (bucket.contains(file) && !accept(entry.getKey().fileType, file)) {
+                update(entry.getKey(), bucket, file, false);
+            }
+        }
+    }
+
+    private void folderChanged(FileObject folder) {
+        String path = folder.getPath();
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (bucket.directory == null) {
+                // directory might be created
+                buckets.remove(entry.getKey(), bucket);
+                continue;
+            }
+            String directoryPath = bucket.directory.getPath();
+            if (directoryPath.equals(path)
+                    || directoryPath.startsWith(path + "/") // NOI18N
+                    || path.startsWith(directoryPath + "/")) { // NOI18N
+                buckets.remove(entry.getKey(), bucket);
+            }
+        }
+        scheduleStore();
+        changeSupport.fireChange();
+    }
+
+    private void update(Key key, Bucket bucket, FileObject file, boolean add) {
+        List<FileObject> files = new ArrayList<FileObject>(bucket.files);
+        if (add) {
+            files.add(file);
+        } else {
+            files.remove(file);
+        }
+        if (buckets.replace(key, bucket, new Bucket(bucket.directory, files))) {
+            scheduleStore();
+        } else {
+            // changed by other thread, build it again next time
+            buckets.remove(key);
+        }
+        changeSupport.fireChange();
+    }
+
+    private void scheduleStore() {
+        if (storeFile != null) {
+            storeTask.schedule(STORE_DELAY);
+        }
+    }
+
+    //~ Persistence
+    private static File getStoreFile(String projectPath) {
+        if (projectPath == null) {
+            return null;
+        }
+        try {
+            String name = CakePhpSecurityString.hash(projectPath, "SHA-1"); // NOI18N
+            return new File(Places.getCacheSubdirectory(CACHE_DIRECTORY), name);
+        } catch (NoSuchAlgorithmException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+        return null;
+    }
+
+    private Map<Key, StoredBucket> load() {
+        Map<Key, StoredBucket> result = new HashMap<Key, StoredBucket>();
+        if (storeFile == null || !storeFile.isFile()) {
+            return result;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)));
+            if (input.readInt() != FORMAT_VERSION) {
+                return result;
+            }
+            int bucketCount = input.readInt();
+            for (int i = 0; i < bucketCount; i++) {
+                DIR_TYPE dirType = DIR_TYPE.valueOf(input.readUTF());
+                FILE_TYPE fileType = FILE_TYPE.valueOf(input.readUTF());
+                String pluginName = input.readUTF();
+                StoredBucket stored = new StoredBucket();
+                int folderCount = input.readInt();
+                for (int j = 0; j < folderCount; j++) {
+                    String path = input.readUTF();
+                    stored.folders.put(path, input.readLong());
+                }
+                int fileCount = input.readInt();
+                for (int j = 0; j < fileCount; j++) {
+                    stored.files.add(input.readUTF());
+                }
+                result.put(new Key(dirType, pluginName.isEmpty() ? null : pluginName, fileType), stored);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Can't read the artifact index: " + storeFile, ex); // NOI18N
+            result.clear();
+        } catch (IllegalArgumentException ex) {
+            LOGGER.log(Level.INFO, "Broken artifact index: " + storeFile, ex); // NOI18N
+            result.clear();
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, null, ex);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void store() {
+        Map<Key, Bucket> snapshot = new LinkedHashMap<Key, Bucket>();
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            if (entry.getValue().directory != null && entry.getValue().directory.isValid()) {
+                snapshot.put(entry.getKey(), entry.getValue());
+            }
+        }
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storeFile)));
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(snapshot.size());
+            for (Map.Entry<Key, Bucket> entry : snapshot.entrySet()) {
+                Key key = entry.getKey();
+                Bucket bucket = entry.getValue();
+                output.writeUTF(key.dirType.name());
+                output.writeUTF(key.fileType.name());
+                output.writeUTF(key.pluginName == null ? "" : key.pluginName); // NOI18N
+                Map<String, Long> folders = getFolders(bucket.directory);
+                output.writeInt(folders.size());
+                for (Map.Entry<String, Long> folder : folders.entrySet()) {
+                    output.writeUTF(folder.getKey());
+                    output.writeLong(folder.getValue());
+                }
+                List<String> paths = new ArrayList<String>(bucket.files.size());
+                for (FileObject file : bucket.files) {
+                    String path = FileUtil.getRelativePath(bucket.directory, file);
+                    if (path != null) {
+                        paths.add(path);
+                    }
+                }
+                output.writeInt(paths.size());
+                for (String path : paths) {
+                    output.writeUTF(path);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Can't write the artifact index: " + storeFile, ex); // NOI18N
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, null, ex);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Long> getFolders(FileObject directory) {
+        Map<String, Long> folders = new LinkedHashMap<String, Long>();
+        folders.put("", directory.lastModified().getTime()); // NOI18N
+        Enumeration<? extends FileObject> children = directory.getFolders(true);
+        while (children.hasMoreElements()) {
+            FileObject folder = children.nextElement();
+            folders.put(FileUtil.getRelativePath(directory, folder), folder.lastModified().getTime());
+        }
+        return folders;
+    }
+
+    //~ Inner classes
+    private static final class Key {
+
+        private final DIR_TYPE dirType;
+        private final String pluginName;
+        private final FILE_TYPE fileType;
+
+        Key(DIR_TYPE dirType, String pluginName, FILE_TYPE fileType) {
+            this.dirType = dirType;
+            this.pluginName = pluginName;
+            this.fileType = fileType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return dirType == other.dirType
+                    && fileType == other.fileType
+                    && (pluginName == null ? other.pluginName == null : pluginName.equals(other.pluginName));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 67 * hash + (dirType != null ? dirType.hashCode() : 0);
+            hash = 67 * hash + (pluginName != null ? pluginName.hashCode() : 0);
+            hash = 67 * hash + (fileType != null ? fileType.hashCode() : 0);
+            return hash;
+        }
+    }
+
+    /**
+     * Immutable files of a bucket.
+     */
+    private static final class Bucket {
+
+        private final FileObject directory;
+        private final List<FileObject> files;
+
+        Bucket(FileObject directory, List<FileObject> files) {
+            this.directory = directory;
+            List<FileObject> sorted = new ArrayList<FileObject>(files);
+            Collections.sort(sorted, FILE_COMPARATOR);
+            this.files = Collections.unmodifiableList(sorted);
+        }
+
+        boolean contains(FileObject file) {
+            return files.contains(file);
+        }
+
+        boolean isParentOf(FileObject file) {
+            return directory != null && FileUtil.isParentOf(directory, file);
+        }
+    }
+
+    private static final class StoredBucket {
+
+        private final Map<String, Long> folders = new HashMap<String, Long>();
+        private final List<String> files = new ArrayList<String>();
+    }
+
+    private class RootsListener implements FileChangeListener {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            folderChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            fileCreatedOrRenamed(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            ArtifactIndex.this.fileChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged(file);
+            } else {
+                fileDeletedOrRenamed(file);
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged(file);
+            } else {
+                fileDeletedOrRenamed(file);
+                fileCreatedOrRenamed(file);
+            }
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fae) {
+        }
+    }
+}
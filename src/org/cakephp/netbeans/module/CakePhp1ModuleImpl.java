@@ -94,7 +94,7 @@ public class CakePhp1ModuleImpl extends CakePhpModuleImpl {
     }
 
     @Override
-    public FileObject getDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName) {
+    protected FileObject findDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName) {
         if (type == null) {
             return null;
         }
@@ -237,7 +237,7 @@ public class CakePhp1ModuleImpl extends CakePhpModuleImpl {
     }
 
     @Override
-    public FileObject getDirectory(DIR_TYPE type) {
+    protected FileObject findDirectory(DIR_TYPE type) {
         if (type == null) {
             return null;
         }
@@ -247,7 +247,7 @@ public class CakePhp1ModuleImpl extends CakePhpModuleImpl {
             return null;
         }
         String path = ""; // NOI18N
-        String app = CakePreferences.getAppName(phpModule);
+        String app = CakePreferences.getAppName(getPhpModule());
         switch (type) {
             case APP:
                 path = app;
@@ -374,7 +374,7 @@ public class CakePhp1ModuleImpl extends CakePhpModuleImpl {
     @Override
     public FileObject getController(FileObject view) {
         File parent = FileUtil.toFile(view).getParentFile();
-        File cakePhpDirectory = FileUtil.toFile(CakePhpModule.getCakePhpDirectory(phpModule));
+        File cakePhpDirectory = FileUtil.toFile(getCakePhpDirectory());
         // for sub directory view file
         File grand = parent.getParentFile();
         File child;
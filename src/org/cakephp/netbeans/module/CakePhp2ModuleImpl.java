@@ -84,7 +84,7 @@ public class CakePhp2ModuleImpl extends CakePhpModuleImpl {
     }
 
     @Override
-    public FileObject getDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName) {
+    protected FileObject findDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName) {
         if (type == null) {
             return null;
         }
@@ -184,7 +184,7 @@ public class CakePhp2ModuleImpl extends CakePhpModuleImpl {
     }
 
     @Override
-    public FileObject getDirectory(DIR_TYPE type) {
+    protected FileObject findDirectory(DIR_TYPE type) {
         if (type == null) {
             return null;
         }
@@ -194,7 +194,7 @@ public class CakePhp2ModuleImpl extends CakePhpModuleImpl {
             return null;
         }
         String path = ""; // NOI18N
-        String app = CakePreferences.getAppName(phpModule);
+        String app = CakePreferences.getAppName(getPhpModule());
         switch (type) {
             case APP:
                 path = app;
@@ -336,7 +336,7 @@ public class CakePhp2ModuleImpl extends CakePhpModuleImpl {
     @Override
     public FileObject getController(FileObject view) {
         File parent = FileUtil.toFile(view).getParentFile();
-        File cakePhpDirectory = FileUtil.toFile(CakePhpModule.getCakePhpDirectory(phpModule));
+        File cakePhpDirectory = FileUtil.toFile(getCakePhpDirectory());
         // for sub directory view file
         File grand = parent.getParentFile();
         File child;
@@ -86,7 +86,7 @@ public class CakePhp3ModuleImpl extends CakePhp2ModuleImpl {
     }
 
     @Override
-    public FileObject getDirectory(CakePhpModule.DIR_TYPE type, CakePhpModule.FILE_TYPE fileType, String pluginName) {
+    protected FileObject findDirectory(CakePhpModule.DIR_TYPE type, CakePhpModule.FILE_TYPE fileType, String pluginName) {
         if (type == null) {
             return null;
         }
@@ -180,7 +180,7 @@ public class CakePhp3ModuleImpl extends CakePhp2ModuleImpl {
     }
 
     @Override
-    public FileObject getDirectory(CakePhpModule.DIR_TYPE type) {
+    protected FileObject findDirectory(CakePhpModule.DIR_TYPE type) {
         if (type == null) {
             return null;
         }
@@ -190,7 +190,7 @@ public class CakePhp3ModuleImpl extends CakePhp2ModuleImpl {
             return null;
         }
         String path = ""; // NOI18N
-        String app = CakePreferences.getAppName(phpModule);
+        String app = CakePreferences.getAppName(getPhpModule());
         switch (type) {
             case APP:
                 path = app;
@@ -229,7 +229,7 @@ public class CakePhp3ModuleImpl extends CakePhp2ModuleImpl {
             return namespace;
         }
         FileObject parent = target.getParent();
-        CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
+        CakePhpModule cakeModule = CakePhpModule.forPhpModule(getPhpModule());
         FileObject appDirectory = cakeModule.getDirectory(CakePhpModule.DIR_TYPE.APP);
         FileObject coreDirectory = cakeModule.getDirectory(CakePhpModule.DIR_TYPE.CORE);
         if (appDirectory == null || coreDirectory == null || parent == null) {
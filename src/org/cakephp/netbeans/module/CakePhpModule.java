@@ -42,6 +42,7 @@
 package org.cakephp.netbeans.module;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +50,7 @@ import org.cakephp.netbeans.preferences.CakePreferences;
 import org.netbeans.modules.php.api.editor.PhpBaseElement;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileRenameEvent;
 
@@ -58,22 +60,66 @@ import org.openide.filesystems.FileRenameEvent;
  */
 public class CakePhpModule {
 
-    private PhpModule phpModule;
     private CakePhpModuleImpl impl;
     private FileObject app;
+    private final FileChangeListener appListener;
+    private final String projectPath;
+    private volatile ArtifactIndex artifactIndex;
+    private volatile ElementIndex elementIndex;
+    private volatile WebrootAssetIndex webrootAssetIndex;
+    private volatile ViewReferenceIndex viewReferenceIndex;
+    private volatile CommonNameCatalog commonNameCatalog;
 
     public CakePhpModule(PhpModule phpModule, CakePhpModuleImpl impl) {
-        this.phpModule = phpModule;
         this.impl = impl;
         app = impl.getDirectory(DIR_TYPE.APP);
-        final PhpModule pm = phpModule;
-        app.addFileChangeListener(new FileChangeAdapter() {
+        FileObject projectDirectory = phpModule.getProjectDirectory();
+        projectPath = projectDirectory != null ? projectDirectory.getPath() : null;
+        // PhpModule is referred weakly, this instance is kept by CakePhpModuleFactory with weak keys
+        final WeakReference<PhpModule> pm = new WeakReference<PhpModule>(phpModule);
+        appListener = new FileChangeAdapter() {
             @Override
             public void fileRenamed(FileRenameEvent fe) {
+                PhpModule phpModule = pm.get();
+                if (phpModule == null) {
+                    return;
+                }
                 String changeName = fe.getFile().getName();
-                CakePreferences.setAppName(pm, changeName);
+                CakePreferences.setAppName(phpModule, changeName);
             }
-        });
+        };
+        app.addFileChangeListener(appListener);
+    }
+
+    /**
+     * Release listeners. This instance should not be used after that.
+     */
+    void dispose() {
+        app.removeFileChangeListener(appListener);
+        synchronized (this) {
+            // it listens to the artifact index
+            if (elementIndex != null) {
+                elementIndex.dispose();
+                elementIndex = null;
+            }
+            if (artifactIndex != null) {
+                artifactIndex.dispose();
+                artifactIndex = null;
+            }
+            if (webrootAssetIndex != null) {
+                webrootAssetIndex.dispose();
+                webrootAssetIndex = null;
+            }
+            if (viewReferenceIndex != null) {
+                viewReferenceIndex.dispose();
+                viewReferenceIndex = null;
+            }
+            if (commonNameCatalog != null) {
+                commonNameCatalog.dispose();
+                commonNameCatalog = null;
+            }
+        }
+        impl.dispose();
     }
 
     public enum DIR_TYPE {
@@ -285,6 +331,10 @@ public class CakePhpModule {
         return impl.getCurrentDirectoryType(currentFile);
     }
 
+    public FILE_TYPE getCurrentFileType(FileObject currentFile) {
+        return impl.getCurrentFileType(currentFile);
+    }
+
     public FileObject getFile(DIR_TYPE dirType, FILE_TYPE fileType, String fileName, String pluginName) {
         return impl.getFile(pluginName, dirType, fileType, fileName);
     }
@@ -377,6 +427,139 @@ public class CakePhpModule {
         return impl.createView(controller, phpElement);
     }
 
+    /**
+     * Get the number of directory and file lookups served from the cache.
+     *
+     * @return hit count
+     */
+    public long getPathCacheHitCount() {
+        return impl.getPathCacheHitCount();
+    }
+
+    /**
+     * Get the number of directory and file lookups which accessed the file
+     * system.
+     *
+     * @return miss count
+     */
+    public long getPathCacheMissCount() {
+        return impl.getPathCacheMissCount();
+    }
+
+    /**
+     * Get the revision of the files of this project. It is increased when a
+     * php or ctp file or a folder is created, deleted or renamed under app or
+     * plugins directories (except tmp and webroot).
+     *
+     * @return file revision
+     */
+    public int getFileRevision() {
+        return impl.getFileRevision();
+    }
+
+    /**
+     * Get the revision of the files of this project including their contents.
+     * It is increased when the file revision is increased or a php or ctp
+     * file is saved.
+     *
+     * @return content revision
+     */
+    public int getContentRevision() {
+        return impl.getContentRevision();
+    }
+
+    /**
+     * Get the index of controllers, models, components, ... of this project.
+     *
+     * @return ArtifactIndex
+     */
+    public ArtifactIndex getArtifactIndex() {
+        ArtifactIndex index = artifactIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = artifactIndex;
+                if (index == null) {
+                    index = new ArtifactIndex(this, projectPath);
+                    artifactIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    public ElementIndex getElementIndex() {
+        ElementIndex index = elementIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = elementIndex;
+                if (index == null) {
+                    index = new ElementIndex(this);
+                    elementIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of img, css and js files of webroot directories.
+     *
+     * @return WebrootAssetIndex
+     */
+    public WebrootAssetIndex getWebrootAssetIndex() {
+        WebrootAssetIndex index = webrootAssetIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = webrootAssetIndex;
+                if (index == null) {
+                    index = new WebrootAssetIndex(this);
+                    webrootAssetIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of element(), extend(), render() and fetch() calls of ctp
+     * files. The index is built in background when it is used first.
+     *
+     * @return ViewReferenceIndex
+     */
+    public ViewReferenceIndex getViewReferenceIndex() {
+        ViewReferenceIndex index = viewReferenceIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = viewReferenceIndex;
+                if (index == null) {
+                    index = new ViewReferenceIndex(this);
+                    viewReferenceIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the catalog of common names of models, components, helpers and
+     * behaviors. The catalog is built in background when it is used first.
+     *
+     * @return CommonNameCatalog
+     */
+    public CommonNameCatalog getCommonNameCatalog() {
+        CommonNameCatalog catalog = commonNameCatalog;
+        if (catalog == null) {
+            synchronized (this) {
+                catalog = commonNameCatalog;
+                if (catalog == null) {
+                    catalog = new CommonNameCatalog(this);
+                    commonNameCatalog = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
     public static CakePhpModule forPhpModule(PhpModule phpModule) {
         CakePhpModuleFactory factory = CakePhpModuleFactory.getInstance();
         return factory.create(phpModule);
@@ -41,10 +41,12 @@
  */
 package org.cakephp.netbeans.module;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.ref.WeakReference;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
 import org.cakephp.netbeans.preferences.CakePreferences;
 import org.cakephp.netbeans.util.CakeVersion;
+import org.cakephp.netbeans.util.ConcurrentWeakHashMap;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.openide.filesystems.FileObject;
 
@@ -54,7 +56,13 @@ import org.openide.filesystems.FileObject;
  */
 public class CakePhpModuleFactory {
 
-    private Map<PhpModule, CakePhpModule> modules = new HashMap<PhpModule, CakePhpModule>();
+    // keys are weak, modules of closed projects are disposed
+    private final ConcurrentWeakHashMap<PhpModule, CakePhpModule> modules = new ConcurrentWeakHashMap<PhpModule, CakePhpModule>(new ConcurrentWeakHashMap.RemovalListener<CakePhpModule>() {
+        @Override
+        public void removed(CakePhpModule module) {
+            module.dispose();
+        }
+    });
     private static final CakePhpModuleFactory INSTANCE = new CakePhpModuleFactory();
 
     /**
@@ -70,39 +78,106 @@ public class CakePhpModuleFactory {
     }
 
     /**
-     * Create CakePhpModule instance. Keep created instances by Factory.
+     * Create CakePhpModule instance. Keep created instances by Factory. If
+     * some threads create an instance for the same PhpModule at the same time,
+     * the first one is kept and the others are discarded.
      *
      * @param phpModule
      * @return CakePhpModule if it can create instance of implementation class,
      * otherwise null
      */
-    public synchronized CakePhpModule create(PhpModule phpModule) {
+    public CakePhpModule create(PhpModule phpModule) {
         CakePhpModule module = modules.get(phpModule);
+        if (module != null) {
+            return module;
+        }
+        module = createModule(phpModule);
         if (module == null) {
-            // create implementation class
-            CakeVersion version = CakeVersion.getInstance(phpModule);
-            CakePhpModuleImpl impl = null;
-            if (version.isCakePhp(1)) {
-                impl = new CakePhp1ModuleImpl(phpModule);
-            } else if (version.isCakePhp(2)) {
-                impl = new CakePhp2ModuleImpl(phpModule);
-            } else if (version.isCakePhp(3)) {
-                impl = new CakePhp3ModuleImpl(phpModule);
-            }
+            return null;
+        }
+        CakePhpModule other = modules.putIfAbsent(phpModule, module);
+        if (other != null) {
+            module.dispose();
+            return other;
+        }
+        CakePreferences.addPreferenceChangeListener(phpModule, new DirectoryPreferenceListener(phpModule, module));
+        return module;
+    }
+
+    private CakePhpModule createModule(PhpModule phpModule) {
+        // create implementation class
+        CakeVersion version = CakeVersion.getInstance(phpModule);
+        CakePhpModuleImpl impl = null;
+        if (version.isCakePhp(1)) {
+            impl = new CakePhp1ModuleImpl(phpModule);
+        } else if (version.isCakePhp(2)) {
+            impl = new CakePhp2ModuleImpl(phpModule);
+        } else if (version.isCakePhp(3)) {
+            impl = new CakePhp3ModuleImpl(phpModule);
+        }
+
+        // can't know version
+        if (impl == null) {
+            return null;
+        }
+        FileObject cakePhpDirectory = CakePhpModule.getCakePhpDirectory(phpModule);
+        if (cakePhpDirectory == null) {
+            return null;
+        }
+        String appName = CakePreferences.getAppName(phpModule);
+        FileObject app = cakePhpDirectory.getFileObject(appName);
+        if (app == null) {
+            return null;
+        }
+        // create module class
+        return new CakePhpModule(phpModule, impl);
+    }
 
-            // can't know version
-            if (impl == null) {
-                return null;
+    /**
+     * Discard the instance for the PhpModule. A new instance is created next
+     * time.
+     *
+     * @param phpModule PhpModule
+     */
+    public void reset(PhpModule phpModule) {
+        CakePhpModule module = modules.remove(phpModule);
+        if (module != null) {
+            module.dispose();
+        }
+    }
+
+    //~ Inner classes
+    /**
+     * Discard the CakePhpModule when the app name or the CakePHP directory is
+     * changed. The module is referred weakly, so the listener doesn't keep
+     * discarded modules, and it is removed with the next event.
+     */
+    private final class DirectoryPreferenceListener implements PreferenceChangeListener {
+
+        private final WeakReference<PhpModule> phpModuleReference;
+        private final WeakReference<CakePhpModule> moduleReference;
+
+        public DirectoryPreferenceListener(PhpModule phpModule, CakePhpModule module) {
+            this.phpModuleReference = new WeakReference<PhpModule>(phpModule);
+            this.moduleReference = new WeakReference<CakePhpModule>(module);
+        }
+
+        @Override
+        public void preferenceChange(PreferenceChangeEvent evt) {
+            PhpModule phpModule = phpModuleReference.get();
+            CakePhpModule module = moduleReference.get();
+            if (phpModule == null || module == null || modules.get(phpModule) != module) {
+                // already discarded
+                evt.getNode().removePreferenceChangeListener(this);
+                return;
+            }
+            if (!CakePreferences.isDirectoryKey(evt.getKey())) {
+                return;
             }
-            String appName = CakePreferences.getAppName(phpModule);
-            FileObject app = CakePhpModule.getCakePhpDirectory(phpModule).getFileObject(appName);
-            if (app == null) {
-                return null;
+            if (modules.remove(phpModule, module)) {
+                module.dispose();
             }
-            // create module class
-            module = new CakePhpModule(phpModule, impl);
-            modules.put(phpModule, module);
+            evt.getNode().removePreferenceChangeListener(this);
         }
-        return module;
     }
 }
@@ -42,8 +42,7 @@
 package org.cakephp.netbeans.module;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
+import java.lang.ref.WeakReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
@@ -59,12 +58,38 @@ import org.openide.filesystems.FileObject;
  */
 public abstract class CakePhpModuleImpl {
 
-    protected PhpModule phpModule;
+    // don't keep PhpModule strongly, CakePhpModuleFactory keys are weak
+    private final WeakReference<PhpModule> phpModuleReference;
     protected static String PHP_EXT = "php";
     protected static String CTP_EXT = "ctp";
+    private static final Pattern PLUGIN_NAME_PATTERN = Pattern.compile("/(plugins|Plugin)/(.+?)/"); // NOI18N
+    private final PathResolutionCache pathCache = new PathResolutionCache();
+    private volatile DirectoryTypeTrie directoryTypeTrie;
+    // false until the roots are watched, reset by dispose()
+    private volatile boolean layoutChecked;
 
     public CakePhpModuleImpl(PhpModule phpModule) {
-        this.phpModule = phpModule;
+        this.phpModuleReference = new WeakReference<PhpModule>(phpModule);
+    }
+
+    /**
+     * Get PhpModule.
+     *
+     * @return PhpModule, null if the project was already released
+     */
+    protected PhpModule getPhpModule() {
+        return phpModuleReference.get();
+    }
+
+    /**
+     * Stop listening to the file system and discard cached paths.
+     */
+    void dispose() {
+        synchronized (pathCache) {
+            pathCache.reset();
+            layoutChecked = false;
+        }
+        directoryTypeTrie = null;
     }
 
     public static String getExt(FILE_TYPE type) {
@@ -254,24 +279,154 @@ public abstract class CakePhpModuleImpl {
         if (currentFile == null) {
             return ""; // NOI18N
         }
-        String pluginName = "";
         String currentPath = currentFile.getPath();
-        Pattern pattern = Pattern.compile("/(plugins|Plugin)/(.+?)/"); // NOI18N
-        Matcher matcher = pattern.matcher(currentPath);
+        DirectoryTypeTrie.Match match = getDirectoryTypeTrie().match(currentPath);
+        if (match.getPluginName() != null) {
+            return match.getPluginName();
+        }
+        if (match.getDirType() != DIR_TYPE.NONE) {
+            return ""; // NOI18N
+        }
+
+        // outside of CakePHP directories
+        String pluginName = ""; // NOI18N
+        Matcher matcher = PLUGIN_NAME_PATTERN.matcher(currentPath);
         if (matcher.find()) {
             pluginName = matcher.group(2);
         }
-
         return pluginName;
     }
 
+    /**
+     * Get FILE_TYPE for current file.
+     *
+     * @param currentFile current file
+     * @return FILE_TYPE of the directory which contains the file. e.g.
+     * app/Controller/Component/FooComponent.php -> COMPONENT
+     */
+    public FILE_TYPE getCurrentFileType(FileObject currentFile) {
+        if (currentFile == null) {
+            return FILE_TYPE.NONE;
+        }
+        return getDirectoryTypeTrie().match(currentFile.getPath()).getFileType();
+    }
+
     protected FileObject getDirectory(DIR_TYPE type, FILE_TYPE fileType) {
         return getDirectory(type, fileType, null);
     }
 
-    public abstract FileObject getDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName);
+    public FileObject getDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName) {
+        if (type == null) {
+            return null;
+        }
+        if (fileType == null && pluginName == null) {
+            return getDirectory(type);
+        }
+        checkLayout();
+        PathResolutionCache.Key key = new PathResolutionCache.Key(type, fileType, pluginName, null, null);
+        PathResolutionCache.Entry entry = pathCache.get(key);
+        if (entry != null) {
+            return entry.getFile();
+        }
+        return pathCache.put(key, findDirectory(type, fileType, pluginName));
+    }
+
+    public FileObject getDirectory(DIR_TYPE type) {
+        if (type == null) {
+            return null;
+        }
+        checkLayout();
+        PathResolutionCache.Key key = new PathResolutionCache.Key(type, null, null, null, null);
+        PathResolutionCache.Entry entry = pathCache.get(key);
+        if (entry != null) {
+            return entry.getFile();
+        }
+        return pathCache.put(key, findDirectory(type));
+    }
+
+    /**
+     * Find directory. Result is cached by {@link #getDirectory(DIR_TYPE, FILE_TYPE, String)}.
+     *
+     * @param type DIR_TYPE
+     * @param fileType FILE_TYPE
+     * @param pluginName plugin name
+     * @return directory if it exists, otherwise null
+     */
+    protected abstract FileObject findDirectory(DIR_TYPE type, FILE_TYPE fileType, String pluginName);
+
+    /**
+     * Find root directory. Result is cached by {@link #getDirectory(DIR_TYPE)}.
+     *
+     * @param type DIR_TYPE
+     * @return directory if it exists, otherwise null
+     */
+    protected abstract FileObject findDirectory(DIR_TYPE type);
+
+    /**
+     * Start watching app and plugins directories if it is not done yet. The
+     * cache is reset by dispose() when the CakePHP directory, the app name or
+     * the project directory setting is changed, so the preferences are not
+     * read here.
+     */
+    private void checkLayout() {
+        if (layoutChecked) {
+            return;
+        }
+        synchronized (pathCache) {
+            if (layoutChecked) {
+                return;
+            }
+            pathCache.reset();
+            pathCache.watch(findDirectory(DIR_TYPE.APP), DIR_TYPE.APP, DIR_TYPE.APP_LIB, DIR_TYPE.APP_PLUGIN, DIR_TYPE.APP_VENDOR);
+            pathCache.watch(findDirectory(DIR_TYPE.PLUGIN), DIR_TYPE.PLUGIN);
+            layoutChecked = true;
+        }
+    }
+
+    /**
+     * Get the file revision of this project.
+     *
+     * @return file revision
+     */
+    public int getFileRevision() {
+        checkLayout();
+        return pathCache.getFileRevision();
+    }
 
-    public abstract FileObject getDirectory(DIR_TYPE type);
+    /**
+     * Get the content revision of this project.
+     *
+     * @return content revision
+     */
+    public int getContentRevision() {
+        checkLayout();
+        return pathCache.getContentRevision();
+    }
+
+    /**
+     * Get the number of path lookups which were served from the cache.
+     *
+     * @return hit count
+     */
+    public long getPathCacheHitCount() {
+        return pathCache.getHitCount();
+    }
+
+    /**
+     * Get the number of path lookups which had to access the file system.
+     *
+     * @return miss count
+     */
+    public long getPathCacheMissCount() {
+        return pathCache.getMissCount();
+    }
+
+    /**
+     * Discard all cached paths.
+     */
+    public void clearPathCache() {
+        pathCache.clear();
+    }
 
     /**
      * Get DIR_TYPE for current file.
@@ -280,21 +435,70 @@ public abstract class CakePhpModuleImpl {
      * @return DIR_TYPE
      */
     public DIR_TYPE getCurrentDirectoryType(FileObject currentFile) {
-        String path = currentFile.getPath();
+        return getDirectoryTypeTrie().match(currentFile.getPath()).getDirType();
+    }
+
+    /**
+     * Get the trie of CakePHP directories. It is rebuilt only if the layout
+     * or folders under app and plugins are changed.
+     *
+     * @return DirectoryTypeTrie
+     */
+    private DirectoryTypeTrie getDirectoryTypeTrie() {
+        checkLayout();
+        int revision = pathCache.getFolderRevision();
+        DirectoryTypeTrie trie = directoryTypeTrie;
+        if (trie == null || trie.getRevision() != revision) {
+            trie = createDirectoryTypeTrie(revision);
+            directoryTypeTrie = trie;
+        }
+        return trie;
+    }
+
+    private DirectoryTypeTrie createDirectoryTypeTrie(int revision) {
+        DirectoryTypeTrie trie = new DirectoryTypeTrie(revision);
         // don't change order
-        List<DIR_TYPE> allDirTypes = Arrays.asList(
-                DIR_TYPE.APP_LIB, DIR_TYPE.APP_PLUGIN, DIR_TYPE.APP_VENDOR, DIR_TYPE.APP,
-                DIR_TYPE.CORE, DIR_TYPE.PLUGIN, DIR_TYPE.VENDOR);
+        DIR_TYPE[] allDirTypes = {
+            DIR_TYPE.APP_LIB, DIR_TYPE.APP_PLUGIN, DIR_TYPE.APP_VENDOR, DIR_TYPE.APP,
+            DIR_TYPE.CORE, DIR_TYPE.PLUGIN, DIR_TYPE.VENDOR
+        };
         for (DIR_TYPE dirType : allDirTypes) {
             FileObject directory = getDirectory(dirType);
             if (directory == null) {
                 continue;
             }
-            if (path.startsWith(directory.getPath())) {
-                return dirType;
+            trie.addRoot(directory.getPath(), dirType);
+            switch (dirType) {
+                case APP: // no break
+                case CORE:
+                    addFileTypeDirectories(trie, dirType, null);
+                    break;
+                case APP_PLUGIN: // no break
+                case PLUGIN:
+                    trie.addPluginsRoot(directory.getPath());
+                    for (FileObject child : directory.getChildren()) {
+                        if (child.isFolder()) {
+                            addFileTypeDirectories(trie, dirType, child.getNameExt());
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return trie;
+    }
+
+    private void addFileTypeDirectories(DirectoryTypeTrie trie, DIR_TYPE dirType, String pluginName) {
+        for (FILE_TYPE fileType : FILE_TYPE.values()) {
+            if (fileType == FILE_TYPE.NONE) {
+                continue;
+            }
+            FileObject directory = getDirectory(dirType, fileType, pluginName);
+            if (directory != null) {
+                trie.addFileTypeDirectory(directory.getPath(), dirType, fileType);
             }
         }
-        return DIR_TYPE.NONE;
     }
 
     public abstract boolean isView(FileObject fo);
@@ -341,6 +545,10 @@ public abstract class CakePhpModuleImpl {
     public abstract String toViewDirectoryName(String name);
 
     protected final FileObject getCakePhpDirectory() {
+        PhpModule phpModule = getPhpModule();
+        if (phpModule == null) {
+            return null;
+        }
         return CakePhpModule.getCakePhpDirectory(phpModule);
     }
 
@@ -375,8 +583,31 @@ public abstract class CakePhpModuleImpl {
      * @return
      */
     protected FileObject getFile(String pluginName, DIR_TYPE dirType, FILE_TYPE fileType, String fileName, String directoryName) {
+        if (dirType == null || fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        checkLayout();
+        PathResolutionCache.Key key = new PathResolutionCache.Key(dirType, fileType, pluginName, directoryName, fileName);
+        PathResolutionCache.Entry entry = pathCache.get(key);
+        if (entry != null) {
+            return entry.getFile();
+        }
+        FileObject targetDirectory = findFileDirectory(pluginName, dirType, fileType);
+        if (targetDirectory == null) {
+            return pathCache.put(key, null);
+        }
+        String targetPath = getTargetPath(fileType, fileName, directoryName);
+        // remember the folder even if the file is missing, it is dropped when the folder is changed
+        String folderPath = targetDirectory.getPath();
+        int index = targetPath.lastIndexOf('/');
+        if (index != -1) {
+            folderPath = folderPath + "/" + targetPath.substring(0, index); // NOI18N
+        }
+        return pathCache.put(key, targetDirectory.getFileObject(targetPath), folderPath);
+    }
+
+    private FileObject findFileDirectory(String pluginName, DIR_TYPE dirType, FILE_TYPE fileType) {
         FileObject targetDirectory = null;
-        FileObject targetFile = null;
         switch (fileType) {
             case VIEW:
                 targetDirectory = getViewDirectory(dirType, pluginName);
@@ -404,16 +635,14 @@ public abstract class CakePhpModuleImpl {
                 throw new AssertionError();
         }
 
-        if (targetDirectory == null || fileName == null || fileName.isEmpty()) {
-            return null;
-        }
+        return targetDirectory;
+    }
 
+    private String getTargetPath(FILE_TYPE fileType, String fileName, String directoryName) {
         String targetPath = ""; // NOI18N
         if (directoryName != null && !directoryName.isEmpty()) {
             targetPath = toViewDirectoryName(directoryName) + "/"; // NOI18N
         }
-        targetPath = targetPath + getFileNameWithExt(fileType, fileName);
-        targetFile = targetDirectory.getFileObject(targetPath);
-        return targetFile;
+        return targetPath + getFileNameWithExt(fileType, fileName);
     }
 }
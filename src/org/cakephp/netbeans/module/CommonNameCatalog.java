@@ -0,0 +1,401 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.netbeans.modules.php.api.editor.EditorSupport;
+import org.netbeans.modules.php.api.editor.PhpClass;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.util.Lookup;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Catalog of common names of models, components, helpers and behaviors of
+ * app, core and plugins. e.g. Html (HtmlHelper), DebugKit.Toolbar
+ * (ToolbarComponent of DebugKit plugin).
+ *
+ * The catalog is built in background when it is created, then only saved,
+ * created and renamed files are read again. Current names are returned while
+ * changes are read. While the catalog is built at first, names are published
+ * per directory. Use {@link #isReady()} and {@link #waitReady()} if complete
+ * names are needed.
+ *
+ * @author junichi11
+ */
+public final class CommonNameCatalog {
+
+    private static final Logger LOGGER = Logger.getLogger(CommonNameCatalog.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(CommonNameCatalog.class.getName(), 1);
+    private static final int UPDATE_DELAY = 500;
+    private static final List<FILE_TYPE> FILE_TYPES = Arrays.asList(FILE_TYPE.MODEL, FILE_TYPE.COMPONENT, FILE_TYPE.HELPER, FILE_TYPE.BEHAVIOR);
+    private final CakePhpModule cakeModule;
+    private final List<FileObject> watchedRoots = new ArrayList<FileObject>();
+    private final FileChangeListener rootsListener = new RootsListener();
+    private final RequestProcessor.Task updateTask;
+    // guarded by this
+    private final Map<FileObject, Directory> directories = new HashMap<FileObject, Directory>();
+    private final Map<FileObject, Entry> entries = new HashMap<FileObject, Entry>();
+    private final Map<FILE_TYPE, List<String>> names = new EnumMap<FILE_TYPE, List<String>>(FILE_TYPE.class);
+    private final Set<FileObject> changedFiles = new LinkedHashSet<FileObject>();
+    private boolean built;
+    private boolean ready;
+
+    CommonNameCatalog(CakePhpModule cakeModule) {
+        this.cakeModule = cakeModule;
+        this.updateTask = RP.create(new Runnable() {
+            @Override
+            public void run() {
+                update();
+            }
+        });
+        watch(cakeModule.getDirectory(DIR_TYPE.APP));
+        watch(cakeModule.getDirectory(DIR_TYPE.PLUGIN));
+        updateTask.schedule(0);
+    }
+
+    /**
+     * Get common names for FILE_TYPE. Names of plugins have the plugin name
+     * as prefix (e.g. DebugKit.Toolbar). If the catalog is not built yet,
+     * names found so far are returned.
+     *
+     * @param fileType MODEL, COMPONENT, HELPER or BEHAVIOR
+     * @return names sorted by name, empty list for other FILE_TYPEs
+     */
+    public synchronized List<String> getNames(FILE_TYPE fileType) {
+        List<String> list = names.get(fileType);
+        return list != null ? list : Collections.<String>emptyList();
+    }
+
+    /**
+     * Check whether all files have been cataloged at least once.
+     *
+     * @return true if names are complete, otherwise false
+     */
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Wait until all files have been cataloged at least once. Don't call it
+     * in EDT.
+     */
+    public void waitReady() {
+        if (!isReady()) {
+            updateTask.waitFinished();
+        }
+    }
+
+    /**
+     * Stop listening to file events.
+     */
+    synchronized void dispose() {
+        for (FileObject root : watchedRoots) {
+            root.removeRecursiveListener(rootsListener);
+        }
+        watchedRoots.clear();
+        directories.clear();
+        entries.clear();
+        names.clear();
+        changedFiles.clear();
+    }
+
+    private synchronized void watch(FileObject root) {
+        if (root == null || !root.isFolder()) {
+            return;
+        }
+        root.addRecursiveListener(rootsListener);
+        watchedRoots.add(root);
+    }
+
+    private void update() {
+        Map<FileObject, Directory> scanned = null;
+        Map<FileObject, Entry> oldEntries;
+        List<FileObject> files;
+        synchronized (this) {
+            if (!built) {
+                built = true;
+                changedFiles.clear();
+                files = null;
+            } else {
+                files = new ArrayList<FileObject>(changedFiles);
+                changedFiles.clear();
+            }
+            oldEntries = new HashMap<FileObject, Entry>(entries);
+        }
+        long start = System.currentTimeMillis();
+        EditorSupport editorSupport = Lookup.getDefault().lookup(EditorSupport.class);
+        Map<FileObject, Entry> newEntries = new HashMap<FileObject, Entry>();
+        Set<FileObject> removed = new LinkedHashSet<FileObject>();
+        if (files == null) {
+            scanned = getDirectories();
+            // otherwise current names are kept until the rescan is finished
+            boolean publish = oldEntries.isEmpty();
+            for (Map.Entry<FileObject, Directory> entry : scanned.entrySet()) {
+                Map<FileObject, Entry> directoryEntries = new HashMap<FileObject, Entry>();
+                for (FileObject child : entry.getKey().getChildren()) {
+                    if (child.isData()) {
+                        // unchanged files are not read again
+                        directoryEntries.put(child, read(child, entry.getValue(), oldEntries.get(child), editorSupport));
+                    }
+                }
+                newEntries.putAll(directoryEntries);
+                if (publish) {
+                    synchronized (this) {
+                        entries.putAll(directoryEntries);
+                        updateNames();
+                    }
+                }
+            }
+        } else {
+            Map<FileObject, Directory> current;
+            synchronized (this) {
+                current = new HashMap<FileObject, Directory>(directories);
+            }
+            for (FileObject file : files) {
+                Directory directory = current.get(file.getParent());
+                if (directory == null || !file.isValid() || !file.isData()) {
+                    removed.add(file);
+                } else {
+                    newEntries.put(file, read(file, directory, null, editorSupport));
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (scanned != null) {
+                directories.clear();
+                directories.putAll(scanned);
+                entries.clear();
+            }
+            for (FileObject file : removed) {
+                entries.remove(file);
+            }
+            entries.putAll(newEntries);
+            updateNames();
+            if (scanned != null) {
+                ready = true;
+            }
+        }
+        LOGGER.log(Level.FINE, "{0} files are cataloged in {1} ms", new Object[]{newEntries.size(), System.currentTimeMillis() - start}); // NOI18N
+    }
+
+    private Map<FileObject, Directory> getDirectories() {
+        Map<FileObject, Directory> result = new HashMap<FileObject, Directory>();
+        for (FILE_TYPE fileType : FILE_TYPES) {
+            addDirectory(result, cakeModule.getDirectory(DIR_TYPE.APP, fileType, null), fileType, null);
+            if (fileType == FILE_TYPE.MODEL) {
+                continue;
+            }
+            addDirectory(result, cakeModule.getDirectory(DIR_TYPE.CORE, fileType, null), fileType, null);
+            for (DIR_TYPE dirType : Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN)) {
+                FileObject pluginsDirectory = cakeModule.getDirectory(dirType);
+                if (pluginsDirectory == null) {
+                    continue;
+                }
+                for (FileObject plugin : pluginsDirectory.getChildren()) {
+                    if (plugin.isFolder()) {
+                        addDirectory(result, cakeModule.getDirectory(dirType, fileType, plugin.getName()), fileType, plugin.getName());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addDirectory(Map<FileObject, Directory> result, FileObject directory, FILE_TYPE fileType, String pluginName) {
+        if (directory != null && directory.isFolder() && !result.containsKey(directory)) {
+            result.put(directory, new Directory(fileType, pluginName));
+        }
+    }
+
+    private Entry read(FileObject file, Directory directory, Entry old, EditorSupport editorSupport) {
+        long lastModified = file.lastModified().getTime();
+        if (old != null && old.lastModified == lastModified) {
+            return old;
+        }
+        return new Entry(directory, getCommonName(file, editorSupport), lastModified);
+    }
+
+    /**
+     * Get common name. e.g. Html (HtmlHelper), Session (SessionComponent).
+     *
+     * @param file FileObject
+     * @param editorSupport EditorSupport
+     * @return common name if the file has a class, otherwise null
+     */
+    private String getCommonName(FileObject file, EditorSupport editorSupport) {
+        if (editorSupport == null) {
+            return null;
+        }
+        String name = null;
+        for (PhpClass phpClass : editorSupport.getClasses(file)) {
+            name = phpClass.getName();
+            break;
+        }
+        if (name == null) {
+            return null;
+        }
+        if (cakeModule.isComponent(file)) {
+            name = name.replace(FILE_TYPE.COMPONENT.toString(), ""); // NOI18N
+        } else if (cakeModule.isHelper(file)) {
+            name = name.replace(FILE_TYPE.HELPER.toString(), ""); // NOI18N
+        } else if (cakeModule.isBehavior(file)) {
+            name = name.replace(FILE_TYPE.BEHAVIOR.toString(), ""); // NOI18N
+        }
+        return name.isEmpty() ? null : name;
+    }
+
+    private void updateNames() {
+        assert Thread.holdsLock(this);
+        Map<FILE_TYPE, List<String>> result = new EnumMap<FILE_TYPE, List<String>>(FILE_TYPE.class);
+        for (FILE_TYPE fileType : FILE_TYPES) {
+            result.put(fileType, new ArrayList<String>());
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.name == null) {
+                continue;
+            }
+            String pluginName = entry.directory.pluginName;
+            result.get(entry.directory.fileType).add(pluginName != null ? pluginName + "." + entry.name : entry.name); // NOI18N
+        }
+        for (Map.Entry<FILE_TYPE, List<String>> entry : result.entrySet()) {
+            List<String> list = entry.getValue();
+            Collections.sort(list);
+            names.put(entry.getKey(), Collections.unmodifiableList(list));
+        }
+    }
+
+    private synchronized void fileChanged(FileObject file) {
+        if (directories.containsKey(file.getParent()) || entries.containsKey(file)) {
+            changedFiles.add(file);
+            updateTask.schedule(UPDATE_DELAY);
+        }
+    }
+
+    private synchronized void folderChanged() {
+        built = false;
+        updateTask.schedule(UPDATE_DELAY);
+    }
+
+    //~ Inner classes
+    private static final class Directory {
+
+        private final FILE_TYPE fileType;
+        private final String pluginName;
+
+        Directory(FILE_TYPE fileType, String pluginName) {
+            this.fileType = fileType;
+            this.pluginName = pluginName;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Directory directory;
+        private final String name;
+        private final long lastModified;
+
+        Entry(Directory directory, String name, long lastModified) {
+            this.directory = directory;
+            this.name = name;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private class RootsListener implements FileChangeListener {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            folderChanged();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            CommonNameCatalog.this.fileChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            CommonNameCatalog.this.fileChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged();
+            } else {
+                CommonNameCatalog.this.fileChanged(file);
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged();
+            } else {
+                CommonNameCatalog.this.fileChanged(file);
+            }
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fae) {
+        }
+    }
+}
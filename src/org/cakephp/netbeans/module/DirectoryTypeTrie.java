@@ -0,0 +1,225 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+
+/**
+ * Path segment trie of the CakePHP directories.
+ *
+ * Classify a path into DIR_TYPE, FILE_TYPE and plugin name in a single pass.
+ * The deepest registered directory wins (e.g. app/Plugin is APP_PLUGIN, not
+ * APP). The trie is not changed after it is built.
+ *
+ * @author junichi11
+ */
+final class DirectoryTypeTrie {
+
+    private final Node root = new Node();
+    private final int revision;
+
+    DirectoryTypeTrie(int revision) {
+        this.revision = revision;
+    }
+
+    int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Add a root directory (app, lib/Cake, plugins, ...).
+     *
+     * @param path directory path
+     * @param dirType DIR_TYPE
+     */
+    void addRoot(String path, DIR_TYPE dirType) {
+        Node node = getOrCreate(path);
+        if (node.dirType == null) {
+            node.dirType = dirType;
+        }
+    }
+
+    /**
+     * Add a directory which contains plugin directories. The segment after it
+     * is recognized as plugin name.
+     *
+     * @param path directory path
+     */
+    void addPluginsRoot(String path) {
+        getOrCreate(path).pluginsRoot = true;
+    }
+
+    /**
+     * Add a directory for FILE_TYPE (Controller, View/Helper, ...).
+     *
+     * @param path directory path
+     * @param dirType DIR_TYPE
+     * @param fileType FILE_TYPE
+     */
+    void addFileTypeDirectory(String path, DIR_TYPE dirType, FILE_TYPE fileType) {
+        Node node = getOrCreate(path);
+        if (node.dirType == null) {
+            node.dirType = dirType;
+        }
+        if (node.fileType == null) {
+            node.fileType = fileType;
+        }
+    }
+
+    /**
+     * Classify the path.
+     *
+     * @param path file path
+     * @return Match, never null
+     */
+    Match match(String path) {
+        DIR_TYPE dirType = DIR_TYPE.NONE;
+        FILE_TYPE fileType = FILE_TYPE.NONE;
+        String pluginName = null;
+        Node node = root;
+        String previous = null;
+        int length = path.length();
+        int start = 0;
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            String segment = path.substring(start, end);
+            boolean hasNext = end < length && !segment.isEmpty();
+            if (node != null) {
+                // same as /(plugins|Plugin)/(.+?)/
+                if (node.pluginsRoot && pluginName == null && hasNext) {
+                    pluginName = segment;
+                }
+                Node child = node.children.get(segment);
+                if (child == null && dirType == DIR_TYPE.NONE) {
+                    break;
+                }
+                node = child;
+                if (node != null && node.dirType != null) {
+                    dirType = node.dirType;
+                    fileType = node.fileType == null ? FILE_TYPE.NONE : node.fileType;
+                }
+            }
+            if (node == null) {
+                // not registered directories, e.g. app/View/Plugin/DebugKit/... (plugin override views)
+                if (pluginName != null) {
+                    break;
+                }
+                if (hasNext && isPluginsSegment(previous)) {
+                    pluginName = segment;
+                }
+            }
+            previous = segment;
+            start = end + 1;
+        }
+        return new Match(dirType, fileType, pluginName);
+    }
+
+    private static boolean isPluginsSegment(String segment) {
+        return "Plugin".equals(segment) || "plugins".equals(segment); // NOI18N
+    }
+
+    private Node getOrCreate(String path) {
+        Node node = root;
+        int length = path.length();
+        int start = 0;
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            String segment = path.substring(start, end);
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+            start = end + 1;
+        }
+        return node;
+    }
+
+    //~ Inner classes
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private DIR_TYPE dirType;
+        private FILE_TYPE fileType;
+        private boolean pluginsRoot;
+    }
+
+    static final class Match {
+
+        private final DIR_TYPE dirType;
+        private final FILE_TYPE fileType;
+        private final String pluginName;
+
+        Match(DIR_TYPE dirType, FILE_TYPE fileType, String pluginName) {
+            this.dirType = dirType;
+            this.fileType = fileType;
+            this.pluginName = pluginName;
+        }
+
+        DIR_TYPE getDirType() {
+            return dirType;
+        }
+
+        FILE_TYPE getFileType() {
+            return fileType;
+        }
+
+        /**
+         * Get plugin name.
+         *
+         * @return plugin name if the path is in a plugin, otherwise null
+         */
+        String getPluginName() {
+            return pluginName;
+        }
+    }
+}
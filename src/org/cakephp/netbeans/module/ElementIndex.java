@@ -0,0 +1,271 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Index of element names of a project. e.g. "sidebar/menu" for
+ * View/Elements/sidebar/menu.ctp, "DebugKit.toolbar" for the element of the
+ * DebugKit plugin.
+ *
+ * The index is created from view files of {@link ArtifactIndex} in
+ * background. It is built again when the artifact index notifies changes, and
+ * the current index is used until that is finished.
+ *
+ * @author junichi11
+ */
+public final class ElementIndex {
+
+    /**
+     * Revision of an index which is not built yet.
+     */
+    public static final int NOT_BUILT = 0;
+    // shared by all indexes, so revisions of a recreated index are not reused
+    private static final AtomicInteger REVISIONS = new AtomicInteger(NOT_BUILT);
+    private static final String ELEMENTS = "Elements/"; // NOI18N
+    private static final String THEMED = "Themed/"; // NOI18N
+    private static final String CTP_EXT = ".ctp"; // NOI18N
+    private static final RequestProcessor RP = new RequestProcessor(ElementIndex.class.getName(), 1);
+    private static final int BUILD_DELAY = 300;
+    private final CakePhpModule cakeModule;
+    private final RequestProcessor.Task buildTask;
+    private final ChangeListener artifactsListener = new ChangeListener() {
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            changed = true;
+            buildTask.schedule(BUILD_DELAY);
+        }
+    };
+    private volatile Snapshot snapshot;
+    // true if views are changed after the snapshot is built
+    private volatile boolean changed;
+    // listened index, set in the first build, guarded by this
+    private ArtifactIndex artifactIndex;
+    private boolean disposed;
+
+    ElementIndex(CakePhpModule cakeModule) {
+        this.cakeModule = cakeModule;
+        this.buildTask = RP.create(new Runnable() {
+            @Override
+            public void run() {
+                build();
+            }
+        });
+        buildTask.schedule(0);
+    }
+
+    /**
+     * Get the element file for the name. Elements of app are used first, then
+     * themes, then core. "PluginName.name" is the element of the plugin. It
+     * doesn't wait for the index, so it can be called in EDT.
+     *
+     * @param name element name
+     * @return element file if it exists, null if it doesn't exist or the index
+     * is not built yet
+     */
+    public FileObject getElement(String name) {
+        Snapshot current = snapshot;
+        FileObject element = current != null ? current.elements.get(name) : null;
+        return element != null && element.isValid() ? element : null;
+    }
+
+    /**
+     * Get the revision of the current index. A new revision is used whenever
+     * the index is built again, so results of {@link #getElement(String)} can
+     * be reused while the revision is the same.
+     *
+     * @return revision, NOT_BUILT if the index is not built yet
+     */
+    public int getRevision() {
+        Snapshot current = snapshot;
+        return current != null ? current.revision : NOT_BUILT;
+    }
+
+    /**
+     * Get the element file for the name. It waits until changes of views are
+     * indexed, so don't call it in EDT.
+     *
+     * @param name element name
+     * @return element file if it exists, otherwise null
+     * @see #getElement(String)
+     */
+    public FileObject findElement(String name) {
+        if (snapshot == null || changed) {
+            buildTask.schedule(0);
+            buildTask.waitFinished();
+        }
+        return getElement(name);
+    }
+
+    /**
+     * Stop listening to the artifact index.
+     */
+    synchronized void dispose() {
+        disposed = true;
+        buildTask.cancel();
+        if (artifactIndex != null) {
+            artifactIndex.removeChangeListener(artifactsListener);
+            artifactIndex = null;
+        }
+        snapshot = null;
+    }
+
+    private void build() {
+        ArtifactIndex index;
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            index = artifactIndex;
+        }
+        if (index == null) {
+            // the artifact index is created here, not in EDT
+            index = cakeModule.getArtifactIndex();
+            synchronized (this) {
+                if (disposed) {
+                    return;
+                }
+                artifactIndex = index;
+                index.addChangeListener(artifactsListener);
+            }
+        }
+        changed = false;
+        // sources are read again only when views are changed
+        snapshot = new Snapshot(getSources(index));
+    }
+
+    private List<Source> getSources(ArtifactIndex index) {
+        List<Source> sources = new ArrayList<Source>();
+        addSource(sources, index, DIR_TYPE.APP, null);
+        for (DIR_TYPE type : Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN)) {
+            FileObject pluginsDirectory = cakeModule.getDirectory(type);
+            if (pluginsDirectory == null) {
+                continue;
+            }
+            for (FileObject plugin : pluginsDirectory.getChildren()) {
+                if (plugin.isFolder()) {
+                    addSource(sources, index, type, plugin.getNameExt());
+                }
+            }
+        }
+        addSource(sources, index, DIR_TYPE.CORE, null);
+        return sources;
+    }
+
+    private void addSource(List<Source> sources, ArtifactIndex index, DIR_TYPE type, String pluginName) {
+        FileObject viewDirectory = cakeModule.getDirectory(type, FILE_TYPE.VIEW, pluginName);
+        if (viewDirectory != null) {
+            sources.add(new Source(type, viewDirectory, pluginName, index.getFiles(type, pluginName, FILE_TYPE.VIEW)));
+        }
+    }
+
+    //~ Inner classes
+    private static final class Source {
+
+        private final DIR_TYPE type;
+        private final FileObject viewDirectory;
+        private final String pluginName;
+        // immutable list of ArtifactIndex
+        private final List<FileObject> views;
+
+        Source(DIR_TYPE type, FileObject viewDirectory, String pluginName, List<FileObject> views) {
+            this.type = type;
+            this.viewDirectory = viewDirectory;
+            this.pluginName = pluginName;
+            this.views = views;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final int revision = REVISIONS.incrementAndGet();
+        private final Map<String, FileObject> elements = new HashMap<String, FileObject>();
+
+        Snapshot(List<Source> sources) {
+            Map<String, FileObject> themed = new HashMap<String, FileObject>();
+            Map<String, FileObject> app = new HashMap<String, FileObject>();
+            for (Source source : sources) {
+                for (FileObject view : source.views) {
+                    String path = FileUtil.getRelativePath(source.viewDirectory, view);
+                    if (path == null || !path.endsWith(CTP_EXT)) {
+                        continue;
+                    }
+                    if (path.startsWith(ELEMENTS)) {
+                        String name = path.substring(ELEMENTS.length(), path.length() - CTP_EXT.length());
+                        if (source.pluginName != null) {
+                            name = source.pluginName + "." + name; // NOI18N
+                        }
+                        putIfAbsent(source.type == DIR_TYPE.CORE ? elements : app, name, view);
+                    } else if (source.type == DIR_TYPE.APP && path.startsWith(THEMED)) {
+                        // Themed/ThemeName/Elements/name.ctp
+                        int themeEnd = path.indexOf('/', THEMED.length());
+                        if (themeEnd != -1 && path.startsWith(ELEMENTS, themeEnd + 1)) {
+                            putIfAbsent(themed, path.substring(themeEnd + 1 + ELEMENTS.length(), path.length() - CTP_EXT.length()), view);
+                        }
+                    }
+                }
+            }
+            // app and plugins > themes > core
+            elements.putAll(themed);
+            elements.putAll(app);
+        }
+
+        private static void putIfAbsent(Map<String, FileObject> map, String name, FileObject file) {
+            if (!map.containsKey(name)) {
+                map.put(name, file);
+            }
+        }
+    }
+}
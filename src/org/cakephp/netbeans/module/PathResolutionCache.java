@@ -0,0 +1,408 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Cache for directories and files resolved by CakePhpModuleImpl.
+ *
+ * Each entry remembers the folder where the file was looked for. When a file
+ * is created, deleted or renamed under the watched roots, only the entries of
+ * its folder are dropped. When a folder is changed, the entries of its parent,
+ * of the folder itself and below it, and missing directories are dropped. All
+ * entries are dropped when the layout (CakePHP directory, app name) is reset.
+ * A missing file is remembered only for the DIR_TYPEs which are under the
+ * watched roots. Changes in tmp of the watched roots (cache, logs, ...) are
+ * ignored.
+ *
+ * The folder revision is increased whenever the directory layout may have
+ * been changed (a folder is created, deleted or renamed, or the layout is
+ * reset). The file revision is increased when a php or ctp file or a folder
+ * is created, deleted or renamed outside webroot, or the layout is reset. The
+ * content revision is also increased when a php or ctp file is saved.
+ * Revisions are kept per project, but new values are taken from a shared
+ * sequence, so a cache which is created again never returns old values.
+ *
+ * @author junichi11
+ */
+final class PathResolutionCache {
+
+    private static final AtomicInteger REVISIONS = new AtomicInteger();
+    private static final String TMP_DIRECTORY = "tmp"; // NOI18N
+    private static final String WEBROOT_DIRECTORY = "webroot"; // NOI18N
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicInteger folderRevision = new AtomicInteger();
+    private volatile int fileRevision = REVISIONS.incrementAndGet();
+    private volatile int contentRevision = REVISIONS.incrementAndGet();
+    private final List<FileObject> watchedRoots = new ArrayList<FileObject>();
+    private final Set<DIR_TYPE> watchedTypes = EnumSet.noneOf(DIR_TYPE.class);
+    private final FileChangeListener rootsListener = new RootsListener();
+
+    /**
+     * Clear all entries and stop listening to the roots.
+     */
+    synchronized void reset() {
+        for (FileObject root : watchedRoots) {
+            root.removeRecursiveListener(rootsListener);
+        }
+        watchedRoots.clear();
+        watchedTypes.clear();
+        entries.clear();
+        folderRevision.incrementAndGet();
+        fileRevision = REVISIONS.incrementAndGet();
+        contentRevision = REVISIONS.incrementAndGet();
+    }
+
+    /**
+     * Listen to the root recursively.
+     *
+     * @param root root directory, ignored if it is null
+     * @param types DIR_TYPEs which are under the root
+     */
+    synchronized void watch(FileObject root, DIR_TYPE... types) {
+        if (root == null || !root.isFolder()) {
+            return;
+        }
+        root.addRecursiveListener(rootsListener);
+        watchedRoots.add(root);
+        for (DIR_TYPE type : types) {
+            watchedTypes.add(type);
+        }
+    }
+
+    /**
+     * Get the cached entry.
+     *
+     * @param key key
+     * @return Entry if it exists, otherwise null
+     */
+    Entry get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            FileObject file = entry.getFile();
+            if (file == null || file.isValid()) {
+                hitCount.incrementAndGet();
+                return entry;
+            }
+            entries.remove(key, entry);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache the resolved file. The parent of the file is used as its folder,
+     * so use {@link #put(Key, FileObject, String)} for missing files whose
+     * folder is known.
+     *
+     * @param key key
+     * @param file resolved file, may be null
+     * @return resolved file
+     */
+    FileObject put(Key key, FileObject file) {
+        return put(key, file, file != null ? getParentPath(file.getPath()) : null);
+    }
+
+    /**
+     * Cache the resolved file.
+     *
+     * @param key key
+     * @param file resolved file, may be null
+     * @param folderPath path of the folder where the file was looked for,
+     * null if it is not known (e.g. the folder doesn't exist)
+     * @return resolved file
+     */
+    FileObject put(Key key, FileObject file, String folderPath) {
+        if (file != null || isWatched(key.dirType)) {
+            entries.put(key, new Entry(file, folderPath));
+        }
+        return file;
+    }
+
+    private synchronized boolean isWatched(DIR_TYPE type) {
+        return watchedTypes.contains(type);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int getFolderRevision() {
+        return folderRevision.get();
+    }
+
+    int getFileRevision() {
+        return fileRevision;
+    }
+
+    int getContentRevision() {
+        return contentRevision;
+    }
+
+    private void folderChanged(FileObject folder, String oldPath) {
+        String relativePath = getRelativePath(folder);
+        if (relativePath == null || isTemporary(relativePath)) {
+            return;
+        }
+        folderRevision.incrementAndGet();
+        if (!isWebroot(relativePath)) {
+            fileRevision = REVISIONS.incrementAndGet();
+            contentRevision = REVISIONS.incrementAndGet();
+        }
+        String path = folder.getPath();
+        String parentPath = getParentPath(path);
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            String folderPath = it.next().folderPath;
+            if (folderPath == null
+                    || folderPath.equals(parentPath)
+                    || isUnder(folderPath, path)
+                    || (oldPath != null && isUnder(folderPath, oldPath))) {
+                it.remove();
+            }
+        }
+    }
+
+    private void dataChanged(FileObject file) {
+        String relativePath = getRelativePath(file);
+        if (relativePath == null || isTemporary(relativePath)) {
+            return;
+        }
+        if (isSourceFile(file) && !isWebroot(relativePath)) {
+            fileRevision = REVISIONS.incrementAndGet();
+            contentRevision = REVISIONS.incrementAndGet();
+        }
+        String parentPath = getParentPath(file.getPath());
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            if (parentPath.equals(it.next().folderPath)) {
+                it.remove();
+            }
+        }
+    }
+
+    private void contentChanged(FileObject file) {
+        if (!isSourceFile(file)) {
+            return;
+        }
+        String relativePath = getRelativePath(file);
+        if (relativePath != null && !isTemporary(relativePath) && !isWebroot(relativePath)) {
+            contentRevision = REVISIONS.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the relative path from the watched root.
+     *
+     * @param file file or folder
+     * @return relative path, null if the file is not under the watched roots
+     */
+    private synchronized String getRelativePath(FileObject file) {
+        for (FileObject root : watchedRoots) {
+            String relativePath = FileUtil.getRelativePath(root, file);
+            if (relativePath != null) {
+                return relativePath;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTemporary(String relativePath) {
+        return isUnder(relativePath, TMP_DIRECTORY);
+    }
+
+    private static boolean isWebroot(String relativePath) {
+        return ("/" + relativePath + "/").contains("/" + WEBROOT_DIRECTORY + "/"); // NOI18N
+    }
+
+    private static boolean isUnder(String path, String folderPath) {
+        return path.equals(folderPath) || path.startsWith(folderPath + "/"); // NOI18N
+    }
+
+    private static String getParentPath(String path) {
+        int index = path.lastIndexOf('/');
+        return index != -1 ? path.substring(0, index) : ""; // NOI18N
+    }
+
+    private static boolean isSourceFile(FileObject file) {
+        String ext = file.getExt();
+        return "php".equals(ext) || "ctp".equals(ext); // NOI18N
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    //~ Inner classes
+    static final class Key {
+
+        private final DIR_TYPE dirType;
+        private final FILE_TYPE fileType;
+        private final String pluginName;
+        private final String directoryName;
+        private final String name;
+
+        Key(DIR_TYPE dirType, FILE_TYPE fileType, String pluginName, String directoryName, String name) {
+            this.dirType = dirType;
+            this.fileType = fileType;
+            this.pluginName = pluginName;
+            this.directoryName = directoryName;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return dirType == other.dirType
+                    && fileType == other.fileType
+                    && equals(pluginName, other.pluginName)
+                    && equals(directoryName, other.directoryName)
+                    && equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + (dirType != null ? dirType.hashCode() : 0);
+            hash = 31 * hash + (fileType != null ? fileType.hashCode() : 0);
+            hash = 31 * hash + (pluginName != null ? pluginName.hashCode() : 0);
+            hash = 31 * hash + (directoryName != null ? directoryName.hashCode() : 0);
+            hash = 31 * hash + (name != null ? name.hashCode() : 0);
+            return hash;
+        }
+
+        private static boolean equals(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    static final class Entry {
+
+        private final FileObject file;
+        private final String folderPath;
+
+        Entry(FileObject file, String folderPath) {
+            this.file = file;
+            this.folderPath = folderPath;
+        }
+
+        FileObject getFile() {
+            return file;
+        }
+    }
+
+    private class RootsListener implements FileChangeListener {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            folderChanged(fe.getFile(), null);
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            dataChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            contentChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged(file, null);
+            } else {
+                dataChanged(file);
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                String ext = fe.getExt();
+                String oldName = ext.isEmpty() ? fe.getName() : fe.getName() + "." + ext; // NOI18N
+                folderChanged(file, getParentPath(file.getPath()) + "/" + oldName); // NOI18N
+            } else {
+                // the old name is in the same folder
+                dataChanged(file);
+            }
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fae) {
+        }
+    }
+}
@@ -0,0 +1,478 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.cakephp.netbeans.util.CakePhpUtils;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Reverse index of element(), extend(), render() and fetch() calls in ctp
+ * files of app and plugins. e.g. views which render the element
+ * "sidebar/menu".
+ *
+ * The index is built in background when it is created, then only saved,
+ * created and renamed files are read again. If folders are changed, views are
+ * listed again but unchanged files are not read again.
+ *
+ * @author junichi11
+ */
+public final class ViewReferenceIndex {
+
+    public enum REFERENCE_TYPE {
+
+        ELEMENT,
+        EXTEND,
+        RENDER,
+        FETCH
+    }
+    private static final Logger LOGGER = Logger.getLogger(ViewReferenceIndex.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ViewReferenceIndex.class.getName(), 1);
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("\\$this\\s*->\\s*(element|extend|render|fetch)\\s*\\(\\s*(['\"])([^'\"]+)\\2"); // NOI18N
+    private static final String CTP_EXT = ".ctp"; // NOI18N
+    private static final int UPDATE_DELAY = 500;
+    private static final Comparator<Usage> USAGE_COMPARATOR = new Comparator<Usage>() {
+        @Override
+        public int compare(Usage o1, Usage o2) {
+            int result = o1.getFile().getPath().compareTo(o2.getFile().getPath());
+            return result != 0 ? result : o1.getOffset() - o2.getOffset();
+        }
+    };
+    private final CakePhpModule cakeModule;
+    private final List<FileObject> watchedRoots = new ArrayList<FileObject>();
+    private final FileChangeListener rootsListener = new RootsListener();
+    private final RequestProcessor.Task updateTask;
+    // guarded by this
+    private final Map<FileObject, List<Reference>> references = new HashMap<FileObject, List<Reference>>();
+    private final Map<String, Set<FileObject>> referringFiles = new HashMap<String, Set<FileObject>>();
+    private final Map<FileObject, Long> timestamps = new HashMap<FileObject, Long>();
+    private final Set<FileObject> changedFiles = new LinkedHashSet<FileObject>();
+    private boolean built;
+
+    ViewReferenceIndex(CakePhpModule cakeModule) {
+        this.cakeModule = cakeModule;
+        this.updateTask = RP.create(new Runnable() {
+            @Override
+            public void run() {
+                update();
+            }
+        });
+        watch(cakeModule.getDirectory(DIR_TYPE.APP));
+        watch(cakeModule.getDirectory(DIR_TYPE.PLUGIN));
+        updateTask.schedule(0);
+    }
+
+    /**
+     * Get usages of the name. e.g. fetch("content"). Changed files are read
+     * before that, so don't call it in EDT.
+     *
+     * @param type REFERENCE_TYPE
+     * @param name the first argument
+     * @return usages sorted by path
+     */
+    public List<Usage> getUsages(REFERENCE_TYPE type, String name) {
+        waitUpdated();
+        List<Usage> usages = new ArrayList<Usage>();
+        synchronized (this) {
+            for (FileObject file : getReferringFiles(type, name)) {
+                for (Reference reference : references.get(file)) {
+                    if (reference.type == type && reference.name.equals(name)) {
+                        usages.add(new Usage(file, reference.offset));
+                    }
+                }
+            }
+        }
+        Collections.sort(usages, USAGE_COMPARATOR);
+        return usages;
+    }
+
+    /**
+     * Get views, layouts and elements which render the element. Changed files
+     * are read before that, so don't call it in EDT.
+     *
+     * @param element element file
+     * @return usages sorted by path, empty list if it is not an element
+     */
+    public List<Usage> getElementUsages(FileObject element) {
+        String path = getElementPath(element);
+        if (path == null) {
+            return Collections.emptyList();
+        }
+        waitUpdated();
+        String pluginName = cakeModule.getCurrentPluginName(element);
+        Map<FileObject, List<Reference>> candidates = new HashMap<FileObject, List<Reference>>();
+        synchronized (this) {
+            for (FileObject file : getReferringFiles(REFERENCE_TYPE.ELEMENT, path)) {
+                candidates.put(file, references.get(file));
+            }
+        }
+
+        List<Usage> usages = new ArrayList<Usage>();
+        ElementIndex elementIndex = cakeModule.getElementIndex();
+        for (Map.Entry<FileObject, List<Reference>> entry : candidates.entrySet()) {
+            FileObject file = entry.getKey();
+            String filePluginName = cakeModule.getCurrentPluginName(file);
+            for (Reference reference : entry.getValue()) {
+                if (reference.type != REFERENCE_TYPE.ELEMENT) {
+                    continue;
+                }
+                String[] split = CakePhpUtils.pluginSplit(reference.name);
+                boolean matched;
+                if (split.length == 2) {
+                    // PluginName.name
+                    matched = split[1].equals(path) && split[0].equals(pluginName);
+                } else if (!split[0].equals(path)) {
+                    matched = false;
+                } else if (filePluginName.equals(pluginName)) {
+                    matched = true;
+                } else {
+                    // elements of the plugin are used first in the plugin
+                    matched = pluginName.isEmpty() && elementIndex.findElement(filePluginName + "." + path) == null; // NOI18N
+                }
+                if (matched) {
+                    usages.add(new Usage(file, reference.offset));
+                }
+            }
+        }
+        Collections.sort(usages, USAGE_COMPARATOR);
+        return usages;
+    }
+
+    /**
+     * Get the element path for the element file. e.g. "sidebar/menu" for
+     * View/Elements/sidebar/menu.ctp
+     *
+     * @param element element file
+     * @return path if the file is an element, otherwise null
+     */
+    public static String getElementPath(FileObject element) {
+        if (element == null || !CakePhpUtils.isCtpFile(element)) {
+            return null;
+        }
+        for (FileObject parent = element.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.getNameExt().equalsIgnoreCase("elements")) { // NOI18N
+                String path = FileUtil.getRelativePath(parent, element);
+                return path.substring(0, path.length() - CTP_EXT.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop listening to file events.
+     */
+    synchronized void dispose() {
+        for (FileObject root : watchedRoots) {
+            root.removeRecursiveListener(rootsListener);
+        }
+        watchedRoots.clear();
+        references.clear();
+        referringFiles.clear();
+        timestamps.clear();
+        changedFiles.clear();
+    }
+
+    private synchronized void watch(FileObject root) {
+        if (root == null || !root.isFolder()) {
+            return;
+        }
+        root.addRecursiveListener(rootsListener);
+        watchedRoots.add(root);
+    }
+
+    private void waitUpdated() {
+        boolean pending;
+        synchronized (this) {
+            pending = !built || !changedFiles.isEmpty();
+        }
+        if (pending) {
+            updateTask.schedule(0);
+            updateTask.waitFinished();
+        }
+    }
+
+    private Set<FileObject> getReferringFiles(REFERENCE_TYPE type, String name) {
+        assert Thread.holdsLock(this);
+        Set<FileObject> files = referringFiles.get(getKey(type, name));
+        return files != null ? files : Collections.<FileObject>emptySet();
+    }
+
+    private void update() {
+        boolean rescan;
+        List<FileObject> files;
+        Map<FileObject, Long> oldTimestamps;
+        synchronized (this) {
+            rescan = !built;
+            built = true;
+            if (rescan) {
+                files = null;
+            } else {
+                files = new ArrayList<FileObject>(changedFiles);
+            }
+            changedFiles.clear();
+            oldTimestamps = new HashMap<FileObject, Long>(timestamps);
+        }
+        long start = System.currentTimeMillis();
+        if (rescan) {
+            files = getViews();
+        }
+        int count = 0;
+        for (FileObject file : files) {
+            long lastModified = file.isValid() ? file.lastModified().getTime() : -1L;
+            Long old = oldTimestamps.remove(file);
+            if (rescan && old != null && old.longValue() == lastModified) {
+                // unchanged files are not read again
+                continue;
+            }
+            List<Reference> found = read(file);
+            count++;
+            synchronized (this) {
+                put(file, found);
+                if (lastModified != -1L) {
+                    timestamps.put(file, lastModified);
+                } else {
+                    timestamps.remove(file);
+                }
+            }
+        }
+        if (rescan) {
+            // files which are not views any more
+            synchronized (this) {
+                for (FileObject file : oldTimestamps.keySet()) {
+                    put(file, Collections.<Reference>emptyList());
+                    timestamps.remove(file);
+                }
+            }
+        }
+        LOGGER.log(Level.FINE, "{0} of {1} view files are read in {2} ms", new Object[]{count, files.size(), System.currentTimeMillis() - start}); // NOI18N
+    }
+
+    private List<FileObject> getViews() {
+        ArtifactIndex index = cakeModule.getArtifactIndex();
+        List<FileObject> views = new ArrayList<FileObject>(index.getFiles(DIR_TYPE.APP, null, FILE_TYPE.VIEW));
+        for (DIR_TYPE type : Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN)) {
+            FileObject pluginsDirectory = cakeModule.getDirectory(type);
+            if (pluginsDirectory == null) {
+                continue;
+            }
+            for (FileObject plugin : pluginsDirectory.getChildren()) {
+                if (plugin.isFolder()) {
+                    views.addAll(index.getFiles(type, plugin.getNameExt(), FILE_TYPE.VIEW));
+                }
+            }
+        }
+        return views;
+    }
+
+    private static List<Reference> read(FileObject file) {
+        if (!file.isValid() || !CakePhpUtils.isCtpFile(file)) {
+            return Collections.emptyList();
+        }
+        String text;
+        try {
+            // offsets of documents are based on "\n"
+            text = file.asText().replace("\r\n", "\n").replace('\r', '\n'); // NOI18N
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, null, ex);
+            return Collections.emptyList();
+        }
+        List<Reference> found = new ArrayList<Reference>();
+        Matcher matcher = REFERENCE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            REFERENCE_TYPE type = REFERENCE_TYPE.valueOf(matcher.group(1).toUpperCase(Locale.ENGLISH));
+            found.add(new Reference(type, matcher.group(3), matcher.start(3)));
+        }
+        return found;
+    }
+
+    private void put(FileObject file, List<Reference> found) {
+        assert Thread.holdsLock(this);
+        List<Reference> old = references.remove(file);
+        if (old != null) {
+            for (Reference reference : old) {
+                String key = getKey(reference.type, reference.name);
+                Set<FileObject> files = referringFiles.get(key);
+                if (files != null) {
+                    files.remove(file);
+                    if (files.isEmpty()) {
+                        referringFiles.remove(key);
+                    }
+                }
+            }
+        }
+        if (found.isEmpty()) {
+            return;
+        }
+        references.put(file, found);
+        for (Reference reference : found) {
+            String key = getKey(reference.type, reference.name);
+            Set<FileObject> files = referringFiles.get(key);
+            if (files == null) {
+                files = new HashSet<FileObject>();
+                referringFiles.put(key, files);
+            }
+            files.add(file);
+        }
+    }
+
+    private static String getKey(REFERENCE_TYPE type, String name) {
+        if (type == REFERENCE_TYPE.ELEMENT) {
+            // PluginName.name is kept with name
+            String[] split = CakePhpUtils.pluginSplit(name);
+            name = split[split.length - 1];
+        }
+        return type.name() + ":" + name; // NOI18N
+    }
+
+    private synchronized void fileChanged(FileObject file) {
+        if (CakePhpUtils.isCtpFile(file) || references.containsKey(file)) {
+            changedFiles.add(file);
+            updateTask.schedule(UPDATE_DELAY);
+        }
+    }
+
+    private synchronized void folderChanged() {
+        built = false;
+        updateTask.schedule(UPDATE_DELAY);
+    }
+
+    //~ Inner classes
+    /**
+     * The file and the offset of the first argument of a reference.
+     */
+    public static final class Usage {
+
+        private final FileObject file;
+        private final int offset;
+
+        Usage(FileObject file, int offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+
+        public FileObject getFile() {
+            return file;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+    }
+
+    private static final class Reference {
+
+        private final REFERENCE_TYPE type;
+        private final String name;
+        private final int offset;
+
+        Reference(REFERENCE_TYPE type, String name, int offset) {
+            this.type = type;
+            this.name = name;
+            this.offset = offset;
+        }
+    }
+
+    private class RootsListener implements FileChangeListener {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            folderChanged();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            ViewReferenceIndex.this.fileChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            ViewReferenceIndex.this.fileChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged();
+            } else {
+                ViewReferenceIndex.this.fileChanged(file);
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            FileObject file = fe.getFile();
+            if (file.isFolder()) {
+                folderChanged();
+            } else {
+                ViewReferenceIndex.this.fileChanged(file);
+            }
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fae) {
+        }
+    }
+}
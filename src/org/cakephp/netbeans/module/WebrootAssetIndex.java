@@ -0,0 +1,265 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Index of webroot assets (img, css, js) of a project.
+ *
+ * Children of each queried directory are kept as an array sorted by name, so
+ * candidates for a prefix are found by binary search instead of listing the
+ * directory. A directory is read when it is queried first, and it is read
+ * again only after its children are changed.
+ *
+ * @author junichi11
+ */
+public final class WebrootAssetIndex {
+
+    private static final Comparator<Object> NAME_COMPARATOR = new Comparator<Object>() {
+        @Override
+        public int compare(Object o1, Object o2) {
+            return getNameExt(o1).compareTo(getNameExt(o2));
+        }
+
+        private String getNameExt(Object o) {
+            return o instanceof Entry ? ((Entry) o).getNameExt() : (String) o;
+        }
+    };
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private final CakePhpModule cakeModule;
+    private final Map<FileObject, Entry[]> directories = new ConcurrentHashMap<FileObject, Entry[]>();
+    private final Map<FileObject, FileChangeListener> listeners = new HashMap<FileObject, FileChangeListener>();
+    private final FileChangeListener directoryListener = new DirectoryListener();
+    // incremented for each change, a directory read while it was changed is not kept
+    private final AtomicLong changeCount = new AtomicLong();
+    private volatile Map<String, DIR_TYPE> plugins;
+
+    WebrootAssetIndex(CakePhpModule cakeModule) {
+        this.cakeModule = cakeModule;
+    }
+
+    /**
+     * Get children of the directory whose names (with extension) start with the
+     * prefix.
+     *
+     * @param directory target directory
+     * @param prefix prefix of names
+     * @return children sorted by name
+     */
+    public List<Entry> getChildren(FileObject directory, String prefix) {
+        if (directory == null || !directory.isFolder()) {
+            return Collections.emptyList();
+        }
+        Entry[] entries = getEntries(directory);
+        int from = Arrays.binarySearch(entries, prefix, NAME_COMPARATOR);
+        if (from < 0) {
+            from = -(from + 1);
+        }
+        int to = from;
+        while (to < entries.length && entries[to].getNameExt().startsWith(prefix)) {
+            to++;
+        }
+        return Collections.unmodifiableList(Arrays.asList(entries).subList(from, to));
+    }
+
+    /**
+     * Get plugin names and their directory types. app/Plugin is used first,
+     * then plugins.
+     *
+     * @return plugin names in order of directory names
+     */
+    public Map<String, DIR_TYPE> getPlugins() {
+        Map<String, DIR_TYPE> current = plugins;
+        if (current == null) {
+            long count = changeCount.get();
+            current = new LinkedHashMap<String, DIR_TYPE>();
+            for (DIR_TYPE type : Arrays.asList(DIR_TYPE.APP_PLUGIN, DIR_TYPE.PLUGIN)) {
+                FileObject pluginsDirectory = cakeModule.getDirectory(type);
+                if (pluginsDirectory == null) {
+                    continue;
+                }
+                for (Entry entry : getEntries(pluginsDirectory)) {
+                    if (entry.isFolder() && !current.containsKey(entry.getNameExt())) {
+                        current.put(entry.getNameExt(), type);
+                    }
+                }
+            }
+            current = Collections.unmodifiableMap(current);
+            if (changeCount.get() == count) {
+                plugins = current;
+            }
+        }
+        return current;
+    }
+
+    private Entry[] getEntries(FileObject directory) {
+        Entry[] entries = directories.get(directory);
+        if (entries != null) {
+            return entries;
+        }
+        listen(directory);
+        long count = changeCount.get();
+        FileObject[] children = directory.getChildren();
+        if (children.length == 0) {
+            entries = NO_ENTRIES;
+        } else {
+            entries = new Entry[children.length];
+            for (int i = 0; i < children.length; i++) {
+                entries[i] = new Entry(children[i]);
+            }
+            Arrays.sort(entries, NAME_COMPARATOR);
+        }
+        if (changeCount.get() == count) {
+            directories.put(directory, entries);
+        }
+        return entries;
+    }
+
+    private void listen(FileObject directory) {
+        synchronized (listeners) {
+            if (!listeners.containsKey(directory)) {
+                FileChangeListener listener = FileUtil.weakFileChangeListener(directoryListener, directory);
+                directory.addFileChangeListener(listener);
+                listeners.put(directory, listener);
+            }
+        }
+    }
+
+    private void invalidate(FileObject file) {
+        changeCount.incrementAndGet();
+        plugins = null;
+        directories.remove(file);
+        FileObject parent = file.getParent();
+        if (parent != null) {
+            directories.remove(parent);
+        }
+    }
+
+    void dispose() {
+        synchronized (listeners) {
+            for (Map.Entry<FileObject, FileChangeListener> entry : listeners.entrySet()) {
+                entry.getKey().removeFileChangeListener(entry.getValue());
+            }
+            listeners.clear();
+        }
+        directories.clear();
+        plugins = null;
+    }
+
+    //~ Inner classes
+    /**
+     * Immutable child of a webroot directory.
+     */
+    public static final class Entry {
+
+        private final String nameExt;
+        private final String name;
+        private final String ext;
+        private final boolean folder;
+
+        Entry(FileObject file) {
+            this.nameExt = file.getNameExt();
+            this.name = file.getName();
+            this.ext = file.getExt();
+            this.folder = file.isFolder();
+        }
+
+        public String getNameExt() {
+            return nameExt;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getExt() {
+            return ext;
+        }
+
+        public boolean isFolder() {
+            return folder;
+        }
+    }
+
+    private class DirectoryListener extends FileChangeAdapter {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            invalidate(fe.getFile());
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            invalidate(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            FileObject file = fe.getFile();
+            invalidate(file);
+            synchronized (listeners) {
+                listeners.remove(file);
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            invalidate(fe.getFile());
+        }
+    }
+}
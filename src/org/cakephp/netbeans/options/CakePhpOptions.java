@@ -60,6 +60,7 @@ public class CakePhpOptions {
     private static final String NEW_PROJECT = "new-project"; // NOI18N
     private static final String LOCAL_ZIP_FILE_PATH = "local-zip-file-path"; // NOI18N
     private static final String IGNORE_TMP = "ignore-tmp"; // NOI18N
+    private static final String PARALLEL_COMMAND_DISCOVERY = "parallel-command-discovery"; // NOI18N
     private static CakePhpOptions INSTANCE = new CakePhpOptions();
 
     private CakePhpOptions() {
@@ -122,6 +123,14 @@ public class CakePhpOptions {
         getPreferences().putBoolean(IGNORE_TMP, isIgnore);
     }
 
+    public boolean isParallelCommandDiscovery() {
+        return getPreferences().getBoolean(PARALLEL_COMMAND_DISCOVERY, true);
+    }
+
+    public void setParallelCommandDiscovery(boolean isParallel) {
+        getPreferences().putBoolean(PARALLEL_COMMAND_DISCOVERY, isParallel);
+    }
+
     public Preferences getPreferences() {
         return NbPreferences.forModule(CakePhpOptions.class);
     }
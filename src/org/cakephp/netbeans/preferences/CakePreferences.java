@@ -41,6 +41,7 @@
  */
 package org.cakephp.netbeans.preferences;
 
+import java.util.prefs.PreferenceChangeListener;
 import java.util.prefs.Preferences;
 import org.cakephp.netbeans.util.CakeVersion;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
@@ -118,6 +119,31 @@ public class CakePreferences {
         return getPreferences(phpModule).getBoolean(SHOW_POPUP_FOR_ONE_ITEM, true);
     }
 
+    /**
+     * Check whether the key affects directories of the CakePHP project (app
+     * name, CakePHP directory).
+     *
+     * @param key preference key
+     * @return true if the key is for directories, otherwise false
+     */
+    public static boolean isDirectoryKey(String key) {
+        return APP_NAME.equals(key)
+                || CAKE_PHP_DIR_PATH.equals(key)
+                || USE_PROJECT_DIRECTORY.equals(key);
+    }
+
+    public static void addPreferenceChangeListener(PhpModule phpModule, PreferenceChangeListener listener) {
+        getPreferences(phpModule).addPreferenceChangeListener(listener);
+    }
+
+    public static void removePreferenceChangeListener(PhpModule phpModule, PreferenceChangeListener listener) {
+        try {
+            getPreferences(phpModule).removePreferenceChangeListener(listener);
+        } catch (IllegalArgumentException ex) {
+            // already removed
+        }
+    }
+
     private static Preferences getPreferences(PhpModule phpModule) {
         return phpModule.getPreferences(CakePreferences.class, true);
     }
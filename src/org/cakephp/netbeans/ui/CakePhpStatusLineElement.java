@@ -47,14 +47,14 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListModel;
 import javax.swing.ImageIcon;
@@ -65,6 +65,7 @@ import javax.swing.JSeparator;
 import javax.swing.Popup;
 import javax.swing.PopupFactory;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import org.cakephp.netbeans.module.CakePhpModule;
@@ -75,10 +76,12 @@ import org.openide.awt.StatusLineElementProvider;
 import org.openide.filesystems.FileChangeAdapter;
 import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 import org.openide.util.LookupEvent;
 import org.openide.util.LookupListener;
+import org.openide.util.RequestProcessor;
 import org.openide.util.Utilities;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -89,8 +92,8 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = StatusLineElementProvider.class)
 public class CakePhpStatusLineElement implements StatusLineElementProvider {
 
-    private static final String DEBUG_REGEX = "^\\tConfigure::write\\('debug', (.+)\\)"; // NOI18N
-    private static final String CONFIGURE_WRITE_DEBUG = "\tConfigure::write('debug', %s);"; // NOI18N
+    private static final Logger LOGGER = Logger.getLogger(CakePhpStatusLineElement.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(CakePhpStatusLineElement.class.getName(), 1);
     private final ImageIcon icon = new ImageIcon(getClass().getResource("/org/cakephp/netbeans/ui/resources/cakephp_icon_16.png")); // NOI18N
     private final JLabel debugLabel = new JLabel(""); // NOI18N
     private final JLabel cakeVersionLabel = new JLabel("");
@@ -102,7 +105,9 @@ public class CakePhpStatusLineElement implements StatusLineElementProvider {
     private DefaultListModel model;
     private Popup popup;
     private boolean popupFlg = false;
-    private FileChangeAdapterImpl fileChangeListener;
+    private final FileChangeAdapterImpl fileChangeListener = new FileChangeAdapterImpl();
+    // config file -> snapshot, only used in the EDT
+    private final Map<FileObject, DebugLevelSnapshot> snapshots = new WeakHashMap<FileObject, DebugLevelSnapshot>();
 
     static {
         debugLevels.put("0", "0"); // NOI18N
@@ -191,29 +196,19 @@ public class CakePhpStatusLineElement implements StatusLineElementProvider {
     }
 
     /**
-     * Get debug level
+     * Get debug level. The config file is read, don't call this method in the
+     * EDT.
      *
      * @param config app/Config/{core|app}
      * @return debug level
      */
     public String getDebugLevel(FileObject config) {
-        String debubLv = ""; // NOI18N
-        Pattern pattern = Pattern.compile(DEBUG_REGEX);
-
         try {
-            List<String> lines = config.asLines("UTF-8"); // NOI18N
-            for (String line : lines) {
-                Matcher matcher = pattern.matcher(line);
-                if (matcher.find()) {
-                    debubLv = matcher.group(1);
-                    break;
-                }
-            }
+            return DebugLevelSnapshot.read(config, "").getLevel(); // NOI18N
         } catch (IOException ex) {
             Exceptions.printStackTrace(ex);
         }
-
-        return debubLv;
+        return ""; // NOI18N
     }
 
     /**
@@ -239,29 +234,79 @@ public class CakePhpStatusLineElement implements StatusLineElementProvider {
     }
 
     /**
-     * Write config file. change debug level.
+     * Write config file. change debug level. Only the value of the debug
+     * level is rewritten in the background. The label is updated by the file
+     * event.
      *
      * @param debugLv
      */
-    private void writeConfig(String debugLv) {
-        FileObject config = getConfigFile();
+    private void writeConfig(final String debugLv) {
+        final FileObject config = getConfigFile();
         if (config == null) {
             return;
         }
-        try {
-            List<String> lines = config.asLines("UTF-8"); // NOI18N
-            Pattern pattern = Pattern.compile(DEBUG_REGEX);
-            PrintWriter pw = new PrintWriter(config.getOutputStream());
-            for (String line : lines) {
-                Matcher matcher = pattern.matcher(line);
-                if (matcher.find()) {
-                    line = String.format(CONFIGURE_WRITE_DEBUG, debugLv);
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                File file = FileUtil.toFile(config);
+                if (file == null) {
+                    return;
+                }
+                try {
+                    if (DebugLevelSnapshot.write(file, debugLv)) {
+                        config.refresh();
+                    }
+                } catch (IOException ex) {
+                    Exceptions.printStackTrace(ex);
                 }
-                pw.println(line);
             }
-            pw.close();
-        } catch (IOException ex) {
-            Exceptions.printStackTrace(ex);
+        });
+    }
+
+    /**
+     * Parse the config file in the background, then update the snapshot.
+     *
+     * @param config config file
+     * @param phpModule PHP module of the config file
+     */
+    private void refreshSnapshot(final FileObject config, final PhpModule phpModule) {
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                String version = CakeVersion.getInstance(phpModule).getVersion();
+                DebugLevelSnapshot snapshot;
+                try {
+                    snapshot = DebugLevelSnapshot.read(config, version);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.INFO, null, ex);
+                    return;
+                }
+                final DebugLevelSnapshot newSnapshot = snapshot;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        snapshots.put(config, newSnapshot);
+                        if (config.equals(getConfigFile())) {
+                            updateLabels(newSnapshot);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void updateLabels(DebugLevelSnapshot snapshot) {
+        String lv = snapshot.getLevel();
+        setLevel(lv);
+        setDebugLevelLabel(lv);
+        list.setSelectedValue(lv, false);
+        String version = snapshot.getVersion();
+        if (version == null || version.isEmpty()) {
+            cakeVersionLabel.setText(""); // NOI18N
+            cakeVersionLabel.setIcon(null);
+        } else {
+            cakeVersionLabel.setText(version + ":"); // NOI18N
+            cakeVersionLabel.setIcon(icon);
         }
     }
 
@@ -306,45 +351,23 @@ public class CakePhpStatusLineElement implements StatusLineElementProvider {
                 return;
             }
 
-            // check whether move to other project
-            if (phpModule == currentPhpModule) {
-                String lv = getLevel();
-                setDebugLevelLabel(lv);
-                list.setSelectedValue(lv, false);
-                setCakePHPVersion(phpModule);
-                return;
-            } else {
-                // phpModule is null at first time
-                if (phpModule != null) {
-                    FileObject config = getConfigFile();
-                    if (config != null && fileChangeListener != null) {
-                        config.removeFileChangeListener(fileChangeListener);
-                    }
-                }
-                phpModule = currentPhpModule;
-
-                // set CakePHP version
-                setCakePHPVersion(phpModule);
-            }
-
-            // get conifg file
+            phpModule = currentPhpModule;
             FileObject config = getConfigFile();
             if (config == null) {
+                clearLabel();
                 return;
             }
 
-            // add FileChangeListener to config file
-            if (fileChangeListener == null) {
-                fileChangeListener = new FileChangeAdapterImpl();
+            // snapshots are updated by file events, no file is read here
+            DebugLevelSnapshot snapshot = snapshots.get(config);
+            if (snapshot != null) {
+                updateLabels(snapshot);
+                return;
             }
-            config.addFileChangeListener(fileChangeListener);
-            config.refresh();
-
-            // set debug level
-            String level = getDebugLevel(config);
-            setLevel(level);
-            setDebugLevelLabel(level);
-            list.setSelectedValue(level, false);
+            clearLabel();
+            snapshots.put(config, DebugLevelSnapshot.EMPTY);
+            config.addFileChangeListener(FileUtil.weakFileChangeListener(fileChangeListener, config));
+            refreshSnapshot(config, phpModule);
         }
 
         /**
@@ -362,18 +385,6 @@ public class CakePhpStatusLineElement implements StatusLineElementProvider {
             }
             return fileObject;
         }
-
-        /**
-         * Set CakePHP version.
-         *
-         * @param phpModule
-         */
-        private void setCakePHPVersion(PhpModule phpModule) {
-            CakeVersion version = CakeVersion.getInstance(phpModule);
-            String versionNumber = version.getVersion();
-            cakeVersionLabel.setText(versionNumber + ":"); // NOI18N
-            cakeVersionLabel.setIcon(icon);
-        }
     }
 
     private class FileChangeAdapterImpl extends FileChangeAdapter {
@@ -383,10 +394,11 @@ public class CakePhpStatusLineElement implements StatusLineElementProvider {
 
         @Override
         public void fileChanged(FileEvent fe) {
-            String level = getDebugLevel(fe.getFile());
-            setLevel(level);
-            setDebugLevelLabel(level);
-            list.setSelectedValue(level, false);
+            FileObject config = fe.getFile();
+            PhpModule module = PhpModule.forFileObject(config);
+            if (module != null) {
+                refreshSnapshot(config, module);
+            }
         }
     }
 }
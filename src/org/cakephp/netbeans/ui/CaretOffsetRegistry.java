@@ -0,0 +1,188 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.netbeans.api.editor.EditorRegistry;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Keep opened editors per FileObject to get the caret offset of the file
+ * without iterating all editors. Editors are tracked by property change events
+ * of EditorRegistry.
+ *
+ * @author junichi11
+ */
+public final class CaretOffsetRegistry {
+
+    /**
+     * Offset which is resolved when the item is opened.
+     */
+    public static final int CURRENT_OFFSET = -1;
+    private static final CaretOffsetRegistry INSTANCE = new CaretOffsetRegistry();
+    // guarded by this
+    private final Map<FileObject, WeakReference<JTextComponent>> editors = new HashMap<FileObject, WeakReference<JTextComponent>>();
+    private boolean initialized;
+    private int registeredCount;
+
+    private CaretOffsetRegistry() {
+    }
+
+    public static CaretOffsetRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the caret offset of the opened file.
+     *
+     * @param target FileObject
+     * @return caret offset if the file is opened, otherwise 0
+     */
+    public int getOffset(FileObject target) {
+        if (target == null) {
+            return 0;
+        }
+        JTextComponent editor = getEditor(target);
+        if (editor == null) {
+            return 0;
+        }
+        return editor.getCaretPosition();
+    }
+
+    private synchronized JTextComponent getEditor(FileObject target) {
+        if (!initialized) {
+            EditorRegistry.addPropertyChangeListener(new RegistryListener());
+            initialized = true;
+            rebuild();
+        }
+        JTextComponent editor = get(target);
+        // components are registered without events until they get focus
+        if (editor == null && EditorRegistry.componentList().size() != registeredCount) {
+            rebuild();
+            editor = get(target);
+        }
+        return editor;
+    }
+
+    private JTextComponent get(FileObject target) {
+        WeakReference<JTextComponent> reference = editors.get(target);
+        if (reference == null) {
+            return null;
+        }
+        JTextComponent editor = reference.get();
+        if (editor == null || getFileObject(editor) != target) {
+            editors.remove(target);
+            return null;
+        }
+        return editor;
+    }
+
+    private synchronized void rebuild() {
+        editors.clear();
+        List<? extends JTextComponent> componentList = EditorRegistry.componentList();
+        registeredCount = componentList.size();
+        for (JTextComponent editor : componentList) {
+            add(editor);
+        }
+    }
+
+    private synchronized void add(JTextComponent editor) {
+        FileObject fileObject = getFileObject(editor);
+        if (fileObject != null) {
+            editors.put(fileObject, new WeakReference<JTextComponent>(editor));
+        }
+    }
+
+    private synchronized void remove(JTextComponent editor) {
+        Iterator<WeakReference<JTextComponent>> iterator = editors.values().iterator();
+        while (iterator.hasNext()) {
+            JTextComponent component = iterator.next().get();
+            if (component == null || component == editor) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static FileObject getFileObject(JTextComponent editor) {
+        Document document = editor.getDocument();
+        if (document == null) {
+            return null;
+        }
+        return NbEditorUtilities.getFileObject(document);
+    }
+
+    //~ Inner classes
+    private class RegistryListener implements PropertyChangeListener {
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            String propertyName = evt.getPropertyName();
+            if (EditorRegistry.FOCUS_GAINED_PROPERTY.equals(propertyName)) {
+                Object component = evt.getNewValue();
+                if (component instanceof JTextComponent) {
+                    add((JTextComponent) component);
+                }
+            } else if (EditorRegistry.FOCUSED_DOCUMENT_PROPERTY.equals(propertyName)) {
+                JTextComponent component = EditorRegistry.focusedComponent();
+                if (component != null) {
+                    remove(component);
+                    add(component);
+                }
+            } else if (EditorRegistry.COMPONENT_REMOVED_PROPERTY.equals(propertyName)
+                    || EditorRegistry.LAST_FOCUSED_REMOVED_PROPERTY.equals(propertyName)) {
+                Object component = evt.getOldValue();
+                if (component instanceof JTextComponent) {
+                    remove((JTextComponent) component);
+                }
+            }
+        }
+    }
+}
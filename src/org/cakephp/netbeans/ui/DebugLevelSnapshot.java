@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Snapshot of the debug level in the config file (app/Config/core.php). It
+ * has the position of the debug level value, so the value can be changed
+ * without rewriting the whole file.
+ *
+ * @author junichi11
+ */
+final class DebugLevelSnapshot {
+
+    static final DebugLevelSnapshot EMPTY = new DebugLevelSnapshot("", "", -1, 0); // NOI18N
+    private static final Pattern DEBUG_PATTERN = Pattern.compile("^\\tConfigure::write\\('debug', (.+)\\)"); // NOI18N
+    private static final Charset UTF8 = Charset.forName("UTF-8"); // NOI18N
+    private final String level;
+    private final String version;
+    // byte offset and length of the debug level value
+    private final long offset;
+    private final int length;
+
+    private DebugLevelSnapshot(String level, String version, long offset, int length) {
+        this.level = level;
+        this.version = version;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Read the config file. Don't call this method in the EDT.
+     *
+     * @param config config file
+     * @param version CakePHP version
+     * @return snapshot
+     * @throws IOException
+     */
+    static DebugLevelSnapshot read(FileObject config, String version) throws IOException {
+        return parse(config.asBytes(), version);
+    }
+
+    /**
+     * Find the debug level.
+     *
+     * @param content content of the config file (UTF-8)
+     * @param version CakePHP version
+     * @return snapshot, the level is empty if it is not found
+     */
+    static DebugLevelSnapshot parse(byte[] content, String version) {
+        int lineStart = 0;
+        while (lineStart < content.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < content.length && content[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            // the pattern starts with a tab
+            if (content[lineStart] == '\t') {
+                String line = new String(content, lineStart, lineEnd - lineStart, UTF8);
+                Matcher matcher = DEBUG_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    String value = matcher.group(1);
+                    long valueOffset = lineStart + line.substring(0, matcher.start(1)).getBytes(UTF8).length;
+                    return new DebugLevelSnapshot(value, version, valueOffset, value.getBytes(UTF8).length);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return new DebugLevelSnapshot("", version, -1, 0); // NOI18N
+    }
+
+    /**
+     * Change the debug level. Only the value is written, the rest of the file
+     * is kept as it is. Don't call this method in the EDT.
+     *
+     * @param config config file
+     * @param level new debug level
+     * @return true if the level is changed, otherwise false
+     * @throws IOException
+     */
+    static boolean write(File config, String level) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(config, "rw"); // NOI18N
+        try {
+            byte[] content = new byte[(int) file.length()];
+            file.readFully(content);
+            // current position of the value, the file may be modified
+            DebugLevelSnapshot snapshot = parse(content, ""); // NOI18N
+            if (snapshot.getOffset() == -1) {
+                return false;
+            }
+            byte[] value = level.getBytes(UTF8);
+            int offset = (int) snapshot.getOffset();
+            file.seek(offset);
+            file.write(value);
+            if (value.length != snapshot.getLength()) {
+                // shift the rest of the file
+                int tailOffset = offset + snapshot.getLength();
+                file.write(content, tailOffset, content.length - tailOffset);
+                file.setLength(offset + value.length + content.length - tailOffset);
+            }
+            return true;
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -61,6 +61,9 @@ public class GoToDefaultItem implements GoToItem {
 
     @Override
     public int getOffset() {
+        if (offset == CaretOffsetRegistry.CURRENT_OFFSET) {
+            return CaretOffsetRegistry.getInstance().getOffset(fileObject);
+        }
         return offset;
     }
 
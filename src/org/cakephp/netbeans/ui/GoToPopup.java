@@ -50,6 +50,7 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.DefaultListModel;
@@ -60,6 +61,7 @@ import javax.swing.ListModel;
 import org.netbeans.modules.csl.api.UiUtils;
 import org.openide.filesystems.FileObject;
 import org.openide.util.ImageUtilities;
+import org.openide.util.NbBundle;
 
 /**
  * This file is originally from Retouche, the Java Support infrastructure in
@@ -74,18 +76,32 @@ import org.openide.util.ImageUtilities;
  * @author Tor Norbye
  * @author junichi11
  */
+@NbBundle.Messages("GoToPopup.searching=Searching...")
 public class GoToPopup extends JPanel implements FocusListener {
 
     private static final long serialVersionUID = -2662042633320594913L;
     private String caption;
     private List<GoToItem> items;
+    private boolean searching;
 
     /**
      * Creates new form GoToPopup
      */
     public GoToPopup(String caption, List<GoToItem> items) {
+        this(caption, items, false);
+    }
+
+    /**
+     * Creates new form GoToPopup
+     *
+     * @param caption caption
+     * @param items items
+     * @param searching true if items are still searched, otherwise false
+     */
+    public GoToPopup(String caption, List<GoToItem> items, boolean searching) {
         this.caption = caption;
-        this.items = items;
+        this.items = new ArrayList<GoToItem>(items);
+        this.searching = searching;
 
         initComponents();
 
@@ -121,7 +137,7 @@ public class GoToPopup extends JPanel implements FocusListener {
         jList1.setModel(createListModel());
         jList1.setCellRenderer(new RendererImpl());
         jList1.setSelectedIndex(0);
-        jList1.setVisibleRowCount(items.size()
+        jList1.setVisibleRowCount(getVisibleRowCount()
         );
         jList1.addKeyListener(new java.awt.event.KeyAdapter() {
             public void keyPressed(java.awt.event.KeyEvent evt) {
@@ -163,8 +179,53 @@ public class GoToPopup extends JPanel implements FocusListener {
     private javax.swing.JScrollPane jScrollPane1;
     // End of variables declaration//GEN-END:variables
 
+    /**
+     * Add items which are found. Must be called in EDT.
+     *
+     * @param newItems found items
+     */
+    public void addItems(List<GoToItem> newItems) {
+        if (newItems.isEmpty()) {
+            return;
+        }
+        items.addAll(newItems);
+        updateList();
+    }
+
+    /**
+     * Set whether items are still searched. Must be called in EDT.
+     *
+     * @param searching true if items are still searched, otherwise false
+     */
+    public void setSearching(boolean searching) {
+        if (this.searching == searching) {
+            return;
+        }
+        this.searching = searching;
+        updateList();
+    }
+
+    private void updateList() {
+        int selectedIndex = Math.max(jList1.getSelectedIndex(), 0);
+        jList1.setModel(createListModel());
+        jList1.setSelectedIndex(Math.min(selectedIndex, items.size() - 1));
+        jList1.setVisibleRowCount(getVisibleRowCount());
+        if (isShowing()) {
+            PopupUtil.packPopup();
+        }
+    }
+
+    private int getVisibleRowCount() {
+        return searching ? items.size() + 1 : items.size();
+    }
+
     private void openSelected() {
-        GoToItem item = (GoToItem) jList1.getSelectedValue();
+        Object selectedValue = jList1.getSelectedValue();
+        if (!(selectedValue instanceof GoToItem)) {
+            // searching row
+            return;
+        }
+        GoToItem item = (GoToItem) selectedValue;
         FileObject fileObject = item.getFileObject();
         if (fileObject != null) {
             UiUtils.open(fileObject, item.getOffset());
@@ -181,6 +242,9 @@ public class GoToPopup extends JPanel implements FocusListener {
         for (GoToItem el : items) {
             dlm.addElement(el);
         }
+        if (searching) {
+            dlm.addElement(Bundle.GoToPopup_searching());
+        }
 
         return dlm;
     }
@@ -202,6 +266,8 @@ public class GoToPopup extends JPanel implements FocusListener {
                 GoToItem item = (GoToItem) value;
                 ImageIcon icon = ImageUtilities.loadImageIcon(item.getIcon(), true);
                 setIcon(icon);
+            } else {
+                setEnabled(false);
             }
 
             return c;
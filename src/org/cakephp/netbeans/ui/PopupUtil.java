@@ -174,6 +174,15 @@ public final class PopupUtil {
         popupWindow = null;
     }
 
+    /**
+     * Resize the showing popup to the preferred size of its content.
+     */
+    public static void packPopup() {
+        if (popupWindow != null) {
+            popupWindow.pack();
+        }
+    }
+
     private static void resizePopup() {
         popupWindow.pack();
         Point point = new Point(0, 0);
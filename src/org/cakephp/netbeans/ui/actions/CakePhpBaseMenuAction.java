@@ -46,6 +46,7 @@ import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToFixturesAction;
 import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToSmartAction;
 import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToBehaviorsAction;
 import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToTestCasesAction;
+import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToUsagesAction;
 import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToHelpersAction;
 import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToViewsAction;
 import org.cakephp.netbeans.ui.actions.gotos.CakePhpGoToComponentsAction;
@@ -105,6 +106,7 @@ public class CakePhpBaseMenuAction extends BaseAction implements Presenter.Popup
     private final JMenuItem goToBehaviorsActionMenu = new JMenuItem(CakePhpGoToBehaviorsAction.getInstance());
     private final JMenuItem goToFixturesActionMenu = new JMenuItem(CakePhpGoToFixturesAction.getInstance());
     private final JMenuItem goToTestCasesActionMenu = new JMenuItem(CakePhpGoToTestCasesAction.getInstance());
+    private final JMenuItem goToUsagesActionMenu = new JMenuItem(CakePhpGoToUsagesAction.getInstance());
 
     private CakePhpBaseMenuAction() {
     }
@@ -144,6 +146,7 @@ public class CakePhpBaseMenuAction extends BaseAction implements Presenter.Popup
                 menu.add(goToHelpersActionMenu);
                 menu.add(goToBehaviorsActionMenu);
                 menu.add(goToFixturesActionMenu);
+                menu.add(goToUsagesActionMenu);
             }
 
             // format
@@ -239,6 +242,7 @@ public class CakePhpBaseMenuAction extends BaseAction implements Presenter.Popup
             popup.add(CakePhpGoToHelpersAction.getInstance());
             popup.add(CakePhpGoToBehaviorsAction.getInstance());
             popup.add(CakePhpGoToFixturesAction.getInstance());
+            popup.add(CakePhpGoToUsagesAction.getInstance());
 
             // format
             popup.add(FormatPlusAction.getInstance());
@@ -43,13 +43,20 @@ package org.cakephp.netbeans.ui.actions.gotos;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.cakephp.netbeans.preferences.CakePreferences;
 import org.cakephp.netbeans.ui.GoToItem;
+import org.cakephp.netbeans.ui.GoToItemCollector;
 import org.cakephp.netbeans.ui.GoToPopup;
 import org.cakephp.netbeans.ui.PopupUtil;
 import org.cakephp.netbeans.ui.actions.gotos.statuses.CakePhpGoToStatus;
@@ -62,14 +69,23 @@ import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.spi.framework.actions.BaseAction;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Search items in background and show them in the popup. If the search is not
+ * finished soon, the popup is shown with a searching row and items are added
+ * as each category is completed.
  *
  * @author junichi11
  */
 public abstract class CakePhpGoToAction extends BaseAction {
 
     private static final long serialVersionUID = -4064303428578826547L;
+    // statuses are immutable, so searches for different files can run in parallel
+    private static final RequestProcessor RP = new RequestProcessor(CakePhpGoToAction.class.getName(), 4);
+    private static final int POPUP_DELAY = 300;
+    // EDT only
+    private static GoToSearch currentSearch;
 
     CakePhpGoToAction() {
     }
@@ -95,40 +111,23 @@ public abstract class CakePhpGoToAction extends BaseAction {
         if (fileObject == null) {
             return;
         }
-        // get go to files
-        CakePhpGoToStatusFactory factory = CakePhpGoToStatusFactory.getInstance();
-        CakePhpGoToStatus status = factory.create(fileObject, editor.getCaretPosition());
-        final List<GoToItem> items = getGoToItems(status);
-        if (items == null || items.isEmpty()) {
-            return;
-        }
 
-        // if there are multiple items, show popup list
-        if (items.size() == 1 && !CakePreferences.isShowPopupForOneItem(phpModule)) {
-            for (GoToItem item : items) {
-                UiUtils.open(item.getFileObject(), item.getOffset());
-                return;
-            }
-        }
-
-        // show popup
+        Point point;
         try {
             Rectangle rectangle = editor.modelToView(editor.getCaretPosition());
-            final Point point = new Point(rectangle.x, rectangle.y + rectangle.height);
+            point = new Point(rectangle.x, rectangle.y + rectangle.height);
             SwingUtilities.convertPointToScreen(point, editor);
-            SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    String title = getPopupTitle();
-                    if (title == null) {
-                        title = ""; // NOI18N
-                    }
-                    PopupUtil.showPopup(new GoToPopup(title, items), title, point.x, point.y, true, 0);
-                }
-            });
         } catch (BadLocationException ex) {
             Exceptions.printStackTrace(ex);
+            return;
+        }
+
+        // cancel the previous search
+        if (currentSearch != null) {
+            currentSearch.cancel();
         }
+        currentSearch = new GoToSearch(phpModule, editor, fileObject, point);
+        currentSearch.start();
     }
 
     protected String getPopupTitle() {
@@ -136,4 +135,190 @@ public abstract class CakePhpGoToAction extends BaseAction {
     }
 
     protected abstract List<GoToItem> getGoToItems(CakePhpGoToStatus status);
+
+    /**
+     * Get items. Found items are passed to the collector. It is called in a
+     * background thread. Override it if items can be added incrementally.
+     *
+     * @param status CakePhpGoToStatus
+     * @param collector GoToItemCollector
+     */
+    protected void getGoToItems(CakePhpGoToStatus status, GoToItemCollector collector) {
+        List<GoToItem> items = getGoToItems(status);
+        if (items != null && !collector.isCancelled()) {
+            collector.addAll(items);
+        }
+    }
+
+    //~ Inner classes
+    private final class GoToSearch implements Runnable, GoToItemCollector, CaretListener {
+
+        private final PhpModule phpModule;
+        private final JTextComponent editor;
+        private final FileObject fileObject;
+        private final int caretPosition;
+        private final Point point;
+        private final Timer popupTimer;
+        // guarded by this
+        private final List<GoToItem> pendingItems = new ArrayList<GoToItem>();
+        private volatile boolean cancelled;
+        // EDT only
+        private final List<GoToItem> items = new ArrayList<GoToItem>();
+        private RequestProcessor.Task task;
+        private GoToPopup popup;
+        private boolean finished;
+
+        GoToSearch(PhpModule phpModule, JTextComponent editor, FileObject fileObject, Point point) {
+            this.phpModule = phpModule;
+            this.editor = editor;
+            this.fileObject = fileObject;
+            this.caretPosition = editor.getCaretPosition();
+            this.point = point;
+            popupTimer = new Timer(POPUP_DELAY, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    showPopup(true);
+                }
+            });
+            popupTimer.setRepeats(false);
+        }
+
+        void start() {
+            editor.addCaretListener(this);
+            task = RP.post(this);
+            popupTimer.start();
+        }
+
+        /**
+         * Cancel the search. Must be called in EDT.
+         */
+        void cancel() {
+            cancelled = true;
+            task.cancel();
+            stop();
+            hidePopup();
+        }
+
+        private void stop() {
+            popupTimer.stop();
+            editor.removeCaretListener(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (cancelled) {
+                    return;
+                }
+                CakePhpGoToStatusFactory factory = CakePhpGoToStatusFactory.getInstance();
+                CakePhpGoToStatus status = factory.create(fileObject, caretPosition);
+                if (!cancelled) {
+                    getGoToItems(status, this);
+                }
+            } finally {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        finish();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void addAll(List<GoToItem> found) {
+            if (cancelled || found.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                pendingItems.addAll(found);
+            }
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            });
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void caretUpdate(CaretEvent e) {
+            // items are for the previous caret position
+            if (currentSearch == this) {
+                currentSearch = null;
+            }
+            cancel();
+        }
+
+        private void flush() {
+            List<GoToItem> found;
+            synchronized (this) {
+                found = new ArrayList<GoToItem>(pendingItems);
+                pendingItems.clear();
+            }
+            if (cancelled || found.isEmpty()) {
+                return;
+            }
+            items.addAll(found);
+            if (popup != null) {
+                popup.addItems(found);
+            }
+        }
+
+        private void finish() {
+            flush();
+            finished = true;
+            stop();
+            if (currentSearch == this) {
+                currentSearch = null;
+            }
+            if (cancelled) {
+                return;
+            }
+            if (popup != null) {
+                if (items.isEmpty()) {
+                    hidePopup();
+                } else {
+                    popup.setSearching(false);
+                }
+                return;
+            }
+            if (items.isEmpty()) {
+                return;
+            }
+
+            // if there are multiple items, show popup list
+            if (items.size() == 1 && !CakePreferences.isShowPopupForOneItem(phpModule)) {
+                GoToItem item = items.get(0);
+                UiUtils.open(item.getFileObject(), item.getOffset());
+                return;
+            }
+            showPopup(false);
+        }
+
+        private void showPopup(boolean searching) {
+            if (cancelled || popup != null || (finished && searching)) {
+                return;
+            }
+            String title = getPopupTitle();
+            if (title == null) {
+                title = ""; // NOI18N
+            }
+            popup = new GoToPopup(title, items, searching);
+            PopupUtil.showPopup(popup, title, point.x, point.y, true, 0);
+        }
+
+        private void hidePopup() {
+            // the popup may be already closed by user
+            if (popup != null && popup.isShowing()) {
+                PopupUtil.hidePopup();
+            }
+            popup = null;
+        }
+    }
 }
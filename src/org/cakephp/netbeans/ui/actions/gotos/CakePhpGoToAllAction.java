@@ -43,6 +43,7 @@ package org.cakephp.netbeans.ui.actions.gotos;
 
 import java.util.List;
 import org.cakephp.netbeans.ui.GoToItem;
+import org.cakephp.netbeans.ui.GoToItemCollector;
 import org.cakephp.netbeans.ui.actions.gotos.statuses.CakePhpGoToStatus;
 import org.openide.awt.ActionID;
 import org.openide.awt.ActionReference;
@@ -77,6 +78,11 @@ public class CakePhpGoToAllAction extends CakePhpGoToAction {
         return status.getAll();
     }
 
+    @Override
+    protected void getGoToItems(CakePhpGoToStatus status, GoToItemCollector collector) {
+        status.getAll(collector);
+    }
+
     @Override
     protected String getFullName() {
         return getPureName();
@@ -57,13 +57,9 @@ public class CakePhpBehaviorGoToStatus extends CakePhpGoToStatus {
 
     private final List<GoToItem> models = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpBehaviorGoToStatus.class.getName());
-    private static CakePhpBehaviorGoToStatus INSTANCE = new CakePhpBehaviorGoToStatus();
 
-    private CakePhpBehaviorGoToStatus() {
-    }
-
-    public static CakePhpBehaviorGoToStatus getInstance() {
-        return INSTANCE;
+    CakePhpBehaviorGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
@@ -42,6 +42,7 @@
 package org.cakephp.netbeans.ui.actions.gotos.statuses;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,23 +63,13 @@ public class CakePhpComponentGoToStatus extends CakePhpGoToStatus {
 
     private final List<GoToItem> components = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpComponentGoToStatus.class.getName());
-    private static CakePhpComponentGoToStatus INSTANCE = new CakePhpComponentGoToStatus();
 
-    private CakePhpComponentGoToStatus() {
-    }
-
-    public static CakePhpComponentGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset() {
-        components.clear();
+    CakePhpComponentGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject currentFile, int offset) {
-        reset();
-
         // scan
         final CakePhpComponentVisitor visitor = new CakePhpComponentVisitor(currentFile);
         try {
@@ -96,7 +87,7 @@ public class CakePhpComponentGoToStatus extends CakePhpGoToStatus {
 
     @Override
     public List<GoToItem> getComponents() {
-        return components;
+        return Collections.unmodifiableList(components);
     }
 
     @Override
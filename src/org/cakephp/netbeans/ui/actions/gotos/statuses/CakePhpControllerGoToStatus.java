@@ -42,11 +42,12 @@
 package org.cakephp.netbeans.ui.actions.gotos.statuses;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import org.cakephp.netbeans.editor.visitors.CakePhpControllerVisitor;
+import org.cakephp.netbeans.editor.visitors.CakePhpControllerInfo;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
 import org.cakephp.netbeans.ui.GoToComponentItem;
 import org.cakephp.netbeans.ui.GoToHelperItem;
 import org.cakephp.netbeans.ui.GoToItem;
@@ -54,11 +55,13 @@ import org.cakephp.netbeans.ui.GoToModelItem;
 import org.cakephp.netbeans.ui.GoToViewItem;
 import org.cakephp.netbeans.util.CakePhpUtils;
 import org.cakephp.netbeans.util.CakeVersion;
-import org.netbeans.modules.parsing.spi.ParseException;
+import org.netbeans.modules.php.api.editor.EditorSupport;
+import org.netbeans.modules.php.api.editor.PhpBaseElement;
+import org.netbeans.modules.php.api.editor.PhpClass;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.api.util.StringUtils;
-import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
 import org.openide.filesystems.FileObject;
+import org.openide.util.Lookup;
 
 /**
  * Behavior for current controller file of Go To Action.
@@ -81,48 +84,39 @@ public class CakePhpControllerGoToStatus extends CakePhpGoToStatus {
     private Set<String> themeNames;
     private Set<String> allThemeNames;
     private boolean isTheme;
-    private static final Logger LOGGER = Logger.getLogger(CakePhpControllerGoToStatus.class.getName());
-    private static final CakePhpControllerGoToStatus INSTANCE = new CakePhpControllerGoToStatus();
 
-    private CakePhpControllerGoToStatus() {
-    }
-
-    public static CakePhpControllerGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset() {
-        models.clear();
-        components.clear();
-        helpers.clear();
-        views.clear();
-        allViews.clear();
-        isTheme = false;
+    CakePhpControllerGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject controller, int offset) {
-        // reset
-        reset();
-
         // scan
-        final CakePhpControllerVisitor visitor = new CakePhpControllerVisitor(controller, offset);
-        try {
-            scanController(visitor, controller);
-        } catch (ParseException ex) {
-            LOGGER.log(Level.WARNING, null, ex);
+        CakePhpControllerInfo controllerInfo = CakePhpControllerInfo.forController(controller);
+        if (controllerInfo == null) {
+            return;
+        }
+        String methodName = getMethodName(controller, offset);
+        Set<String> viewNames = new HashSet<String>();
+        Set<String> currentThemeNames = Collections.emptySet();
+        if (methodName != null) {
+            viewNames.add(methodName);
+            viewNames.addAll(controllerInfo.getViewNames(methodName));
+            currentThemeNames = controllerInfo.getThemeNames(methodName);
         }
+        Set<String> allViewNames = controllerInfo.getAllViewNames();
+        allViewNames.addAll(viewNames);
 
         // set
         // don't change order
-        setTheme(visitor.isTheme());
-        setThemeNames(visitor.getThemeNames());
-        setAllThemeNames(visitor.getAllThemeNames());
-        setViews(visitor.getViewNames(), controller);
-        setAllViews(visitor.getAllViewNames(), controller);
-        setModels(visitor.getModels());
-        setComponents(visitor.getComponents());
-        setHelpers(visitor.getHelpers());
+        setTheme(controllerInfo.hasThemeField() || !currentThemeNames.isEmpty());
+        setThemeNames(currentThemeNames);
+        setAllThemeNames(controllerInfo.getOtherThemeNames(methodName));
+        setViews(viewNames, controller);
+        setAllViews(allViewNames, controller);
+        setModels(controllerInfo.getFiles(FILE_TYPE.MODEL, CakePhpControllerInfo.CONTROLLER_FIELD_NAMES));
+        setComponents(controllerInfo.getFiles(FILE_TYPE.COMPONENT, CakePhpControllerInfo.CONTROLLER_FIELD_NAMES));
+        setHelpers(controllerInfo.getFiles(FILE_TYPE.HELPER, CakePhpControllerInfo.CONTROLLER_FIELD_NAMES));
 
         // sort
         sort(views);
@@ -135,34 +129,30 @@ public class CakePhpControllerGoToStatus extends CakePhpGoToStatus {
 
     @Override
     public List<GoToItem> getModels() {
-        return models;
+        return Collections.unmodifiableList(models);
     }
 
     @Override
     public List<GoToItem> getViews() {
         if (views.isEmpty()) {
-            return allViews;
+            return Collections.unmodifiableList(allViews);
         }
-        return views;
+        return Collections.unmodifiableList(views);
     }
 
     @Override
     public List<GoToItem> getComponents() {
-        return components;
+        return Collections.unmodifiableList(components);
     }
 
     @Override
     public List<GoToItem> getHelpers() {
-        return helpers;
+        return Collections.unmodifiableList(helpers);
     }
 
     @Override
     public List<GoToItem> getSmart() {
-        if (!views.isEmpty()) {
-            return views;
-        }
-
-        return allViews;
+        return getViews();
     }
 
     /**
@@ -239,8 +229,27 @@ public class CakePhpControllerGoToStatus extends CakePhpGoToStatus {
         }
     }
 
-    private void scanController(final DefaultVisitor visitor, FileObject controller) throws ParseException {
-        scan(visitor, controller);
+    /**
+     * Get the method name for the caret position.
+     *
+     * @param controller controller file
+     * @param offset caret position
+     * @return method name if the caret is in the method, otherwise null
+     */
+    private String getMethodName(FileObject controller, int offset) {
+        EditorSupport editorSupport = Lookup.getDefault().lookup(EditorSupport.class);
+        int startClassOffset = 0;
+        for (PhpClass phpClass : editorSupport.getClasses(controller)) {
+            startClassOffset = phpClass.getOffset();
+            break;
+        }
+        if (offset > startClassOffset) {
+            PhpBaseElement phpElement = editorSupport.getElement(controller, offset);
+            if (phpElement instanceof PhpClass.Method) {
+                return phpElement.getName();
+            }
+        }
+        return null;
     }
 
     private void setModels(final List<FileObject> modelFiles) {
@@ -54,13 +54,9 @@ import org.openide.filesystems.FileObject;
  */
 public final class CakePhpDummyGoToStatus extends CakePhpGoToStatus {
 
-    private static CakePhpDummyGoToStatus INSTANCE = new CakePhpDummyGoToStatus();
 
-    private CakePhpDummyGoToStatus() {
-    }
-
-    public static CakePhpDummyGoToStatus getInstance() {
-        return INSTANCE;
+    CakePhpDummyGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
@@ -42,7 +42,7 @@
 package org.cakephp.netbeans.ui.actions.gotos.statuses;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -50,6 +50,8 @@ import java.util.logging.Logger;
 import org.cakephp.netbeans.editor.visitors.CakePhpFixtureVisitor;
 import org.cakephp.netbeans.editor.visitors.CakePhpTestCaseVisitor;
 import org.cakephp.netbeans.module.CakePhpModule;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
 import org.cakephp.netbeans.ui.GoToItem;
 import org.cakephp.netbeans.ui.GoToModelItem;
 import org.cakephp.netbeans.ui.GoToTestCaseItem;
@@ -72,26 +74,14 @@ public class CakePhpFixtureGoToStatus extends CakePhpGoToStatus {
 
     private static final String FIXTURE = "Fixture"; // NOI18N
     private final List<GoToItem> models = new ArrayList<GoToItem>();
-    private final List<GoToItem> testCases = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpFixtureGoToStatus.class.getName());
-    private static CakePhpFixtureGoToStatus INSTANCE = new CakePhpFixtureGoToStatus();
 
-    private CakePhpFixtureGoToStatus() {
-    }
-
-    public static CakePhpFixtureGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset() {
-        models.clear();
-        testCases.clear();
+    CakePhpFixtureGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject currentFile, int offset) {
-        reset();
-
         // scan
         final CakePhpFixtureVisitor visitor = new CakePhpFixtureVisitor();
         try {
@@ -126,29 +116,20 @@ public class CakePhpFixtureGoToStatus extends CakePhpGoToStatus {
 
     @Override
     public List<GoToItem> getModels() {
-        return models;
+        return Collections.unmodifiableList(models);
     }
 
     @Override
     public List<GoToItem> getTestCases() {
-        testCases.clear();
         CakePhpModule cakeModule = CakePhpModule.forPhpModule(getPhpModule());
         if (cakeModule == null) {
-            return testCases;
-        }
-
-        FileObject testDirectory = cakeModule.getTestDirectory(CakePhpModule.DIR_TYPE.APP);
-        if (testDirectory == null) {
-            return testCases;
+            return Collections.emptyList();
         }
 
-        Enumeration<? extends FileObject> children = testDirectory.getChildren(true);
-        while (children.hasMoreElements()) {
-            FileObject child = children.nextElement();
-            if (child == null || child.isFolder()) {
-                continue;
-            }
+        List<GoToItem> testCases = new ArrayList<GoToItem>();
 
+        List<FileObject> tests = cakeModule.getArtifactIndex().getFiles(DIR_TYPE.APP, null, FILE_TYPE.TEST);
+        for (FileObject child : tests) {
             try {
                 CakePhpTestCaseVisitor visitor = new CakePhpTestCaseVisitor(child);
                 scan(visitor, child);
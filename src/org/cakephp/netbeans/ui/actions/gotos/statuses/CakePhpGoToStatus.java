@@ -45,15 +45,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import javax.swing.text.Document;
-import javax.swing.text.JTextComponent;
 import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
 import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.cakephp.netbeans.ui.CaretOffsetRegistry;
 import org.cakephp.netbeans.ui.GoToBehaviorItem;
 import org.cakephp.netbeans.ui.GoToComponentItem;
 import org.cakephp.netbeans.ui.GoToControllerItem;
@@ -61,12 +59,11 @@ import org.cakephp.netbeans.ui.GoToDefaultItem;
 import org.cakephp.netbeans.ui.GoToFixtureItem;
 import org.cakephp.netbeans.ui.GoToHelperItem;
 import org.cakephp.netbeans.ui.GoToItem;
+import org.cakephp.netbeans.ui.GoToItemCollector;
 import org.cakephp.netbeans.ui.GoToModelItem;
 import org.cakephp.netbeans.ui.GoToTestCaseItem;
 import org.cakephp.netbeans.util.CakePhpUtils;
-import org.netbeans.api.editor.EditorRegistry;
 import org.netbeans.modules.csl.spi.ParserResult;
-import org.netbeans.modules.editor.NbEditorUtilities;
 import org.netbeans.modules.parsing.api.ParserManager;
 import org.netbeans.modules.parsing.api.ResultIterator;
 import org.netbeans.modules.parsing.api.Source;
@@ -90,13 +87,16 @@ import org.openide.util.Lookup;
 /**
  * Behavior for current file of Go To Action.
  *
+ * A status is created and scanned by {@link CakePhpGoToStatusFactory} for each
+ * file and caret position, and it is not changed after that. So it can be
+ * shared between threads.
+ *
  * @author junichi11
  */
 public abstract class CakePhpGoToStatus {
 
-    private FileObject currentFile;
-    private int offset;
-    private PhpModule phpModule;
+    private final FileObject currentFile;
+    private final int offset;
     private static final Comparator<GoToItem> FILE_COMPARATOR = new Comparator<GoToItem>() {
         @Override
         public int compare(GoToItem o1, GoToItem o2) {
@@ -104,19 +104,8 @@ public abstract class CakePhpGoToStatus {
         }
     };
 
-    CakePhpGoToStatus() {
-    }
-
-    public void setCurrentFile(FileObject currentFile) {
+    CakePhpGoToStatus(FileObject currentFile, int offset) {
         this.currentFile = currentFile;
-        if (currentFile != null) {
-            this.phpModule = PhpModule.forFileObject(currentFile);
-        } else {
-            this.phpModule = null;
-        }
-    }
-
-    public void setOffset(int offset) {
         this.offset = offset;
     }
 
@@ -139,12 +128,13 @@ public abstract class CakePhpGoToStatus {
     }
 
     /**
-     * Get PhpModule.
+     * Get PhpModule. It is resolved from the current file each time, so
+     * cached statuses don't keep the project.
      *
      * @return PhpModule
      */
     public PhpModule getPhpModule() {
-        return phpModule;
+        return currentFile != null ? PhpModule.forFileObject(currentFile) : null;
     }
 
     /**
@@ -153,20 +143,42 @@ public abstract class CakePhpGoToStatus {
      * @return all GoToItems
      */
     public List<GoToItem> getAll() {
-        List<GoToItem> items = new ArrayList<GoToItem>(getAllSize());
-        items.addAll(getControllers());
-        items.addAll(getModels());
-        items.addAll(getViews());
-        items.addAll(getComponents());
-        items.addAll(getHelpers());
-        items.addAll(getBehaviors());
-        items.addAll(getTestCases());
-        items.addAll(getFixtrues());
+        final List<GoToItem> items = new ArrayList<GoToItem>();
+        getAll(new GoToItemCollector() {
+            @Override
+            public void addAll(List<GoToItem> found) {
+                items.addAll(found);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        });
         return items;
     }
 
-    public void scan() {
-        if (phpModule != null && currentFile != null) {
+    /**
+     * Get all items for each category. Items are passed to the collector as
+     * soon as the category is completed.
+     *
+     * @param collector GoToItemCollector
+     */
+    public void getAll(GoToItemCollector collector) {
+        for (CATEGORY category : CATEGORY.values()) {
+            if (collector.isCancelled()) {
+                return;
+            }
+            List<GoToItem> items = category.getItems(this);
+            if (!items.isEmpty()) {
+                collector.addAll(items);
+            }
+        }
+    }
+
+    void scan() {
+        PhpModule phpModule = getPhpModule();
+        if (phpModule != null) {
             scan(phpModule, currentFile, offset);
         }
     }
@@ -330,7 +342,8 @@ public abstract class CakePhpGoToStatus {
         }
 
         String target = getTestCaseClassName(currentFile);
-        if (!StringUtils.isEmpty(target) && !target.contains(" ")) { // NOI18N
+        PhpModule phpModule = getPhpModule();
+        if (phpModule != null && !StringUtils.isEmpty(target) && !target.contains(" ")) { // NOI18N
             FileObject targetDirectory = phpModule.getTestDirectory();
             Set<ClassElement> classElements = new HashSet<ClassElement>();
             if (targetDirectory != null) {
@@ -374,6 +387,16 @@ public abstract class CakePhpGoToStatus {
         return createGoToItems(FILE_TYPE.FIXTURE);
     }
 
+    /**
+     * Get items which use the current file. e.g. views which render the
+     * current element.
+     *
+     * @return usage items, empty list if there is no item.
+     */
+    public List<GoToItem> getUsages() {
+        return Collections.emptyList();
+    }
+
     /**
      * Get smart items.
      *
@@ -391,38 +414,14 @@ public abstract class CakePhpGoToStatus {
     }
 
     /**
-     * Get current offset for opened file. If file ie opened, get current
-     * offset. Otherwise return 0.
+     * Get offset for opened file. The caret offset is resolved when the item
+     * is opened. If the file is not opened, 0 is used.
      *
      * @param target FileObject
-     * @return current offset if the file is opened, otherwise 0.
+     * @return offset for GoToItem
      */
     public int getCurrentOffset(FileObject target) {
-        List<? extends JTextComponent> componentList = EditorRegistry.componentList();
-        int currentOffset = 0;
-        for (JTextComponent editor : componentList) {
-            Document document = editor.getDocument();
-            if (document != null) {
-                // TODO confirm whether there is isOpened method.
-                FileObject fileObject = NbEditorUtilities.getFileObject(document);
-                if (fileObject == target) {
-                    currentOffset = editor.getCaretPosition();
-                    break;
-                }
-            }
-        }
-        return currentOffset;
-    }
-
-    private int getAllSize() {
-        return getAllSize(getControllers(),
-                getModels(),
-                getViews(),
-                getComponents(),
-                getHelpers(),
-                getBehaviors(),
-                getTestCases(),
-                getFixtrues());
+        return CaretOffsetRegistry.CURRENT_OFFSET;
     }
 
     protected int getAllSize(List... lists) {
@@ -437,87 +436,125 @@ public abstract class CakePhpGoToStatus {
         Collections.sort(views, FILE_COMPARATOR);
     }
 
-    private FileObject getAppDirectory(FILE_TYPE fileType) {
+    private List<GoToItem> createGoToItems(FILE_TYPE fileType) {
+        PhpModule phpModule = getPhpModule();
         if (phpModule == null) {
-            return null;
+            return Collections.emptyList();
         }
         CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
-        return cakeModule.getDirectory(DIR_TYPE.APP, fileType, null);
-    }
-
-    private List<GoToItem> createGoToItems(FILE_TYPE fileType) {
-        return createGoToItems(getAppDirectory(fileType), fileType);
-    }
-
-    private List<GoToItem> createGoToItems(FileObject targetDirectory, FILE_TYPE fileType) {
-        if (targetDirectory == null || !targetDirectory.isFolder()) {
+        if (cakeModule == null) {
             return Collections.emptyList();
         }
-        Enumeration<? extends FileObject> children = targetDirectory.getChildren(true);
-        ArrayList<GoToItem> items = new ArrayList<GoToItem>();
-        while (children.hasMoreElements()) {
-            FileObject next = children.nextElement();
-            if (next.isFolder()) {
-                continue;
-            }
+        // files are already filtered and sorted by the index
+        List<FileObject> files = cakeModule.getArtifactIndex().getFiles(DIR_TYPE.APP, null, fileType);
+        ArrayList<GoToItem> items = new ArrayList<GoToItem>(files.size());
+        for (FileObject next : files) {
             switch (fileType) {
                 case CONTROLLER:
-                    if (CakePhpUtils.isController(next)) {
-                        items.add(new GoToControllerItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToControllerItem(next, getCurrentOffset(next)));
                     break;
                 case MODEL:
-                    if (CakePhpUtils.isModel(next)) {
-                        items.add(new GoToModelItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToModelItem(next, getCurrentOffset(next)));
                     break;
                 case COMPONENT:
-                    if (CakePhpUtils.isComponent(next)) {
-                        items.add(new GoToComponentItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToComponentItem(next, getCurrentOffset(next)));
                     break;
                 case HELPER:
-                    if (CakePhpUtils.isHelper(next)) {
-                        items.add(new GoToHelperItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToHelperItem(next, getCurrentOffset(next)));
                     break;
                 case BEHAVIOR:
-                    if (CakePhpUtils.isBehavior(next)) {
-                        items.add(new GoToBehaviorItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToBehaviorItem(next, getCurrentOffset(next)));
                     break;
                 case FIXTURE:
-                    if (CakePhpUtils.isFixture(next)) {
-                        items.add(new GoToFixtureItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToFixtureItem(next, getCurrentOffset(next)));
                     break;
                 case TEST:
-                    if (CakePhpUtils.isTest(next)) {
-                        items.add(new GoToTestCaseItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToTestCaseItem(next, getCurrentOffset(next)));
                     break;
                 case CONFIG:
-                    if (!next.isFolder()) {
-                        items.add(new GoToDefaultItem(next, getCurrentOffset(next)));
-                    }
+                    items.add(new GoToDefaultItem(next, getCurrentOffset(next)));
                     break;
                 default:
                     // do nothing
                     break;
             }
         }
-        if (!items.isEmpty()) {
-            sort(items);
-            return items;
-        }
-        return Collections.emptyList();
+        return items;
     }
 
     private String getTestCaseClassName(FileObject fo) {
+        PhpModule phpModule = getPhpModule();
+        if (phpModule == null) {
+            return ""; // NOI18N
+        }
         CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
         if (cakeModule != null) {
             return cakeModule.getTestCaseClassName(fo);
         }
         return ""; // NOI18N
     }
+
+    //~ Inner classes
+    /**
+     * Categories of items in the order of getAll().
+     */
+    private enum CATEGORY {
+
+        CONTROLLER {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getControllers();
+            }
+        },
+        MODEL {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getModels();
+            }
+        },
+        VIEW {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getViews();
+            }
+        },
+        COMPONENT {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getComponents();
+            }
+        },
+        HELPER {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getHelpers();
+            }
+        },
+        BEHAVIOR {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getBehaviors();
+            }
+        },
+        TEST_CASE {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getTestCases();
+            }
+        },
+        FIXTURE {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getFixtrues();
+            }
+        },
+        USAGE {
+            @Override
+            List<GoToItem> getItems(CakePhpGoToStatus status) {
+                return status.getUsages();
+            }
+        };
+
+        abstract List<GoToItem> getItems(CakePhpGoToStatus status);
+    }
 }
@@ -41,19 +41,32 @@
  */
 package org.cakephp.netbeans.ui.actions.gotos.statuses;
 
+import javax.swing.text.Document;
+import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.util.CakePhpUtils;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.netbeans.modules.parsing.api.Source;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.openide.filesystems.FileObject;
 
 /**
+ * Create {@link CakePhpGoToStatus} for a file and a caret position.
+ *
+ * Each status is a new immutable object, so statuses for different files can
+ * be created at the same time in any thread. Only the last status is kept, and
+ * it is reused while the file and the caret position are the same, the file
+ * and its opened document are not changed, and no php or ctp file of the
+ * project is saved, created or deleted (items depend on other files).
  *
  * @author junichi11
  */
 public final class CakePhpGoToStatusFactory {
 
-    private FileObject targetFile;
-    private int offset;
-    private CakePhpGoToStatus status;
+    private static final long NO_DOCUMENT = -1L;
+    private static final int NO_REVISION = -1;
     private static final CakePhpGoToStatusFactory INSTANCE = new CakePhpGoToStatusFactory();
+    // guarded by this
+    private CacheEntry lastEntry;
 
     private CakePhpGoToStatusFactory() {
     }
@@ -63,42 +76,91 @@ public final class CakePhpGoToStatusFactory {
     }
 
     /**
-     * Create object for each file type.
+     * Create object for each file type. It can be called in any thread.
      *
      * @param targetFile
      * @param offset
      * @return
      */
     public CakePhpGoToStatus create(FileObject targetFile, int offset) {
-        if (this.targetFile == targetFile && this.offset == offset) {
-            if (status != null) {
-                return status;
+        long lastModified = targetFile.lastModified().getTime();
+        long documentVersion = getDocumentVersion(targetFile);
+        // get it before scanning, changes while scanning are reflected next time
+        int contentRevision = getContentRevision(targetFile);
+        synchronized (this) {
+            CacheEntry entry = lastEntry;
+            if (entry != null && entry.status.getCurrentFile().equals(targetFile) && entry.offset == offset && entry.lastModified == lastModified
+                    && entry.documentVersion == documentVersion && entry.contentRevision == contentRevision) {
+                return entry.status;
             }
         }
-        this.targetFile = targetFile;
-        this.offset = offset;
+
+        // scan without the lock, the status is not shared until it is scanned
+        CakePhpGoToStatus status = newStatus(targetFile, offset);
+        status.scan();
+        synchronized (this) {
+            lastEntry = new CacheEntry(status, offset, lastModified, documentVersion, contentRevision);
+        }
+        return status;
+    }
+
+    private static int getContentRevision(FileObject targetFile) {
+        PhpModule phpModule = PhpModule.forFileObject(targetFile);
+        if (phpModule == null) {
+            return NO_REVISION;
+        }
+        CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
+        if (cakeModule == null) {
+            return NO_REVISION;
+        }
+        return cakeModule.getContentRevision();
+    }
+
+    private static long getDocumentVersion(FileObject targetFile) {
+        Source source = Source.create(targetFile);
+        Document document = source != null ? source.getDocument(false) : null;
+        if (document == null) {
+            return NO_DOCUMENT;
+        }
+        return DocumentUtilities.getDocumentVersion(document);
+    }
+
+    private static CakePhpGoToStatus newStatus(FileObject targetFile, int offset) {
         if (CakePhpUtils.isController(targetFile)) {
-            status = CakePhpControllerGoToStatus.getInstance();
+            return new CakePhpControllerGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isModel(targetFile)) {
-            status = CakePhpModelGoToStatus.getInstance();
+            return new CakePhpModelGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isCtpFile(targetFile)) {
-            status = CakePhpViewGoToStatus.getInstance();
+            return new CakePhpViewGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isComponent(targetFile)) {
-            status = CakePhpComponentGoToStatus.getInstance();
+            return new CakePhpComponentGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isBehavior(targetFile)) {
-            status = CakePhpBehaviorGoToStatus.getInstance();
+            return new CakePhpBehaviorGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isHelper(targetFile)) {
-            status = CakePhpHelperGoToStatus.getInstance();
+            return new CakePhpHelperGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isTest(targetFile)) {
-            status = CakePhpTestCaseGoToStatus.getInstance();
+            return new CakePhpTestCaseGoToStatus(targetFile, offset);
         } else if (CakePhpUtils.isFixture(targetFile)) {
-            status = CakePhpFixtureGoToStatus.getInstance();
-        } else {
-            status = CakePhpDummyGoToStatus.getInstance();
+            return new CakePhpFixtureGoToStatus(targetFile, offset);
+        }
+        return new CakePhpDummyGoToStatus(targetFile, offset);
+    }
+
+    //~ Inner classes
+    private static final class CacheEntry {
+
+        private final CakePhpGoToStatus status;
+        private final int offset;
+        private final long lastModified;
+        private final long documentVersion;
+        private final int contentRevision;
+
+        CacheEntry(CakePhpGoToStatus status, int offset, long lastModified, long documentVersion, int contentRevision) {
+            this.status = status;
+            this.offset = offset;
+            this.lastModified = lastModified;
+            this.documentVersion = documentVersion;
+            this.contentRevision = contentRevision;
         }
-        status.setCurrentFile(targetFile);
-        status.setOffset(offset);
-        status.scan();
-        return status;
     }
 }
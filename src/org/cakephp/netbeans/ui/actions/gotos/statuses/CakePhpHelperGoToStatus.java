@@ -42,6 +42,7 @@
 package org.cakephp.netbeans.ui.actions.gotos.statuses;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -65,23 +66,13 @@ public class CakePhpHelperGoToStatus extends CakePhpGoToStatus {
 
     private final List<GoToItem> helpers = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpHelperGoToStatus.class.getName());
-    private static CakePhpHelperGoToStatus INSTANCE = new CakePhpHelperGoToStatus();
 
-    private CakePhpHelperGoToStatus() {
-    }
-
-    public static CakePhpHelperGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset() {
-        helpers.clear();
+    CakePhpHelperGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject currentFile, int offset) {
-        reset();
-
         // scan
         final CakePhpHelperVisitor visitor = new CakePhpHelperVisitor(currentFile);
         try {
@@ -99,7 +90,7 @@ public class CakePhpHelperGoToStatus extends CakePhpGoToStatus {
 
     @Override
     public List<GoToItem> getHelpers() {
-        return helpers;
+        return Collections.unmodifiableList(helpers);
     }
 
     @Override
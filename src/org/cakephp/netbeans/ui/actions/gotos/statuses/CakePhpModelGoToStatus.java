@@ -43,17 +43,18 @@ package org.cakephp.netbeans.ui.actions.gotos.statuses;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.cakephp.netbeans.editor.visitors.CakePhpControllerVisitor;
+import org.cakephp.netbeans.editor.visitors.CakePhpControllerInfo;
 import org.cakephp.netbeans.editor.visitors.CakePhpFixtureVisitor;
 import org.cakephp.netbeans.editor.visitors.CakePhpModelVisitor;
 import org.cakephp.netbeans.editor.visitors.CakePhpTestCaseVisitor;
 import org.cakephp.netbeans.module.CakePhpModule;
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
 import org.cakephp.netbeans.ui.GoToBehaviorItem;
 import org.cakephp.netbeans.ui.GoToControllerItem;
 import org.cakephp.netbeans.ui.GoToFixtureItem;
@@ -89,24 +90,13 @@ public class CakePhpModelGoToStatus extends CakePhpGoToStatus {
     private final List<GoToItem> fixtures = new ArrayList<GoToItem>();
     private final List<GoToItem> behaviors = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpModelGoToStatus.class.getName());
-    private static CakePhpModelGoToStatus INSTANCE = new CakePhpModelGoToStatus();
 
-    private CakePhpModelGoToStatus() {
-    }
-
-    public static CakePhpModelGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset() {
-        models.clear();
-        fixtures.clear();
-        behaviors.clear();
+    CakePhpModelGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject currentFile, int offset) {
-        reset();
         final Set<FileObject> fixtureFiles = new HashSet<FileObject>();
 
         // scan
@@ -164,21 +154,12 @@ public class CakePhpModelGoToStatus extends CakePhpGoToStatus {
         // XXX more search?
         // only app directory
         CakePhpModule cakeModule = CakePhpModule.forPhpModule(getPhpModule());
-        FileObject controllerDirectory = cakeModule.getControllerDirectory(CakePhpModule.DIR_TYPE.APP);
+        List<FileObject> appControllers = cakeModule.getArtifactIndex().getFiles(DIR_TYPE.APP, null, FILE_TYPE.CONTROLLER);
 
         // scan controllers
         final Set<FileObject> controllers = new HashSet<FileObject>();
-        Enumeration<? extends FileObject> children = controllerDirectory.getChildren(true);
-        while (children.hasMoreElements()) {
-            final FileObject fileObject = children.nextElement();
-            if (fileObject == null || fileObject.isFolder() || !CakePhpUtils.isController(fileObject)) {
-                continue;
-            }
-            try {
-                scanController(fileObject, controllers);
-            } catch (ParseException ex) {
-                LOGGER.log(Level.WARNING, null, ex);
-            }
+        for (FileObject fileObject : appControllers) {
+            scanController(fileObject, controllers);
         }
 
         // add GoToItem
@@ -191,34 +172,30 @@ public class CakePhpModelGoToStatus extends CakePhpGoToStatus {
         return controllerItems;
     }
 
-    private void scanController(final FileObject fileObject, final Set<FileObject> controllers) throws ParseException {
-        ParserManager.parse(Collections.singleton(Source.create(fileObject)), new UserTask() {
-            @Override
-            public void run(ResultIterator resultIterator) throws Exception {
-                ParserResult parseResult = (ParserResult) resultIterator.getParserResult();
-                CakePhpControllerVisitor visitor = new CakePhpControllerVisitor(fileObject);
-                visitor.scan(Utils.getRoot(parseResult));
-                List<FileObject> modelFiles = visitor.getModels();
-                if (modelFiles.contains(getCurrentFile())) {
-                    controllers.add(fileObject);
-                }
-            }
-        });
+    private void scanController(final FileObject fileObject, final Set<FileObject> controllers) {
+        CakePhpControllerInfo controllerInfo = CakePhpControllerInfo.forController(fileObject);
+        if (controllerInfo == null) {
+            return;
+        }
+        List<FileObject> modelFiles = controllerInfo.getFiles(FILE_TYPE.MODEL, CakePhpControllerInfo.CONTROLLER_FIELD_NAMES);
+        if (modelFiles.contains(getCurrentFile())) {
+            controllers.add(fileObject);
+        }
     }
 
     @Override
     public List<GoToItem> getModels() {
-        return models;
+        return Collections.unmodifiableList(models);
     }
 
     @Override
     public List<GoToItem> getBehaviors() {
-        return behaviors;
+        return Collections.unmodifiableList(behaviors);
     }
 
     @Override
     public List<GoToItem> getFixtrues() {
-        return fixtures;
+        return Collections.unmodifiableList(fixtures);
     }
 
     @Override
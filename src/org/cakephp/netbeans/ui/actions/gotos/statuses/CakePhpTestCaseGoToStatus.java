@@ -83,16 +83,12 @@ public class CakePhpTestCaseGoToStatus extends CakePhpGoToStatus {
     private FILE_TYPE fileType = FILE_TYPE.NONE;
     private final List<GoToItem> fixtures = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpTestCaseGoToStatus.class.getName());
-    private static CakePhpTestCaseGoToStatus INSTANCE = new CakePhpTestCaseGoToStatus();
 
-    private CakePhpTestCaseGoToStatus() {
+    CakePhpTestCaseGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
-    public static CakePhpTestCaseGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset(FileObject currentFile) {
+    private void setFileType(FileObject currentFile) {
         String className = getTestCaseClassName(currentFile);
         if (className.endsWith("ControllerTest")) { // NOI18N
             fileType = FILE_TYPE.CONTROLLER;
@@ -107,12 +103,11 @@ public class CakePhpTestCaseGoToStatus extends CakePhpGoToStatus {
         } else {
             fileType = FILE_TYPE.NONE;
         }
-        fixtures.clear();
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject testCase, int offset) {
-        reset(testCase);
+        setFileType(testCase);
 
         // scan
         final CakePhpTestCaseVisitor visitor = new CakePhpTestCaseVisitor(testCase);
@@ -171,7 +166,7 @@ public class CakePhpTestCaseGoToStatus extends CakePhpGoToStatus {
 
     @Override
     public List<GoToItem> getFixtrues() {
-        return fixtures;
+        return Collections.unmodifiableList(fixtures);
     }
 
     @Override
@@ -49,10 +49,13 @@ import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.cakephp.netbeans.editor.visitors.CakePhpControllerVisitor;
+import org.cakephp.netbeans.editor.visitors.CakePhpControllerInfo;
+import org.cakephp.netbeans.editor.visitors.CakePhpFieldsVisitor;
 import org.cakephp.netbeans.editor.visitors.CakePhpViewVisitor;
 import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.cakephp.netbeans.module.ViewReferenceIndex;
 import org.cakephp.netbeans.ui.GoToControllerItem;
 import org.cakephp.netbeans.ui.GoToHelperItem;
 import org.cakephp.netbeans.ui.GoToItem;
@@ -64,7 +67,6 @@ import org.netbeans.modules.php.api.editor.PhpClass;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.api.util.StringUtils;
 import org.openide.filesystems.FileObject;
-import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 
 /**
@@ -80,31 +82,24 @@ public class CakePhpViewGoToStatus extends CakePhpGoToStatus {
 
     private static final String ELEMENTS = "Elements"; // NOI18N
     private static final String LAYOUTS = "Layouts"; // NOI18N
-    private final Set<FileObject> views = new HashSet<FileObject>();
     private final List<GoToItem> viewItems = new ArrayList<GoToItem>();
     private final Set<GoToItem> elementItems = new HashSet<GoToItem>();
     private final Set<GoToItem> extendItems = new HashSet<GoToItem>();
     private FileObject caretPositionElement;
     private FileObject caretPositionExtend;
-    private final List<GoToItem> controllerItems = new ArrayList<GoToItem>();
     private final List<GoToItem> helperItems = new ArrayList<GoToItem>();
     private static final Logger LOGGER = Logger.getLogger(CakePhpViewGoToStatus.class.getName());
     private String caretPositionElementPath = ""; // NOI18N
     private String caretPositionExtendPath = ""; // NOI18N
-    private static CakePhpViewGoToStatus INSTANCE = new CakePhpViewGoToStatus();
-    private DIR_TYPE dirType;
+    private DIR_TYPE dirType = DIR_TYPE.APP;
     private boolean isInElement;
     private boolean isInLayout;
 
-    private CakePhpViewGoToStatus() {
-        this.dirType = DIR_TYPE.APP;
+    CakePhpViewGoToStatus(FileObject currentFile, int offset) {
+        super(currentFile, offset);
     }
 
-    public static CakePhpViewGoToStatus getInstance() {
-        return INSTANCE;
-    }
-
-    private void reset(PhpModule phpModule, FileObject view) {
+    private void setFileType(PhpModule phpModule, FileObject view) {
         CakePhpModule cakeModule = CakePhpModule.forPhpModule(phpModule);
         if (cakeModule != null) {
             dirType = cakeModule.getCurrentDirectoryType(view);
@@ -112,37 +107,22 @@ public class CakePhpViewGoToStatus extends CakePhpGoToStatus {
             isInLayout = cakeModule.isLayout(view);
         } else {
             dirType = DIR_TYPE.NONE;
-            isInElement = false;
-            isInLayout = false;
         }
-        views.clear();
-        viewItems.clear();
-        elementItems.clear();
-        extendItems.clear();
-        controllerItems.clear();
-        helperItems.clear();
-        caretPositionElement = null;
-        caretPositionExtend = null;
-        caretPositionElementPath = ""; // NOI18N
-        caretPositionExtendPath = ""; // NOI18N
-
     }
 
     @Override
     protected void scan(PhpModule phpModule, FileObject view, int offset) {
-        reset(phpModule, view);
+        setFileType(phpModule, view);
         final FileObject controller = getController();
 
         // scan
         // controller
         if (controller != null) {
-            final CakePhpControllerVisitor controllerVisitor = new CakePhpControllerVisitor(view);
-            try {
-                scanController(controllerVisitor, controller);
-            } catch (ParseException ex) {
-                Exceptions.printStackTrace(ex);
+            CakePhpControllerInfo controllerInfo = CakePhpControllerInfo.forController(controller);
+            if (controllerInfo != null) {
+                Set<String> fieldNames = CakePhpUtils.isView(view) ? Collections.singleton(CakePhpFieldsVisitor.HELPERS) : Collections.<String>emptySet();
+                setHelpers(controllerInfo.getFiles(FILE_TYPE.HELPER, fieldNames));
             }
-            setHelpers(controllerVisitor.getHelpers());
             // sort
             sort(helperItems);
         }
@@ -164,13 +144,11 @@ public class CakePhpViewGoToStatus extends CakePhpGoToStatus {
             caretPositionExtendPath = viewVisitor.getExtendPathForCaretPosition();
             setElements(cakeModule, viewVisitor.getElementPaths());
             setExtends(cakeModule, viewVisitor.getExtendPaths());
+            mergeViewItems();
+            sort(viewItems);
         }
     }
 
-    private void scanController(CakePhpControllerVisitor visitor, FileObject controller) throws ParseException {
-        scan(visitor, controller);
-    }
-
     private void scanView(CakePhpViewVisitor visitor, FileObject view) throws ParseException {
         scan(visitor, view);
     }
@@ -265,16 +243,11 @@ public class CakePhpViewGoToStatus extends CakePhpGoToStatus {
             return Collections.singletonList((GoToItem) new GoToViewItem(caretPositionExtend, getCurrentOffset(caretPositionElement)));
         }
 
-        if (!viewItems.isEmpty()) {
-            return viewItems;
-        }
-
-        mergeViewItems();
-        sort(viewItems);
-        return viewItems;
+        return Collections.unmodifiableList(viewItems);
     }
 
     private void mergeViewItems() {
+        Set<FileObject> views = new HashSet<FileObject>();
         elementItems.addAll(extendItems);
         for (GoToItem item : elementItems) {
             FileObject fileObject = item.getFileObject();
@@ -288,7 +261,21 @@ public class CakePhpViewGoToStatus extends CakePhpGoToStatus {
 
     @Override
     public List<GoToItem> getHelpers() {
-        return helperItems;
+        return Collections.unmodifiableList(helperItems);
+    }
+
+    @Override
+    public List<GoToItem> getUsages() {
+        // the index is always up to date, so it is not kept
+        CakePhpModule cakeModule = CakePhpModule.forPhpModule(getPhpModule());
+        if (!isInElement || cakeModule == null) {
+            return Collections.emptyList();
+        }
+        List<GoToItem> items = new ArrayList<GoToItem>();
+        for (ViewReferenceIndex.Usage usage : cakeModule.getViewReferenceIndex().getElementUsages(getCurrentFile())) {
+            items.add(new GoToViewItem(usage.getFile(), usage.getOffset()));
+        }
+        return items;
     }
 
     @Override
@@ -306,7 +293,7 @@ public class CakePhpViewGoToStatus extends CakePhpGoToStatus {
         }
 
         // controller
-        controllerItems.addAll(getSmartControllers());
+        List<GoToItem> controllerItems = getSmartControllers();
         if (controllerItems.isEmpty()) {
             return getControllers();
         }
@@ -0,0 +1,314 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui.wizards;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openide.modules.Places;
+
+/**
+ * Tags of the CakePHP repository on GitHub. The tag list is stored to the
+ * cache directory with the ETag of the response, so it can be displayed
+ * immediately (also offline). It is refreshed with If-None-Match when it is
+ * older than the TTL.
+ *
+ * @author junichi11
+ */
+final class GitHubTagsCache {
+
+    private static final Logger LOGGER = Logger.getLogger(GitHubTagsCache.class.getName());
+    private static final String GITHUB_API_REPOS_TAGS = "https://api.github.com/repos/cakephp/cakephp/tags"; // NOI18N
+    private static final String CACHE_DIRECTORY = "cakephp/github"; // NOI18N
+    private static final String CACHE_FILE = "tags"; // NOI18N
+    private static final long DEFAULT_TTL = 60L * 60 * 1000;
+    private static final int TIMEOUT = 10000;
+    private static final int FORMAT_VERSION = 1;
+    private static volatile GitHubTagsCache INSTANCE;
+    private final String url;
+    private final File cacheFile;
+    private final long ttl;
+    // tag name -> zipball url, sorted by version (newest first)
+    private Map<String, String> tags;
+    private String etag;
+    private long lastChecked;
+    private boolean loaded;
+
+    GitHubTagsCache(String url, File cacheFile, long ttl) {
+        this.url = url;
+        this.cacheFile = cacheFile;
+        this.ttl = ttl;
+    }
+
+    static GitHubTagsCache getDefault() {
+        GitHubTagsCache cache = INSTANCE;
+        if (cache == null) {
+            synchronized (GitHubTagsCache.class) {
+                cache = INSTANCE;
+                if (cache == null) {
+                    File file = new File(Places.getCacheSubdirectory(CACHE_DIRECTORY), CACHE_FILE);
+                    cache = new GitHubTagsCache(GITHUB_API_REPOS_TAGS, file, DEFAULT_TTL);
+                    INSTANCE = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Get cached tags. The network is not used.
+     *
+     * @return tag name and zipball url, sorted by version (newest first).
+     * empty map if tags have never been loaded.
+     */
+    synchronized Map<String, String> getCachedTags() {
+        load();
+        return tags;
+    }
+
+    /**
+     * Check whether the cached tags should be refreshed.
+     *
+     * @return true if there are no cached tags or they are older than TTL,
+     * otherwise false
+     */
+    synchronized boolean isExpired() {
+        load();
+        return tags.isEmpty() || System.currentTimeMillis() - lastChecked >= ttl;
+    }
+
+    /**
+     * Refresh tags. If tags are not modified on GitHub, cached tags are
+     * returned. Don't call this method in the EDT.
+     *
+     * @return tag name and zipball url, sorted by version (newest first)
+     * @throws IOException if tags can't be loaded
+     */
+    Map<String, String> refresh() throws IOException {
+        String currentEtag;
+        synchronized (this) {
+            load();
+            currentEtag = tags.isEmpty() ? null : etag;
+        }
+
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        if (currentEtag != null) {
+            connection.setRequestProperty("If-None-Match", currentEtag); // NOI18N
+        }
+        if (connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            synchronized (this) {
+                lastChecked = System.currentTimeMillis();
+                store();
+                return tags;
+            }
+        }
+
+        Map<String, String> newTags;
+        try {
+            newTags = parse(read(connection));
+        } catch (JSONException ex) {
+            throw new IOException(ex.getMessage());
+        }
+        synchronized (this) {
+            tags = newTags;
+            etag = connection.getHeaderField("ETag"); // NOI18N
+            lastChecked = System.currentTimeMillis();
+            store();
+            return tags;
+        }
+    }
+
+    private static String read(URLConnection connection) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8")); // NOI18N
+        try {
+            StringBuilder contents = new StringBuilder();
+            char[] buffer = new char[8192];
+            int length;
+            while ((length = reader.read(buffer)) != -1) {
+                contents.append(buffer, 0, length);
+            }
+            return contents.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static Map<String, String> parse(String contents) throws JSONException {
+        JSONArray json = new JSONArray(contents);
+        String[] tagsArray = new String[json.length()];
+        Map<String, String> urls = new HashMap<String, String>();
+        for (int i = 0; i < json.length(); i++) {
+            JSONObject jObject = (JSONObject) json.get(i);
+            tagsArray[i] = jObject.getString("name"); // NOI18N
+            urls.put(jObject.getString("name"), jObject.getString("zipball_url")); // NOI18N
+        }
+        // sort only once, the sorted list is stored
+        Arrays.sort(tagsArray, new ComparatorImpl());
+        Map<String, String> sorted = new LinkedHashMap<String, String>();
+        for (String tag : tagsArray) {
+            sorted.put(tag, urls.get(tag));
+        }
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    //~ Persistence
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        tags = Collections.emptyMap();
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (input.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+                String storedEtag = input.readUTF();
+                long storedTime = input.readLong();
+                int size = input.readInt();
+                Map<String, String> storedTags = new LinkedHashMap<String, String>();
+                for (int i = 0; i < size; i++) {
+                    String name = input.readUTF();
+                    storedTags.put(name, input.readUTF());
+                }
+                etag = storedEtag.isEmpty() ? null : storedEtag;
+                lastChecked = storedTime;
+                tags = Collections.unmodifiableMap(storedTags);
+            } finally {
+                input.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+    }
+
+    private void store() {
+        try {
+            cacheFile.getParentFile().mkdirs();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            try {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(etag == null ? "" : etag); // NOI18N
+                output.writeLong(lastChecked);
+                output.writeInt(tags.size());
+                for (Map.Entry<String, String> entry : tags.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeUTF(entry.getValue());
+                }
+            } finally {
+                output.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+    }
+
+    //~ Inner classes
+    private static class ComparatorImpl implements Comparator<String> {
+
+        public ComparatorImpl() {
+        }
+        private static final String NUMBER_REGEX = "[0-9]+"; // NOI18N
+        private static final String SPLIT_REGEX = "[., -]"; // NOI18N
+
+        @Override
+        public int compare(String a, String b) {
+            String[] aArray = a.split(SPLIT_REGEX);
+            String[] bArray = b.split(SPLIT_REGEX);
+            int aLength = aArray.length;
+            int bLength = bArray.length;
+            for (int i = 0; i < aLength; i++) {
+                if (i == aLength - 1) {
+                    if ((bLength - aLength) < 0) {
+                        return -1;
+                    }
+                }
+                String aString = aArray[i];
+                String bString = bArray[i];
+                if (aString.matches(NUMBER_REGEX) && bString.matches(NUMBER_REGEX)) {
+                    try {
+                        Integer aInt = Integer.parseInt(aString);
+                        Integer bInt = Integer.parseInt(bString);
+                        if (aInt == bInt) {
+                            continue;
+                        } else {
+                            return bInt - aInt;
+                        }
+                    } catch (NumberFormatException ex) {
+                        return 1;
+                    }
+                } else {
+                    return b.compareTo(a);
+                }
+            }
+            return 1;
+        }
+    }
+}
@@ -44,17 +44,21 @@ package org.cakephp.netbeans.ui.wizards;
 import java.awt.Component;
 import java.awt.Dialog;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.JComponent;
 import javax.swing.SwingUtilities;
 import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.options.CakePhpPlugin;
 import org.cakephp.netbeans.ui.actions.ClearCacheAction;
-import org.cakephp.netbeans.util.CakeDefaultZipEntryFilter;
-import org.cakephp.netbeans.util.CakePhpFileUtils;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.spi.framework.actions.BaseAction;
 import org.openide.*;
@@ -63,7 +67,9 @@ import org.openide.awt.ActionID;
 import org.openide.awt.ActionRegistration;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
+import org.openide.util.Cancellable;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 
 // An example action demonstrating how the wizard could be called from within
 // your code. You can move the code below wherever you need, or register an action:
@@ -73,6 +79,7 @@ import org.openide.util.NbBundle;
 public final class InstallPluginsWizardAction extends BaseAction implements ActionListener {
 
     private static final String LF = "\n";
+    private static final int PARALLEL_INSTALLS = 3;
     private static final long serialVersionUID = 4405963698419409213L;
     private static InstallPluginsWizardAction INSTANCE = new InstallPluginsWizardAction();
 
@@ -83,6 +90,15 @@ public final class InstallPluginsWizardAction extends BaseAction implements Acti
         return INSTANCE;
     }
 
+    private static void appendStatus(final InstallStatusDisplayPanel panel, final String status) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                panel.getDisplayStatusTextArea().append(status);
+            }
+        });
+    }
+
     @Override
     protected String getFullName() {
         return NbBundle.getMessage(ClearCacheAction.class, "LBL_CakePhpAction", getPureName());
@@ -94,7 +110,9 @@ public final class InstallPluginsWizardAction extends BaseAction implements Acti
     }
 
     @NbBundle.Messages({
-        "LBL_InstallPluginsTitle=CakePHP Install Plugins"
+        "LBL_InstallPluginsTitle=CakePHP Install Plugins",
+        "# {0} - plugin name",
+        "LBL_InstallPluginsProgress=Installing {0}"
     })
     @Override
     protected void actionPerformed(PhpModule pm) {
@@ -141,38 +159,79 @@ public final class InstallPluginsWizardAction extends BaseAction implements Acti
             DialogDescriptor installStatusDescriptor = new DialogDescriptor(installStatusDisplayPanel, "Install status");
             final Dialog installStatusDialog = DialogDisplayer.getDefault().createDialog(installStatusDescriptor);
             installStatusDialog.setModal(false);
+
+            final PluginInstaller installer = new PluginInstaller(FileUtil.toFile(installDirectory), PARALLEL_INSTALLS, new PluginInstaller.Listener() {
+                private final Map<String, ProgressHandle> handles = new ConcurrentHashMap<String, ProgressHandle>();
+
+                @Override
+                public void started(String name, Cancellable cancellable) {
+                    ProgressHandle handle = ProgressHandleFactory.createHandle(Bundle.LBL_InstallPluginsProgress(name), cancellable);
+                    handles.put(name, handle);
+                    handle.start();
+                }
+
+                @Override
+                public void progress(String name, String text) {
+                    ProgressHandle handle = handles.get(name);
+                    if (handle != null) {
+                        handle.progress(text);
+                    }
+                }
+
+                @Override
+                public void finished(String name) {
+                    finishProgress(name);
+                    appendStatus(installStatusDisplayPanel, name + " : Done" + LF); // NOI18N
+                }
+
+                @Override
+                public void failed(String name, IOException exception) {
+                    finishProgress(name);
+                    synchronized (errors) {
+                        errors.append(name).append(LF);
+                    }
+                    appendStatus(installStatusDisplayPanel, name + " : Error" + LF); // NOI18N
+                }
+
+                @Override
+                public void cancelled(String name) {
+                    finishProgress(name);
+                    appendStatus(installStatusDisplayPanel, name + " : Cancelled" + LF); // NOI18N
+                }
+
+                private void finishProgress(String name) {
+                    ProgressHandle handle = handles.remove(name);
+                    if (handle != null) {
+                        handle.finish();
+                    }
+                }
+            });
+
+            // closing the status dialog cancels the installation
+            installStatusDialog.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    installer.cancel();
+                }
+            });
             installStatusDialog.setVisible(true);
 
-            new Thread(new Runnable() {
+            for (CakePhpPlugin plugin : plugins) {
+                if (plugin.isInstall()) {
+                    installer.install(plugin.getName(), plugin.getUrl());
+                }
+            }
+
+            RequestProcessor.getDefault().post(new Runnable() {
                 @Override
                 public void run() {
-                    // unzip
-                    for (CakePhpPlugin plugin : plugins) {
-                        if (plugin.isInstall()) {
-                            String pluginName = plugin.getName();
-                            // set status
-                            installStatusDisplayPanel.getDisplayStatusTextArea().append(pluginName + " : ");
-                            try {
-                                FileObject pluginDirectory = installDirectory.getFileObject(pluginName);
-                                if (pluginDirectory == null) {
-                                    pluginDirectory = installDirectory.createFolder(pluginName);
-                                }
-
-                                // unzip
-                                if (pluginDirectory != null) {
-                                    CakePhpFileUtils.unzip(plugin.getUrl(), FileUtil.toFile(pluginDirectory), new CakeDefaultZipEntryFilter());
-                                    installStatusDisplayPanel.getDisplayStatusTextArea().append("Done" + LF);
-                                } else {
-                                    installStatusDisplayPanel.getDisplayStatusTextArea().append("Can't find plugin directory" + LF);
-                                }
-                            } catch (IOException ex) {
-                                errors.append(pluginName).append(LF);
-                                installStatusDisplayPanel.getDisplayStatusTextArea().append("Error" + LF);
-                            }
-                        }
-                    }
+                    installer.waitFinished();
+                    installDirectory.refresh();
 
-                    String errorMessage = errors.toString();
+                    String errorMessage;
+                    synchronized (errors) {
+                        errorMessage = errors.toString();
+                    }
                     NotifyDescriptor d = null;
                     if (!errorMessage.isEmpty()) {
                         //display error dialog
@@ -181,7 +240,9 @@ public final class InstallPluginsWizardAction extends BaseAction implements Acti
                         // display complete dialog
                         d = new NotifyDescriptor.Message("Install Complete!", NotifyDescriptor.INFORMATION_MESSAGE);
                     }
-                    DialogDisplayer.getDefault().notifyLater(d);
+                    if (!installer.isCancelled()) {
+                        DialogDisplayer.getDefault().notifyLater(d);
+                    }
 
                     SwingUtilities.invokeLater(new Runnable() {
                         @Override
@@ -191,7 +252,7 @@ public final class InstallPluginsWizardAction extends BaseAction implements Acti
                         }
                     });
                 }
-            }).start();
+            });
         }
     }
 }
@@ -46,25 +46,20 @@
  */
 package org.cakephp.netbeans.ui.wizards;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.*;
+import javax.swing.event.ChangeListener;
 import org.cakephp.netbeans.options.CakePhpOptions;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.netbeans.modules.php.api.util.StringUtils;
+import org.openide.util.ChangeSupport;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -72,19 +67,22 @@ import org.openide.util.NbBundle;
  */
 public class NewProjectConfigurationPanel extends javax.swing.JPanel {
 
-    private static final String GITHUB_API_REPOS_TAGS = "https://api.github.com/repos/cakephp/cakephp/tags"; // NOI18N
     private static final long serialVersionUID = 7874450246517944114L;
-    private Map<String, String> tagsMap = new HashMap<String, String>();
+    private volatile Map<String, String> tagsMap = Collections.emptyMap();
     private String errorMessage;
     private boolean isNetworkError = false;
+    private boolean loading = false;
+    private final ChangeSupport changeSupport = new ChangeSupport(this);
     private static final Logger LOGGER = Logger.getLogger(NewProjectConfigurationPanel.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(NewProjectConfigurationPanel.class.getName());
 
     /**
      * Creates new form NewProjectConfigurationPanel
      */
     @NbBundle.Messages({
         "LBL_ConnectErrorMessage=Is not connected to the network.",
-        "LBL_NewProjectWizardErrorMessage=Please, connect to the network or set CakePHP local file option"
+        "LBL_NewProjectWizardErrorMessage=Please, connect to the network or set CakePHP local file option",
+        "LBL_LoadingTagsMessage=Loading CakePHP versions..."
     })
     public NewProjectConfigurationPanel() {
         initComponents();
@@ -92,34 +90,63 @@ public class NewProjectConfigurationPanel extends javax.swing.JPanel {
         unzipFileNameTextField.setText(""); // NOI18N
         setLocalPathLabel();
 
-        try {
-            // Get JSON
-            URL tagsJson = new URL(GITHUB_API_REPOS_TAGS);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(tagsJson.openStream(), "UTF-8")); // NOI18N
-            StringBuilder contents = new StringBuilder();
-            String str;
-            while ((str = reader.readLine()) != null) {
-                contents.append(str);
-            }
+        // display cached tags immediately, then refresh them in background
+        GitHubTagsCache tagsCache = GitHubTagsCache.getDefault();
+        setTags(tagsCache.getCachedTags());
+        if (tagsCache.isExpired()) {
+            refreshTags(tagsCache);
+        }
+    }
 
-            JSONArray json = new JSONArray(contents.toString());
-            String[] tagsArray = new String[json.length()];
-            for (int i = 0; i < json.length(); i++) {
-                JSONObject jObject = (JSONObject) json.get(i);
-                tagsArray[i] = jObject.getString("name"); // NOI18N
-                tagsMap.put(jObject.getString("name"), jObject.getString("zipball_url")); // NOI18N
+    private void refreshTags(final GitHubTagsCache tagsCache) {
+        loading = true;
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                Map<String, String> tags = null;
+                try {
+                    tags = tagsCache.refresh();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, Bundle.LBL_ConnectErrorMessage());
+                }
+                final Map<String, String> newTags = tags;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        loading = false;
+                        if (newTags != null) {
+                            setTags(newTags);
+                        } else if (tagsMap.isEmpty()) {
+                            // offline and nothing cached
+                            isNetworkError = true;
+                        }
+                        setError();
+                        changeSupport.fireChange();
+                    }
+                });
             }
-            Arrays.sort(tagsArray, new ComparatorImpl());
-            versionList.setListData(tagsArray);
+        });
+    }
+
+    private void setTags(Map<String, String> tags) {
+        Object selected = versionList.getSelectedValue();
+        tagsMap = tags;
+        versionList.setListData(tags.keySet().toArray(new String[tags.size()]));
+        if (selected != null && tags.containsKey(selected.toString())) {
+            versionList.setSelectedValue(selected, true);
+        } else if (!tags.isEmpty()) {
             versionList.setSelectedIndex(0);
-        } catch (JSONException ex) {
-            LOGGER.log(Level.WARNING, null, ex);
-        } catch (IOException ex) {
-            isNetworkError = true;
-            LOGGER.log(Level.WARNING, Bundle.LBL_ConnectErrorMessage());
         }
     }
 
+    public void addChangeListener(ChangeListener listener) {
+        changeSupport.addChangeListener(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeSupport.removeChangeListener(listener);
+    }
+
     public Map<String, String> getTagsMap() {
         return tagsMap;
     }
@@ -224,7 +251,10 @@ public class NewProjectConfigurationPanel extends javax.swing.JPanel {
     }
 
     public void setError() {
-        if (isNetworkError) {
+        if (!isNetworkError) {
+            // wait for tags if there is no cached tag
+            errorMessage = loading && tagsMap.isEmpty() && unzipRadioButton.isSelected() ? Bundle.LBL_LoadingTagsMessage() : null;
+        } else {
             if (!isEnabledLocalPath()) {
                 errorMessage = Bundle.LBL_NewProjectWizardErrorMessage();
             } else {
@@ -495,46 +525,4 @@ public class NewProjectConfigurationPanel extends javax.swing.JPanel {
     private javax.swing.JLabel versionLabel;
     private javax.swing.JList versionList;
     // End of variables declaration//GEN-END:variables
-
-    //~ inner class
-    private static class ComparatorImpl implements Comparator<String> {
-
-        public ComparatorImpl() {
-        }
-        private static final String NUMBER_REGEX = "[0-9]+"; // NOI18N
-        private static final String SPLIT_REGEX = "[., -]"; // NOI18N
-
-        @Override
-        public int compare(String a, String b) {
-            String[] aArray = a.split(SPLIT_REGEX);
-            String[] bArray = b.split(SPLIT_REGEX);
-            int aLength = aArray.length;
-            int bLength = bArray.length;
-            for (int i = 0; i < aLength; i++) {
-                if (i == aLength - 1) {
-                    if ((bLength - aLength) < 0) {
-                        return -1;
-                    }
-                }
-                String aString = aArray[i];
-                String bString = bArray[i];
-                if (aString.matches(NUMBER_REGEX) && bString.matches(NUMBER_REGEX)) {
-                    try {
-                        Integer aInt = Integer.parseInt(aString);
-                        Integer bInt = Integer.parseInt(bString);
-                        if (aInt == bInt) {
-                            continue;
-                        } else {
-                            return bInt - aInt;
-                        }
-                    } catch (NumberFormatException ex) {
-                        return 1;
-                    }
-                } else {
-                    return b.compareTo(a);
-                }
-            }
-            return 1;
-        }
-    }
 }
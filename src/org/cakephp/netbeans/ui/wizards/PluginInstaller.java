@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui.wizards;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import org.cakephp.netbeans.util.CakeDefaultZipEntryFilter;
+import org.cakephp.netbeans.util.CakePhpFileUtils;
+import org.openide.util.Cancellable;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Install plugins in parallel. Each plugin is downloaded and unzipped in its
+ * own task, at most the specified number of tasks run at the same time.
+ * Listener methods are called from worker threads.
+ *
+ * @author junichi11
+ */
+final class PluginInstaller implements Cancellable {
+
+    private final File installDirectory;
+    private final Listener listener;
+    private final RequestProcessor requestProcessor;
+    private final List<RequestProcessor.Task> tasks = new ArrayList<RequestProcessor.Task>();
+    private volatile boolean cancelled;
+
+    PluginInstaller(File installDirectory, int parallelism, Listener listener) {
+        this.installDirectory = installDirectory;
+        this.listener = listener;
+        this.requestProcessor = new RequestProcessor(PluginInstaller.class.getName(), parallelism);
+    }
+
+    /**
+     * Add a plugin to install. It is installed to the directory which has
+     * the plugin name.
+     *
+     * @param name plugin name
+     * @param url zip URL
+     */
+    void install(final String name, final String url) {
+        RequestProcessor.Task task = requestProcessor.post(new Runnable() {
+            @Override
+            public void run() {
+                installPlugin(name, url);
+            }
+        });
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+    }
+
+    /**
+     * Wait until all plugins are installed, failed or cancelled.
+     */
+    void waitFinished() {
+        List<RequestProcessor.Task> copy;
+        synchronized (tasks) {
+            copy = new ArrayList<RequestProcessor.Task>(tasks);
+        }
+        for (RequestProcessor.Task task : copy) {
+            task.waitFinished();
+        }
+    }
+
+    /**
+     * Cancel installation. Plugins which are not started are not installed,
+     * running installations are stopped before the next zip entry.
+     */
+    @Override
+    public boolean cancel() {
+        cancelled = true;
+        return true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void installPlugin(final String name, String url) {
+        if (cancelled) {
+            listener.cancelled(name);
+            return;
+        }
+        listener.started(name, this);
+        try {
+            File pluginDirectory = new File(installDirectory, name);
+            if (!pluginDirectory.isDirectory() && !pluginDirectory.mkdirs()) {
+                throw new IOException("Can't create the plugin directory: " + pluginDirectory); // NOI18N
+            }
+            // the archive is cached, it is downloaded again only if it's modified
+            CakePhpFileUtils.unzip(url, null, pluginDirectory, new CakeDefaultZipEntryFilter() {
+                @Override
+                public boolean accept(ZipEntry entry) {
+                    if (cancelled) {
+                        throw new CancelledException();
+                    }
+                    return super.accept(entry);
+                }
+
+                @Override
+                public void setText(String text) {
+                    listener.progress(name, text);
+                }
+            });
+            listener.finished(name);
+        } catch (CancelledException ex) {
+            listener.cancelled(name);
+        } catch (IOException ex) {
+            if (cancelled) {
+                listener.cancelled(name);
+            } else {
+                listener.failed(name, ex);
+            }
+        }
+    }
+
+    //~ Inner classes
+    interface Listener {
+
+        /**
+         * Called before the plugin is downloaded.
+         *
+         * @param name plugin name
+         * @param cancellable cancels the whole installation
+         */
+        void started(String name, Cancellable cancellable);
+
+        /**
+         * Called while the plugin is unzipped.
+         *
+         * @param name plugin name
+         * @param text progress text (e.g. unzipped path)
+         */
+        void progress(String name, String text);
+
+        void finished(String name);
+
+        void failed(String name, IOException exception);
+
+        void cancelled(String name);
+    }
+
+    private static final class CancelledException extends RuntimeException {
+
+        private static final long serialVersionUID = -4785013870328349216L;
+    }
+}
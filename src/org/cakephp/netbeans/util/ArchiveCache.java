@@ -0,0 +1,387 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.modules.Places;
+
+/**
+ * Local cache of downloaded zip archives (CakePHP releases, plugins).
+ *
+ * Archives are stored by the SHA-1 of their content, so the same zip is kept
+ * once even if it is downloaded from different URLs. Each (URL, tag) key
+ * points to an archive. If a tag is specified, the archive is never
+ * downloaded again. Otherwise the server is asked with the ETag of the last
+ * response. If the server can't be reached, the cached archive is used.
+ * Archives which have not been used for the longest time are removed when
+ * the total size exceeds the limit. Archives which are returned by
+ * getArchive() are not removed until they are released.
+ *
+ * @author junichi11
+ */
+public final class ArchiveCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ArchiveCache.class.getName());
+    private static final String CACHE_DIRECTORY = "cakephp/archives"; // NOI18N
+    private static final String INDEX_FILE = "index.properties"; // NOI18N
+    private static final String ARCHIVE_EXT = ".zip"; // NOI18N
+    private static final String ARCHIVE_KEY = ".archive"; // NOI18N
+    private static final String ETAG_KEY = ".etag"; // NOI18N
+    private static final String URL_KEY = ".url"; // NOI18N
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT = 10000;
+    // a stalled transfer fails instead of blocking the wizard
+    private static final int READ_TIMEOUT = 30000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Comparator<File> LRU_COMPARATOR = new Comparator<File>() {
+        @Override
+        public int compare(File o1, File o2) {
+            long m1 = o1.lastModified();
+            long m2 = o2.lastModified();
+            return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+        }
+    };
+    private static volatile ArchiveCache INSTANCE;
+    private final File directory;
+    private final long maxSize;
+    private final Properties index = new Properties();
+    // reference counts of archives which are used now
+    private final Map<File, Integer> usedArchives = new HashMap<File, Integer>();
+    private boolean indexLoaded;
+
+    ArchiveCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static ArchiveCache getDefault() {
+        ArchiveCache cache = INSTANCE;
+        if (cache == null) {
+            synchronized (ArchiveCache.class) {
+                cache = INSTANCE;
+                if (cache == null) {
+                    cache = new ArchiveCache(Places.getCacheSubdirectory(CACHE_DIRECTORY), DEFAULT_MAX_SIZE);
+                    INSTANCE = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Get the cached archive for the URL. The archive is downloaded if it is
+     * not cached or it is modified on the server. The archive must be
+     * released with {@link #release(File)} after it is used.
+     *
+     * @param url zip URL
+     * @param tag tag name (e.g. 2.3.0) if the content of the URL is never
+     * changed, otherwise null
+     * @return cached archive
+     * @throws IOException if the archive can't be downloaded and it is not
+     * cached
+     */
+    public File getArchive(String url, String tag) throws IOException {
+        String key = getKey(url, tag);
+        File cached;
+        String etag;
+        synchronized (this) {
+            loadIndex();
+            cached = getCachedArchive(key);
+            if (cached != null && tag != null) {
+                touch(cached);
+                acquire(cached);
+                return cached;
+            }
+            etag = index.getProperty(key + ETAG_KEY);
+        }
+
+        // don't lock while downloading, archives may be downloaded in parallel
+        File archive;
+        try {
+            archive = download(key, url, cached, etag);
+        } catch (IOException ex) {
+            if (cached == null) {
+                throw ex;
+            }
+            // offline
+            LOGGER.log(Level.INFO, "Cannot download {0}, the cached archive is used: {1}", new Object[]{url, ex.getMessage()}); // NOI18N
+            archive = cached;
+        }
+        synchronized (this) {
+            touch(archive);
+            acquire(archive);
+            evict();
+            storeIndex();
+        }
+        return archive;
+    }
+
+    /**
+     * Release the archive which is returned by getArchive(). Archives are
+     * removed if the total size exceeds the limit and they are not used.
+     *
+     * @param archive archive
+     */
+    public synchronized void release(File archive) {
+        Integer count = usedArchives.get(archive);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            usedArchives.put(archive, count - 1);
+            return;
+        }
+        usedArchives.remove(archive);
+        evict();
+        storeIndex();
+    }
+
+    private void acquire(File archive) {
+        assert Thread.holdsLock(this);
+        Integer count = usedArchives.get(archive);
+        usedArchives.put(archive, count == null ? 1 : count + 1);
+    }
+
+    private File download(String key, String url, File cached, String etag) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        if (connection instanceof HttpURLConnection && cached != null && etag != null) {
+            connection.setRequestProperty("If-None-Match", etag); // NOI18N
+            if (((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return cached;
+            }
+        }
+
+        File tmpFile = File.createTempFile("download", ARCHIVE_EXT + ".part", directory); // NOI18N
+        try {
+            String sha1 = copy(connection.getInputStream(), tmpFile);
+            File archive = new File(directory, sha1 + ARCHIVE_EXT);
+            // the same content may exist already
+            if (!archive.isFile() && !tmpFile.renameTo(archive) && !archive.isFile()) {
+                throw new IOException("Can't rename " + tmpFile + " to " + archive); // NOI18N
+            }
+            String newEtag = connection.getHeaderField("ETag"); // NOI18N
+            synchronized (this) {
+                index.setProperty(key + URL_KEY, url);
+                index.setProperty(key + ARCHIVE_KEY, archive.getName());
+                if (newEtag != null) {
+                    index.setProperty(key + ETAG_KEY, newEtag);
+                } else {
+                    index.remove(key + ETAG_KEY);
+                }
+            }
+            return archive;
+        } finally {
+            if (tmpFile.exists()) {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Copy the stream to the file. The stream is closed.
+     *
+     * @return SHA-1 of the content
+     */
+    private static String copy(InputStream inputStream, File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1"); // NOI18N
+        } catch (NoSuchAlgorithmException ex) {
+            inputStream.close();
+            throw new IOException(ex.getMessage());
+        }
+        InputStream input = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        try {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int length;
+                while ((length = input.read(buffer)) != -1) {
+                    digest.update(buffer, 0, length);
+                    output.write(buffer, 0, length);
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+        return CakePhpSecurityString.toHex(digest.digest());
+    }
+
+    private File getCachedArchive(String key) {
+        String name = index.getProperty(key + ARCHIVE_KEY);
+        if (name == null) {
+            return null;
+        }
+        File archive = new File(directory, name);
+        return archive.isFile() ? archive : null;
+    }
+
+    /**
+     * Remove least recently used archives until the total size is within the
+     * limit. Archives which are used now are always kept.
+     */
+    private void evict() {
+        assert Thread.holdsLock(this);
+        File[] archives = listArchives();
+        long totalSize = 0;
+        for (File archive : archives) {
+            totalSize += archive.length();
+        }
+        if (totalSize > maxSize) {
+            Arrays.sort(archives, LRU_COMPARATOR);
+            for (File archive : archives) {
+                if (totalSize <= maxSize) {
+                    break;
+                }
+                if (usedArchives.containsKey(archive)) {
+                    continue;
+                }
+                long length = archive.length();
+                if (archive.delete()) {
+                    totalSize -= length;
+                }
+            }
+        }
+
+        // remove keys of removed archives
+        Set<String> names = new HashSet<String>();
+        for (File archive : listArchives()) {
+            names.add(archive.getName());
+        }
+        for (String property : index.stringPropertyNames()) {
+            if (property.endsWith(ARCHIVE_KEY) && !names.contains(index.getProperty(property))) {
+                String key = property.substring(0, property.length() - ARCHIVE_KEY.length());
+                index.remove(property);
+                index.remove(key + ETAG_KEY);
+                index.remove(key + URL_KEY);
+            }
+        }
+    }
+
+    private File[] listArchives() {
+        File[] archives = directory.listFiles();
+        if (archives == null) {
+            return new File[0];
+        }
+        int count = 0;
+        for (File archive : archives) {
+            if (archive.isFile() && archive.getName().endsWith(ARCHIVE_EXT)) {
+                archives[count++] = archive;
+            }
+        }
+        return Arrays.copyOf(archives, count);
+    }
+
+    private static void touch(File archive) {
+        // lastModified is used as the last access time
+        archive.setLastModified(System.currentTimeMillis());
+    }
+
+    private static String getKey(String url, String tag) throws IOException {
+        try {
+            return CakePhpSecurityString.hash(tag == null ? url : url + '#' + tag, "SHA-1"); // NOI18N
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex.getMessage());
+        }
+    }
+
+    //~ Persistence
+    private void loadIndex() {
+        if (indexLoaded) {
+            return;
+        }
+        indexLoaded = true;
+        directory.mkdirs();
+        File indexFile = new File(directory, INDEX_FILE);
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try {
+            InputStream input = new BufferedInputStream(new FileInputStream(indexFile));
+            try {
+                index.load(input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+    }
+
+    private void storeIndex() {
+        try {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(new File(directory, INDEX_FILE)));
+            try {
+                index.store(output, null);
+            } finally {
+                output.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, null, ex);
+        }
+    }
+}
@@ -41,17 +41,22 @@
  */
 package org.cakephp.netbeans.util;
 
-import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
+import org.openide.util.NbBundle;
 
 /**
  *
@@ -59,6 +64,16 @@ import org.openide.filesystems.FileUtil;
  */
 public class CakePhpFileUtils {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL = 500L;
+    // one buffer per thread, unzip may run in parallel (e.g. plugins)
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
     /**
      * Unzip specified URL.
      *
@@ -73,8 +88,86 @@ public class CakePhpFileUtils {
             return;
         }
         URL zipUrl = new URL(url);
-        ZipInputStream zipInputStream = new ZipInputStream(zipUrl.openStream());
+        // entries are extracted while downloading
+        unzip(zipUrl.openStream(), targetDirectory, filter);
+    }
+
+    /**
+     * Unzip specified URL via the archive cache. The archive is downloaded
+     * only if it is not cached yet (or it is modified on the server when the
+     * tag is not specified).
+     *
+     * @param url
+     * @param tag tag name if the content of the URL is never changed,
+     * otherwise null
+     * @param targetDirectory
+     * @param filter
+     * @throws MalformedURLException
+     * @throws IOException
+     * @see ArchiveCache
+     */
+    public static void unzip(String url, String tag, File targetDirectory, ZipEntryFilter filter) throws MalformedURLException, IOException {
+        if (targetDirectory == null) {
+            return;
+        }
+        ArchiveCache cache = ArchiveCache.getDefault();
+        File archive = cache.getArchive(url, tag);
+        try {
+            unzip(archive, targetDirectory, filter);
+        } finally {
+            cache.release(archive);
+        }
+    }
+
+    /**
+     * Unzip the zip file. The file is mapped to memory and read directly.
+     *
+     * @param zipFile
+     * @param targetDirectory
+     * @param filter
+     * @throws IOException
+     */
+    public static void unzip(File zipFile, File targetDirectory, ZipEntryFilter filter) throws IOException {
+        FileInputStream input = new FileInputStream(zipFile);
+        ByteBuffer buffer;
+        try {
+            FileChannel channel = input.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            // the mapping is valid after the channel is closed
+            input.close();
+        }
+        unzip(new ByteBufferInputStream(buffer), targetDirectory, filter);
+    }
+
+    /**
+     * Unzip the stream. The stream is closed.
+     *
+     * @param inputStream zip data
+     * @param targetDirectory
+     * @param filter
+     * @throws IOException
+     */
+    @NbBundle.Messages({
+        "# {0} - path",
+        "# {1} - entries per second",
+        "# {2} - kilobytes per second",
+        "CakePhpFileUtils.unzip.progress={0} ({1} entries/s, {2} KB/s)"
+    })
+    public static void unzip(InputStream inputStream, File targetDirectory, ZipEntryFilter filter) throws IOException {
+        if (!(inputStream instanceof ByteBufferInputStream)) {
+            inputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        }
+        ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+        if (targetDirectory == null) {
+            zipInputStream.close();
+            return;
+        }
 
+        long startTime = System.currentTimeMillis();
+        long lastReportTime = startTime;
+        long entryCount = 0;
+        long byteCount = 0;
         try {
             ZipEntry entry = null;
             while ((entry = zipInputStream.getNextEntry()) != null) {
@@ -83,12 +176,21 @@ public class CakePhpFileUtils {
                     continue;
                 }
                 String path = filter.getPath(entry);
-                // display path
-                filter.setText(path);
 
                 File outFile = new File(targetDirectory, path);
                 createDirectories(outFile, entry);
-                writeFile(outFile, zipInputStream, entry);
+                byteCount += writeFile(outFile, zipInputStream, entry);
+                entryCount++;
+
+                // display path and throughput
+                long now = System.currentTimeMillis();
+                if (now - lastReportTime >= PROGRESS_INTERVAL) {
+                    long elapsed = now - startTime;
+                    filter.setText(Bundle.CakePhpFileUtils_unzip_progress(path, entryCount * 1000 / elapsed, byteCount * 1000 / 1024 / elapsed));
+                    lastReportTime = now;
+                } else {
+                    filter.setText(path);
+                }
             }
         } finally {
             zipInputStream.close();
@@ -101,22 +203,36 @@ public class CakePhpFileUtils {
      * @param outFile
      * @param zipInputStream
      * @param entry
+     * @return written bytes
      * @throws IOException
      */
-    private static void writeFile(File outFile, ZipInputStream zipInputStream, ZipEntry entry) throws IOException {
+    private static long writeFile(File outFile, ZipInputStream zipInputStream, ZipEntry entry) throws IOException {
         try {
             if (entry.isDirectory()) {
-                return;
+                return 0;
             }
-            BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outFile));
-            int data = 0;
+            RandomAccessFile output = new RandomAccessFile(outFile, "rw"); // NOI18N
+            long written = 0;
             try {
-                while ((data = zipInputStream.read()) != -1) {
-                    outputStream.write(data);
+                long size = entry.getSize();
+                if (size > 0) {
+                    // allocate at once
+                    output.setLength(size);
+                }
+                byte[] buffer = BUFFER.get();
+                int length;
+                while ((length = zipInputStream.read(buffer)) != -1) {
+                    output.write(buffer, 0, length);
+                    written += length;
+                }
+                if (written != size) {
+                    // unknown size or existing file
+                    output.setLength(written);
                 }
             } finally {
-                outputStream.close();
+                output.close();
             }
+            return written;
         } finally {
             zipInputStream.closeEntry();
         }
@@ -161,4 +277,47 @@ public class CakePhpFileUtils {
             child.setWritable(true, false);
         }
     }
+
+    //~ Inner classes
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+    }
 }
@@ -142,7 +142,7 @@ public class CakePhpSecurityString {
      * @param bytes byte array
      * @return hexadeximal numbers string
      */
-    private static String toHex(byte[] bytes) {
+    static String toHex(byte[] bytes) {
         StringBuilder sb = new StringBuilder();
         for(byte b : bytes) {
             String hex = String.format("%02x", b); // NOI18N
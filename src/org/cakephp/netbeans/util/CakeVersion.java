@@ -41,16 +41,30 @@
  */
 package org.cakephp.netbeans.util;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.cakephp.netbeans.module.CakePhpModule;
 import org.cakephp.netbeans.preferences.CakePreferences;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
 import org.openide.util.Exceptions;
 
 /**
+ * CakePHP version of a PhpModule.
+ *
+ * Versions are kept per PhpModule. The version file is read only once, the
+ * cached version is discarded when VERSION.txt (cake/VERSION.txt or
+ * lib/Cake/VERSION.txt) is changed or the directory preferences are changed.
+ * A missing version file is also cached until it is created.
  *
  * @author junichi11
  */
@@ -61,11 +75,15 @@ public class CakeVersion {
     private int revision;
     private String notStable;
     private String versionNumber;
-    private static CakeVersion INSTANCE = null;
-    private static PhpModule pm;
+    private FileObject cakePhpDirectory;
+    private VersionFileListener versionFileListener;
+    private DirectoryPreferenceListener preferenceListener;
+    private static final ConcurrentWeakHashMap<PhpModule, CakeVersion> VERSIONS = new ConcurrentWeakHashMap<PhpModule, CakeVersion>();
+    private static final String[] VERSION_FILE_PATHS = {"cake/VERSION.txt", "lib/Cake/VERSION.txt"}; // NOI18N
     private static final Logger LOGGER = Logger.getLogger(CakeVersion.class.getName());
 
     private CakeVersion(PhpModule pm) {
+        cakePhpDirectory = CakePhpModule.getCakePhpDirectory(pm);
         String[] split = getCakePhpVersionSplit(pm);
         if (split != null) {
             int length = split.length;
@@ -88,7 +106,6 @@ public class CakeVersion {
                 revision = -1;
                 notStable = ""; // NOI18N
             }
-            CakeVersion.pm = pm;
         } else {
             FileObject cakephpDirectory = CakePhpModule.getCakePhpDirectory(pm);
             if (cakephpDirectory != null) {
@@ -112,23 +129,61 @@ public class CakeVersion {
                         notStable = ""; // NOI18N
                     }
                 }
-                if (cake == null) {
-                    CakeVersion.pm = null;
-                } else {
-                    CakeVersion.pm = pm;
-                }
-            } else {
-                CakeVersion.pm = null;
             }
-
         }
     }
 
+    /**
+     * Get CakeVersion for the PhpModule. The version file is read only if the
+     * version is not cached yet.
+     *
+     * @param pm PhpModule
+     * @return CakeVersion
+     */
     public static CakeVersion getInstance(PhpModule pm) {
-        if (INSTANCE == null || CakeVersion.pm != pm || INSTANCE.versionNumber == null) {
-            INSTANCE = new CakeVersion(pm);
+        CakeVersion version = VERSIONS.get(pm);
+        if (version != null) {
+            return version;
+        }
+
+        version = new CakeVersion(pm);
+        // don't cache if the CakePHP directory is not found, it might be created later
+        if (version.startListening(pm)) {
+            CakeVersion old = VERSIONS.put(pm, version);
+            if (old != null && old != version) {
+                old.stopListening(pm);
+            }
+        }
+        return version;
+    }
+
+    private boolean startListening(PhpModule pm) {
+        if (cakePhpDirectory == null) {
+            return false;
         }
-        return INSTANCE;
+        File root = FileUtil.toFile(cakePhpDirectory);
+        if (root == null) {
+            return false;
+        }
+        versionFileListener = new VersionFileListener(pm, root);
+        preferenceListener = new DirectoryPreferenceListener(pm);
+        CakePreferences.addPreferenceChangeListener(pm, preferenceListener);
+        return true;
+    }
+
+    private void stopListening(PhpModule pm) {
+        VersionFileListener listener = versionFileListener;
+        if (listener != null) {
+            listener.removeListener();
+        }
+        if (pm != null && preferenceListener != null) {
+            CakePreferences.removePreferenceChangeListener(pm, preferenceListener);
+        }
+    }
+
+    private void invalidate(PhpModule pm) {
+        VERSIONS.remove(pm, this);
+        stopListening(pm);
     }
 
     public int getMajor() {
@@ -210,4 +265,85 @@ public class CakeVersion {
         }
         return version.split("[., -]"); // NOI18N
     }
+
+    //~ Inner classes
+    private final class VersionFileListener extends FileChangeAdapter {
+
+        private final WeakReference<PhpModule> phpModuleReference;
+        private final File[] versionFiles;
+
+        public VersionFileListener(PhpModule phpModule, File root) {
+            this.phpModuleReference = new WeakReference<PhpModule>(phpModule);
+            versionFiles = new File[VERSION_FILE_PATHS.length];
+            for (int i = 0; i < VERSION_FILE_PATHS.length; i++) {
+                versionFiles[i] = FileUtil.normalizeFile(new File(root, VERSION_FILE_PATHS[i]));
+                FileUtil.addFileChangeListener(this, versionFiles[i]);
+            }
+        }
+
+        void removeListener() {
+            for (File file : versionFiles) {
+                try {
+                    FileUtil.removeFileChangeListener(this, file);
+                } catch (IllegalArgumentException ex) {
+                    // already removed
+                }
+            }
+        }
+
+        private void versionFileChanged() {
+            PhpModule phpModule = phpModuleReference.get();
+            if (phpModule != null) {
+                invalidate(phpModule);
+            } else {
+                removeListener();
+            }
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            versionFileChanged();
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            versionFileChanged();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            versionFileChanged();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            versionFileChanged();
+        }
+    }
+
+    /**
+     * Discard the version when the app name or the CakePHP directory is
+     * changed.
+     */
+    private final class DirectoryPreferenceListener implements PreferenceChangeListener {
+
+        private final WeakReference<PhpModule> phpModuleReference;
+
+        public DirectoryPreferenceListener(PhpModule phpModule) {
+            this.phpModuleReference = new WeakReference<PhpModule>(phpModule);
+        }
+
+        @Override
+        public void preferenceChange(PreferenceChangeEvent evt) {
+            PhpModule phpModule = phpModuleReference.get();
+            if (phpModule == null) {
+                evt.getNode().removePreferenceChangeListener(this);
+                stopListening(null);
+                return;
+            }
+            if (CakePreferences.isDirectoryKey(evt.getKey())) {
+                invalidate(phpModule);
+            }
+        }
+    }
 }
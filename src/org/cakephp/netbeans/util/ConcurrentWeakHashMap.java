@@ -0,0 +1,196 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread safe map whose keys are weakly referenced.
+ *
+ * Keys are compared with equals(). Entries are removed after their keys are
+ * garbage collected, and the RemovalListener is notified of their values (e.g.
+ * to release resources of them). Note that values must not hold their keys
+ * strongly, otherwise entries are never released.
+ *
+ * @author junichi11
+ */
+public final class ConcurrentWeakHashMap<K, V> {
+
+    private final ConcurrentMap<WeakKey<K>, V> map = new ConcurrentHashMap<WeakKey<K>, V>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<K>();
+    private final RemovalListener<V> removalListener;
+
+    public ConcurrentWeakHashMap() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param removalListener notified of values whose keys are garbage
+     * collected, can be null
+     */
+    public ConcurrentWeakHashMap(RemovalListener<V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        expungeStaleEntries();
+        return map.get(new WeakKey<K>(key, null));
+    }
+
+    public V put(K key, V value) {
+        expungeStaleEntries();
+        return map.put(new WeakKey<K>(key, queue), value);
+    }
+
+    /**
+     * Put the value if there is no value for the key.
+     *
+     * @param key key
+     * @param value value
+     * @return previous value if it exists, otherwise null
+     */
+    public V putIfAbsent(K key, V value) {
+        expungeStaleEntries();
+        return map.putIfAbsent(new WeakKey<K>(key, queue), value);
+    }
+
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        expungeStaleEntries();
+        return map.remove(new WeakKey<K>(key, null));
+    }
+
+    /**
+     * Remove the entry only if the current value is the specified value.
+     *
+     * @param key key
+     * @param value expected value
+     * @return true if it was removed, otherwise false
+     */
+    public boolean remove(K key, V value) {
+        if (key == null) {
+            return false;
+        }
+        expungeStaleEntries();
+        return map.remove(new WeakKey<K>(key, null), value);
+    }
+
+    /**
+     * Get live values.
+     *
+     * @return values
+     */
+    public List<V> values() {
+        expungeStaleEntries();
+        return new ArrayList<V>(map.values());
+    }
+
+    public void clear() {
+        map.clear();
+        expungeStaleEntries();
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return map.size();
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends K> reference;
+        while ((reference = queue.poll()) != null) {
+            V value = map.remove(reference);
+            if (value != null && removalListener != null) {
+                removalListener.removed(value);
+            }
+        }
+    }
+
+    //~ Inner classes
+    /**
+     * Listener for values whose keys are garbage collected.
+     */
+    public interface RemovalListener<V> {
+
+        void removed(V value);
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey)) {
+                return false;
+            }
+            Object key = get();
+            Object other = ((WeakKey<?>) obj).get();
+            return key != null && other != null && key.equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
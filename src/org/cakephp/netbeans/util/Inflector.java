@@ -43,9 +43,11 @@
  */
 package org.cakephp.netbeans.util;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -79,6 +81,13 @@ import java.util.regex.Pattern;
  * capture all text before the interesting characters at the end, and emit them
  * as part of the result, so that the entire string can be matched against a
  * pattern once.</p>
+ *
+ * <p>Instances are thread safe. Rules are kept in immutable arrays which are
+ * replaced when a rule is added, and replacers don't keep any state. Results of
+ * <code>pluralize()</code>, <code>singularize()</code>,
+ * <code>camelize()</code>, <code>underscore()</code> and
+ * <code>tableize()</code> are cached (LRU). Caches are cleared when a rule is
+ * added.</p>
  */
 public final class Inflector {
 
@@ -97,7 +106,7 @@ public final class Inflector {
         addPlural("(.*)(buffal|tomat)o$", "\\1\\2oes");
         addPlural("(.*)([ti])um$", "\\1\\2a");
         addPlural("(.*)sis$", "\\1ses");
-        addPlural("(.*)(?:([^f])fe|([lr])f)$", "\\1\\3ves");
+        addPlural("(.*)(?:([^f])fe|([lr])f)$", "\\1\\2\\3ves");
         addPlural("(.*)(hive)$", "\\1\\2s");
         addPlural("(.*)(tive)$", "\\1\\2s"); // Added for consistency with singular rules
         addPlural("(.*)([^aeiouy]|qu)y$", "\\1\\2ies");
@@ -159,26 +168,38 @@ public final class Inflector {
      * <p>The singleton instance returned by the default
      * <code>getInstance()</code> method.</p>
      */
-    private transient static Inflector instance = null;
+    private static final Inflector INSTANCE = new Inflector();
     /**
-     * <p>List of
+     * <p>Maximum number of entries of each result cache.</p>
+     */
+    private static final int CACHE_SIZE = 512;
+    // ------------------------------------------------------ Instance Variables
+    /**
+     * <p>Array of
      * <code>Replacer</code>s for performing replacement operations on matches
-     * for plural words.</p>
+     * for plural words. Never modified, replaced when a rule is added.</p>
      */
-    private List plurals = new LinkedList();
+    private volatile Replacer[] plurals = new Replacer[0];
     /**
-     * <p>List of
+     * <p>Array of
      * <code>Replacer</code>s for performing replacement operations on matches
-     * for addSingular words.</p>
+     * for addSingular words. Never modified, replaced when a rule is
+     * added.</p>
      */
-    private List singulars = new ArrayList();
+    private volatile Replacer[] singulars = new Replacer[0];
     /**
-     * <p>List of words that represent addUncountable concepts that cannot be
-     * pluralized or singularized.</p>
+     * <p>Set of words that represent addUncountable concepts that cannot be
+     * pluralized or singularized. Never modified, replaced when a word is
+     * added.</p>
      */
-    private List uncountables = new LinkedList();
+    private volatile Set<String> uncountables = Collections.emptySet();
+    private final Cache pluralizeCache = new Cache(CACHE_SIZE);
+    private final Cache singularizeCache = new Cache(CACHE_SIZE);
+    private final Cache camelizeCache = new Cache(CACHE_SIZE);
+    private final Cache lowerCamelizeCache = new Cache(CACHE_SIZE);
+    private final Cache underscoreCache = new Cache(CACHE_SIZE);
+    private final Cache tableizeCache = new Cache(CACHE_SIZE);
 
-    // ------------------------------------------------------ Instance Variables
     // ---------------------------------------------------------- Static Methods
     /**
      * <p>Return a fully configured {@link Inflector} instance that can be used
@@ -186,10 +207,7 @@ public final class Inflector {
      */
     public static Inflector getInstance() {
 
-        if (instance == null) {
-            instance = new Inflector();
-        }
-        return instance;
+        return INSTANCE;
 
     }
 
@@ -250,6 +268,16 @@ public final class Inflector {
         if (word.length() == 0) {
             return word;
         }
+        Cache cache = flag ? lowerCamelizeCache : camelizeCache;
+        String result = cache.get(word);
+        if (result == null) {
+            result = cache.put(word, camelizeInternal(word, flag));
+        }
+        return result;
+
+    }
+
+    private String camelizeInternal(String word, boolean flag) {
 
         StringBuilder sb = new StringBuilder(word.length());
         if (flag) {
@@ -518,23 +546,11 @@ public final class Inflector {
      */
     public String pluralize(String word) {
 
-        // Scan uncountables and leave alone
-        for (int i = 0; i < uncountables.size(); i++) {
-            if (uncountables.get(i).equals(word)) {
-                return word;
-            }
+        String result = pluralizeCache.get(word);
+        if (result == null) {
+            result = pluralizeCache.put(word, replace(word, uncountables, plurals));
         }
-
-        // Scan our patterns for a match and return the correct replacement
-        for (int i = 0; i < plurals.size(); i++) {
-            Replacer replacer = (Replacer) plurals.get(i);
-            if (replacer.matches(word)) {
-                return replacer.replacement();
-            }
-        }
-
-        // Return the original string unchanged
-        return word;
+        return result;
 
     }
 
@@ -546,18 +562,26 @@ public final class Inflector {
      */
     public String singularize(String word) {
 
+        String result = singularizeCache.get(word);
+        if (result == null) {
+            result = singularizeCache.put(word, replace(word, uncountables, singulars));
+        }
+        return result;
+
+    }
+
+    private static String replace(String word, Set<String> uncountables, Replacer[] replacers) {
+
         // Scan uncountables and leave alone
-        for (int i = 0; i < uncountables.size(); i++) {
-            if (uncountables.get(i).equals(word)) {
-                return word;
-            }
+        if (uncountables.contains(word)) {
+            return word;
         }
 
         // Scan our patterns for a match and return the correct replacement
-        for (int i = 0; i < singulars.size(); i++) {
-            Replacer replacer = (Replacer) singulars.get(i);
-            if (replacer.matches(word)) {
-                return replacer.replacement();
+        for (Replacer replacer : replacers) {
+            String replacement = replacer.replace(word);
+            if (replacement != null) {
+                return replacement;
             }
         }
 
@@ -590,7 +614,11 @@ public final class Inflector {
      */
     public String tableize(String className) {
 
-        return pluralize(underscore(className));
+        String result = tableizeCache.get(className);
+        if (result == null) {
+            result = tableizeCache.put(className, pluralize(underscore(className)));
+        }
+        return result;
 
     }
 
@@ -672,6 +700,16 @@ public final class Inflector {
      */
     public String underscore(String word) {
 
+        String result = underscoreCache.get(word);
+        if (result == null) {
+            result = underscoreCache.put(word, underscoreInternal(word));
+        }
+        return result;
+
+    }
+
+    private String underscoreInternal(String word) {
+
         StringBuilder sb = new StringBuilder(word.length() + 5);
         boolean uncapitalize = false;
         for (int i = 0; i < word.length(); i++) {
@@ -737,9 +775,10 @@ public final class Inflector {
      * @param rule Replacement rule
      * @param insensitive Flag indicating this match should be case insensitive
      */
-    public void addPlural(String match, String rule, boolean insensitive) {
+    public synchronized void addPlural(String match, String rule, boolean insensitive) {
 
-        plurals.add(0, new Replacer(match, rule, insensitive));
+        plurals = prepend(new Replacer(match, rule, insensitive), plurals);
+        clearCaches();
 
     }
 
@@ -767,9 +806,10 @@ public final class Inflector {
      * @param rule Replacement rule
      * @param insensitive Flag indicating this match should be case insensitive
      */
-    public void addSingular(String match, String rule, boolean insensitive) {
+    public synchronized void addSingular(String match, String rule, boolean insensitive) {
 
-        singulars.add(0, new Replacer(match, rule, insensitive));
+        singulars = prepend(new Replacer(match, rule, insensitive), singulars);
+        clearCaches();
 
     }
 
@@ -780,9 +820,36 @@ public final class Inflector {
      *
      * @param word Word to be added
      */
-    public void addUncountable(String word) {
+    public synchronized void addUncountable(String word) {
+
+        Set<String> words = new HashSet<String>(uncountables);
+        words.add(word.toLowerCase());
+        uncountables = Collections.unmodifiableSet(words);
+        clearCaches();
+
+    }
+
+    /**
+     * <p>Return a new array which has the replacer at the head. Rules added
+     * later take precedence.</p>
+     */
+    private static Replacer[] prepend(Replacer replacer, Replacer[] replacers) {
+
+        Replacer[] result = new Replacer[replacers.length + 1];
+        result[0] = replacer;
+        System.arraycopy(replacers, 0, result, 1, replacers.length);
+        return result;
+
+    }
+
+    private void clearCaches() {
 
-        uncountables.add(0, word.toLowerCase());
+        pluralizeCache.clear();
+        singularizeCache.clear();
+        camelizeCache.clear();
+        lowerCamelizeCache.clear();
+        underscoreCache.clear();
+        tableizeCache.clear();
 
     }
 
@@ -790,9 +857,10 @@ public final class Inflector {
     /**
      * <p>Internal class that uses a regular expression matcher to both match
      * the specified regular expression to a specified word, and (if successful)
-     * perform the appropriate substitutions.</p>
+     * perform the appropriate substitutions. It doesn't keep any state, so it
+     * can be shared by threads.</p>
      */
-    private class Replacer {
+    private static final class Replacer {
 
         // --------------------------------------------------------- Constructor
         public Replacer(String match, String rule, boolean insensitive) {
@@ -803,53 +871,34 @@ public final class Inflector {
 
         }
         // -------------------------------------------------- Instance Variables
-        private String input = null;
-        private Matcher matcher = null;
-        private Pattern pattern = null;
-        private String rule = null;
+        private final Pattern pattern;
+        private final String rule;
 
         // ------------------------------------------------------ Public Methods
         /**
-         * <p>Return
-         * <code>true</code> if our regular expression pattern matches the
-         * specified input. If it does, save necessary state information so that
-         * the
-         * <code>replacement()</code> method will return appropriate results
-         * based on the
-         * <code>rule</code> specified to our constructor.</p>
+         * <p>Return a replacement string based on the
+         * <code>rule</code> specified to our constructor if our regular
+         * expression pattern matches the specified input. Unmatched groups are
+         * replaced with an empty string.</p>
          *
          * @param input Input characters to be matched
+         * @return replacement string if the input matches, otherwise null
          */
-        public boolean matches(String input) {
+        public String replace(String input) {
 
-            matcher = pattern.matcher(input);
-            if (matcher.matches()) {
-                this.input = input;
-                return true;
-            } else {
-                this.input = null;
-                this.matcher = null;
-                return false;
+            Matcher matcher = pattern.matcher(input);
+            if (!matcher.matches()) {
+                return null;
             }
-
-        }
-
-        /**
-         * <p>Return a replacement string based on the
-         * <code>rule</code> that was specified to our constructor. This method
-         * <strong>MUST</strong>
-         * only be called when the
-         * <code>matches()</code> method has returned
-         * <code>true</code>.</p>
-         */
-        public String replacement() {
-
-            StringBuilder sb = new StringBuilder();
+            StringBuilder sb = new StringBuilder(input.length() + 4);
             boolean group = false;
             for (int i = 0; i < rule.length(); i++) {
                 char ch = rule.charAt(i);
                 if (group) {
-                    sb.append(matcher.group(Character.digit(ch, 10)));
+                    String value = matcher.group(Character.digit(ch, 10));
+                    if (value != null) {
+                        sb.append(value);
+                    }
                     group = false;
                 } else if (ch == '\\') {
                     group = true;
@@ -861,4 +910,44 @@ public final class Inflector {
 
         }
     }
+
+    /**
+     * <p>Bounded LRU cache for inflection results.</p>
+     */
+    private static final class Cache {
+
+        private final Map<String, String> map;
+
+        public Cache(final int maxSize) {
+
+            map = new LinkedHashMap<String, String>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > maxSize;
+                }
+            };
+
+        }
+
+        public synchronized String get(String key) {
+
+            return map.get(key);
+
+        }
+
+        public synchronized String put(String key, String value) {
+
+            map.put(key, value);
+            return value;
+
+        }
+
+        public synchronized void clear() {
+
+            map.clear();
+
+        }
+    }
 }
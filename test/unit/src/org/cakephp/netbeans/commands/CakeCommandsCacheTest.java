@@ -0,0 +1,183 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.commands;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class CakeCommandsCacheTest extends NbTestCase {
+
+    public CakeCommandsCacheTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of write and read methods, of class CakeCommandsCache.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = new File(getWorkDir(), "commands/cache");
+        List<CakeCommandItem> items = createItems();
+        CakeCommandsCache.write(file, "fingerprint", items);
+        assertTrue(file.isFile());
+        assertEquals(Collections.singletonList(file.getName()), Arrays.asList(file.getParentFile().list()));
+
+        List<CakeCommandItem> read = CakeCommandsCache.read(file, "fingerprint");
+        assertEquals(toString(items), toString(read));
+        CakeCommandItem bake = read.get(0);
+        assertEquals("bake", bake.getCommand());
+        assertEquals("[CORE] The Bake script", bake.getDescription());
+        assertEquals(2, bake.getSubcommands().size());
+        assertEquals("bake model", bake.getSubcommands().get(1).getDisplayName());
+        assertNull(read.get(1).getSubcommands());
+
+        // other fingerprint
+        assertNull(CakeCommandsCache.read(file, "changed"));
+
+        // overwrite
+        CakeCommandsCache.write(file, "changed", items.subList(1, 2));
+        assertEquals(1, CakeCommandsCache.read(file, "changed").size());
+        assertNull(CakeCommandsCache.read(file, "fingerprint"));
+    }
+
+    /**
+     * Test of read method, of class CakeCommandsCache. Broken files are not
+     * used.
+     */
+    @Test
+    public void testReadBrokenFile() throws Exception {
+        File file = new File(getWorkDir(), "commands/cache");
+        CakeCommandsCache.write(file, "fingerprint", createItems());
+        long length = file.length();
+        for (long size = length - 1; size > 0; size -= 7) {
+            truncate(file, size);
+            assertNull("size: " + size, CakeCommandsCache.read(file, "fingerprint"));
+        }
+
+        // garbage at the end
+        CakeCommandsCache.write(file, "fingerprint", createItems());
+        FileOutputStream output = new FileOutputStream(file, true);
+        try {
+            output.write(new byte[]{1, 2, 3});
+        } finally {
+            output.close();
+        }
+        assertNull(CakeCommandsCache.read(file, "fingerprint"));
+
+        // missing file
+        assertNull(CakeCommandsCache.read(new File(getWorkDir(), "missing"), "fingerprint"));
+    }
+
+    /**
+     * Test of createFingerprint method, of class CakeCommandsCache.
+     */
+    @Test
+    public void testCreateFingerprint() throws Exception {
+        File directory = new File(getWorkDir(), "Command");
+        directory.mkdirs();
+        File shell = new File(directory, "HelloShell.php");
+        writeFile(shell, "<?php");
+        List<File> directories = Collections.singletonList(directory);
+
+        String fingerprint = CakeCommandsCache.createFingerprint("2.3.0", directories);
+        assertEquals(fingerprint, CakeCommandsCache.createFingerprint("2.3.0", directories));
+        assertFalse(fingerprint.equals(CakeCommandsCache.createFingerprint("2.3.1", directories)));
+
+        writeFile(shell, "<?php // changed");
+        String changed = CakeCommandsCache.createFingerprint("2.3.0", directories);
+        assertFalse(fingerprint.equals(changed));
+
+        writeFile(new File(directory, "WorldShell.php"), "<?php");
+        assertFalse(changed.equals(CakeCommandsCache.createFingerprint("2.3.0", directories)));
+    }
+
+    private static List<CakeCommandItem> createItems() {
+        CakeCommandItem bake = new CakeCommandItem("bake", "[CORE] The Bake script", "bake");
+        bake.addSubcommand(new CakeCommandItem("all", "[CORE] Bake a complete MVC", "bake all"));
+        bake.addSubcommand(new CakeCommandItem("model", "[CORE] Bake a model", "bake model"));
+        CakeCommandItem toolbar = new CakeCommandItem("DebugKit.whitespace", "[DebugKit] Whitespace", "whitespace");
+        return new ArrayList<CakeCommandItem>(Arrays.asList(bake, toolbar));
+    }
+
+    private static String toString(List<CakeCommandItem> items) {
+        StringBuilder sb = new StringBuilder();
+        if (items != null) {
+            for (CakeCommandItem item : items) {
+                sb.append(item.getCommand()).append('|')
+                        .append(item.getDescription()).append('|')
+                        .append(item.getDisplayName()).append('[')
+                        .append(toString(item.getSubcommands())).append(']');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void truncate(File file, long size) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(size);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(content.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+    }
+}
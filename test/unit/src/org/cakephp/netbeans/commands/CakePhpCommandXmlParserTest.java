@@ -0,0 +1,196 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.commands;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ *
+ * @author junichi11
+ */
+public class CakePhpCommandXmlParserTest extends NbTestCase {
+
+    public CakePhpCommandXmlParserTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of parse method, of class CakePhpCommandXmlParser. command_list.
+     */
+    @Test
+    public void testParseCommandList() throws Exception {
+        List<CakeCommandItem> commands = new ArrayList<CakeCommandItem>();
+        CakePhpCommandXmlParser.parse(getFixture("command_list.xml"), commands);
+        assertEquals(9, commands.size());
+        CakeCommandItem bake = commands.get(2);
+        assertEquals("bake", bake.getCommand());
+        assertEquals("CORE", bake.getDescription());
+        assertEquals("bake", bake.getDisplayName());
+        CakeCommandItem whitespace = commands.get(7);
+        assertEquals("DebugKit.whitespace", whitespace.getCommand());
+        assertEquals("DebugKit", whitespace.getDescription());
+        assertNull(whitespace.getSubcommands());
+    }
+
+    /**
+     * Test of parse method, of class CakePhpCommandXmlParser. --help xml.
+     */
+    @Test
+    public void testParseCommand() throws Exception {
+        List<CakeCommandItem> commands = new ArrayList<CakeCommandItem>();
+        CakePhpCommandXmlParser.parse(readFile(getFixture("bake_help.xml")), commands);
+        assertEquals(1, commands.size());
+        CakeCommandItem bake = commands.get(0);
+        assertEquals("bake", bake.getCommand());
+        assertTrue(bake.getDescription().startsWith("The Bake script generates controllers"));
+        List<CakeCommandItem> subcommands = bake.getSubcommands();
+        assertEquals(9, subcommands.size());
+        assertEquals("all", subcommands.get(0).getCommand());
+        assertEquals("Bake a complete MVC. optional <name> of a Model", subcommands.get(0).getDescription());
+        assertEquals("test", subcommands.get(8).getDisplayName());
+    }
+
+    /**
+     * Compare the parser with the DOM parser which was used before. cake
+     * shell writes xml without indentation, so whitespace between elements is
+     * removed for the DOM parser.
+     */
+    @Test
+    public void testCompareWithDom() throws Exception {
+        for (String fixture : new String[]{"command_list.xml", "bake_help.xml"}) { // NOI18N
+            String xml = readFile(getFixture(fixture));
+            List<CakeCommandItem> stax = new ArrayList<CakeCommandItem>();
+            CakePhpCommandXmlParser.parse(xml, stax);
+            String compact = xml.replaceAll(">\\s+<", "><"); // NOI18N
+            assertEquals(fixture, toString(parseDom(compact)), toString(stax));
+
+            List<CakeCommandItem> compactStax = new ArrayList<CakeCommandItem>();
+            CakePhpCommandXmlParser.parse(compact, compactStax);
+            assertEquals(fixture, toString(stax), toString(compactStax));
+        }
+    }
+
+    private File getFixture(String name) {
+        return new File(getDataDir(), "commands/" + name); // NOI18N
+    }
+
+    private static String toString(List<CakeCommandItem> items) {
+        StringBuilder sb = new StringBuilder();
+        for (CakeCommandItem item : items) {
+            sb.append(item.getCommand()).append('|').append(item.getDescription()).append('|').append(item.getDisplayName()).append('\n');
+            if (item.getSubcommands() != null) {
+                for (CakeCommandItem subcommand : item.getSubcommands()) {
+                    sb.append("  ").append(subcommand.getCommand()).append('|').append(subcommand.getDescription()).append('\n'); // NOI18N
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The DOM parser which was used before the streaming parser. It is not
+     * changed except that it returns the list.
+     */
+    private static List<CakeCommandItem> parseDom(String xml) throws Exception {
+        List<CakeCommandItem> commands = new ArrayList<CakeCommandItem>();
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        Element root = document.getDocumentElement();
+        if (root.getNodeName().equals("shells")) { // NOI18N
+            NodeList nodeList = root.getChildNodes();
+            for (int i = 0; i < nodeList.getLength(); i++) {
+                Node node = nodeList.item(i);
+                NamedNodeMap attr = node.getAttributes();
+                commands.add(new CakeCommandItem(
+                        attr.getNamedItem("call_as").getNodeValue(), attr.getNamedItem("provider").getNodeValue(), attr.getNamedItem("name").getNodeValue())); // NOI18N
+            }
+        } else if (root.getNodeName().equals("shell")) { // NOI18N
+            String command = root.getElementsByTagName("command").item(0).getTextContent(); // NOI18N
+            String description = root.getElementsByTagName("description").item(0).getTextContent(); // NOI18N
+            CakeCommandItem item = new CakeCommandItem(command, description, command);
+            NodeList subcommands = root.getElementsByTagName("subcommands"); // NOI18N
+            for (int i = 0; i < subcommands.getLength(); i++) {
+                Node node = subcommands.item(i);
+                NodeList children = node.getChildNodes();
+                for (int j = 0; j < children.getLength(); j++) {
+                    Node child = children.item(j);
+                    NamedNodeMap attr = child.getAttributes();
+                    item.addSubcommand(new CakeCommandItem(
+                            attr.getNamedItem("name").getTextContent(), // NOI18N
+                            attr.getNamedItem("help").getTextContent(), // NOI18N
+                            attr.getNamedItem("name").getTextContent())); // NOI18N
+                }
+            }
+            commands.add(item);
+        }
+        return commands;
+    }
+
+    private static String readFile(File file) throws Exception {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8"); // NOI18N
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[4096];
+            int length;
+            while ((length = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, length);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -2192,7 +2192,32 @@ public class CakePhpModuleTest extends NbTestCase {
      * Test of forPhpModule method, of class CakePhpModule.
      */
     @Test
-    public void testForPhpModule() {
+    public void testForPhpModule() throws Exception {
+        cakeVersion = "cake2.2";
+        final PhpModule phpModule = new TestPhpModule();
+        final CakePhpModule[] results = new CakePhpModule[8];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results[index] = CakePhpModule.forPhpModule(phpModule);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CakePhpModule expResult = CakePhpModule.forPhpModule(phpModule);
+        assertNotNull(expResult);
+        for (CakePhpModule result : results) {
+            assertSame(expResult, result);
+        }
+        assertNotSame(expResult, CakePhpModule.forPhpModule(phpModule1));
     }
 
     private FileObject getCakePhpDir() {
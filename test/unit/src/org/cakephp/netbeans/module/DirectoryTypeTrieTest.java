@@ -0,0 +1,160 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.module;
+
+import org.cakephp.netbeans.module.CakePhpModule.DIR_TYPE;
+import org.cakephp.netbeans.module.CakePhpModule.FILE_TYPE;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class DirectoryTypeTrieTest extends NbTestCase {
+
+    public DirectoryTypeTrieTest(String name) {
+        super(name);
+    }
+
+    private DirectoryTypeTrie createTrie() {
+        DirectoryTypeTrie trie = new DirectoryTypeTrie(0);
+        trie.addRoot("/project/app/Plugin", DIR_TYPE.APP_PLUGIN);
+        trie.addRoot("/project/app", DIR_TYPE.APP);
+        trie.addRoot("/project/lib/Cake", DIR_TYPE.CORE);
+        trie.addRoot("/project/plugins", DIR_TYPE.PLUGIN);
+        trie.addPluginsRoot("/project/app/Plugin");
+        trie.addPluginsRoot("/project/plugins");
+        trie.addFileTypeDirectory("/project/app/Controller", DIR_TYPE.APP, FILE_TYPE.CONTROLLER);
+        trie.addFileTypeDirectory("/project/app/Controller/Component", DIR_TYPE.APP, FILE_TYPE.COMPONENT);
+        trie.addFileTypeDirectory("/project/app/View", DIR_TYPE.APP, FILE_TYPE.VIEW);
+        trie.addFileTypeDirectory("/project/app/Plugin/DebugKit/View", DIR_TYPE.APP_PLUGIN, FILE_TYPE.VIEW);
+        return trie;
+    }
+
+    /**
+     * Test of match method, of class DirectoryTypeTrie.
+     */
+    @Test
+    public void testMatch() {
+        DirectoryTypeTrie trie = createTrie();
+        DirectoryTypeTrie.Match match = trie.match("/project/app/Controller/PostsController.php");
+        assertEquals(DIR_TYPE.APP, match.getDirType());
+        assertEquals(FILE_TYPE.CONTROLLER, match.getFileType());
+        assertNull(match.getPluginName());
+
+        match = trie.match("/project/app/Controller/Component/FooComponent.php");
+        assertEquals(DIR_TYPE.APP, match.getDirType());
+        assertEquals(FILE_TYPE.COMPONENT, match.getFileType());
+
+        match = trie.match("/project/lib/Cake/basics.php");
+        assertEquals(DIR_TYPE.CORE, match.getDirType());
+        assertEquals(FILE_TYPE.NONE, match.getFileType());
+
+        match = trie.match("/project/app");
+        assertEquals(DIR_TYPE.APP, match.getDirType());
+    }
+
+    /**
+     * Test of match method, of class DirectoryTypeTrie.
+     */
+    @Test
+    public void testMatchPlugin() {
+        DirectoryTypeTrie trie = createTrie();
+        DirectoryTypeTrie.Match match = trie.match("/project/app/Plugin/DebugKit/View/Toolbar/index.ctp");
+        assertEquals(DIR_TYPE.APP_PLUGIN, match.getDirType());
+        assertEquals(FILE_TYPE.VIEW, match.getFileType());
+        assertEquals("DebugKit", match.getPluginName());
+
+        // not registered yet
+        match = trie.match("/project/plugins/NewPlugin/Model/Foo.php");
+        assertEquals(DIR_TYPE.PLUGIN, match.getDirType());
+        assertEquals(FILE_TYPE.NONE, match.getFileType());
+        assertEquals("NewPlugin", match.getPluginName());
+
+        // not a plugin directory
+        match = trie.match("/project/app/Plugin/empty");
+        assertEquals(DIR_TYPE.APP_PLUGIN, match.getDirType());
+        assertNull(match.getPluginName());
+    }
+
+    /**
+     * Test of match method, of class DirectoryTypeTrie.
+     */
+    @Test
+    public void testMatchPluginOverrideView() {
+        DirectoryTypeTrie trie = createTrie();
+        DirectoryTypeTrie.Match match = trie.match("/project/app/View/Plugin/DebugKit/Toolbar/index.ctp");
+        assertEquals(DIR_TYPE.APP, match.getDirType());
+        assertEquals(FILE_TYPE.VIEW, match.getFileType());
+        assertEquals("DebugKit", match.getPluginName());
+
+        match = trie.match("/project/app/View/Themed/Blue/Plugin/DebugKit/Elements/menu.ctp");
+        assertEquals(DIR_TYPE.APP, match.getDirType());
+        assertEquals("DebugKit", match.getPluginName());
+
+        // CakePHP 1.x
+        match = trie.match("/project/app/View/plugins/debug_kit/toolbar/index.ctp");
+        assertEquals("debug_kit", match.getPluginName());
+
+        // not a plugin directory
+        match = trie.match("/project/app/View/Plugin/index.ctp");
+        assertEquals(DIR_TYPE.APP, match.getDirType());
+        assertNull(match.getPluginName());
+
+        match = trie.match("/project/app/View/Posts/index.ctp");
+        assertEquals(FILE_TYPE.VIEW, match.getFileType());
+        assertNull(match.getPluginName());
+    }
+
+    /**
+     * Test of match method, of class DirectoryTypeTrie.
+     */
+    @Test
+    public void testMatchNone() {
+        DirectoryTypeTrie trie = createTrie();
+        DirectoryTypeTrie.Match match = trie.match("/project/app2/Controller/PostsController.php");
+        assertEquals(DIR_TYPE.NONE, match.getDirType());
+        assertEquals(FILE_TYPE.NONE, match.getFileType());
+        assertNull(match.getPluginName());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class DebugLevelSnapshotTest extends NbTestCase {
+
+    private static final String CORE = "<?php\n"
+            + "/**\n"
+            + " * \u00dcnicode comment\n"
+            + " */\n"
+            + "\tConfigure::write('debug', 2);\n"
+            + "\tConfigure::write('log', true);\n"; // NOI18N
+
+    public DebugLevelSnapshotTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of parse method, of class DebugLevelSnapshot.
+     */
+    @Test
+    public void testParse() throws Exception {
+        byte[] content = CORE.getBytes("UTF-8"); // NOI18N
+        DebugLevelSnapshot snapshot = DebugLevelSnapshot.parse(content, "2.3.0");
+        assertEquals("2", snapshot.getLevel());
+        assertEquals("2.3.0", snapshot.getVersion());
+        assertEquals('2', (char) content[(int) snapshot.getOffset()]);
+        assertEquals(1, snapshot.getLength());
+
+        snapshot = DebugLevelSnapshot.parse("<?php\n// Configure::write('debug', 2);\n".getBytes("UTF-8"), "2.3.0"); // NOI18N
+        assertEquals("", snapshot.getLevel());
+        assertEquals(-1, snapshot.getOffset());
+    }
+
+    /**
+     * Test of write method, of class DebugLevelSnapshot.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        File config = new File(getWorkDir(), "core.php");
+        write(config, CORE);
+
+        assertTrue(DebugLevelSnapshot.write(config, "0"));
+        assertEquals(CORE.replace("'debug', 2", "'debug', 0"), read(config));
+
+        // different length
+        assertTrue(DebugLevelSnapshot.write(config, "Configure::read('level')"));
+        assertEquals(CORE.replace("'debug', 2", "'debug', Configure::read('level')"), read(config));
+        assertTrue(DebugLevelSnapshot.write(config, "1"));
+        assertEquals(CORE.replace("'debug', 2", "'debug', 1"), read(config));
+
+        write(config, "<?php\n"); // NOI18N
+        assertFalse(DebugLevelSnapshot.write(config, "1"));
+        assertEquals("<?php\n", read(config));
+    }
+
+    private void write(File file, String content) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(content.getBytes("UTF-8")); // NOI18N
+        } finally {
+            output.close();
+        }
+    }
+
+    private String read(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream input = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                int length = input.read(data, offset, data.length - offset);
+                if (length == -1) {
+                    break;
+                }
+                offset += length;
+            }
+        } finally {
+            input.close();
+        }
+        return new String(data, "UTF-8"); // NOI18N
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui.wizards;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class GitHubTagsCacheTest extends NbTestCase {
+
+    private static final String ETAG = "\"abc123\""; // NOI18N
+    private static final String TAGS_JSON = "["
+            + "{\"name\":\"2.2.9\",\"zipball_url\":\"https://example.com/2.2.9\"},"
+            + "{\"name\":\"2.3.0\",\"zipball_url\":\"https://example.com/2.3.0\"},"
+            + "{\"name\":\"2.10.1\",\"zipball_url\":\"https://example.com/2.10.1\"}"
+            + "]"; // NOI18N
+    private HttpServer server;
+    private final List<String> requestEtags = new ArrayList<String>();
+
+    public GitHubTagsCacheTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        clearWorkDir();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0); // NOI18N
+        server.createContext("/tags", new HttpHandler() { // NOI18N
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String etag = exchange.getRequestHeaders().getFirst("If-None-Match"); // NOI18N
+                requestEtags.add(etag);
+                if (ETAG.equals(etag)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = TAGS_JSON.getBytes("UTF-8"); // NOI18N
+                exchange.getResponseHeaders().add("ETag", ETAG); // NOI18N
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream output = exchange.getResponseBody();
+                try {
+                    output.write(body);
+                } finally {
+                    output.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (server != null) {
+            server.stop(0);
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Test of refresh method, of class GitHubTagsCache.
+     */
+    @Test
+    public void testRefresh() throws Exception {
+        File cacheFile = new File(getWorkDir(), "tags");
+        GitHubTagsCache cache = new GitHubTagsCache(getUrl(), cacheFile, 60000);
+        assertTrue(cache.getCachedTags().isEmpty());
+        assertTrue(cache.isExpired());
+
+        Map<String, String> tags = cache.refresh();
+        assertEquals(Arrays.asList("2.10.1", "2.3.0", "2.2.9"), new ArrayList<String>(tags.keySet()));
+        assertEquals("https://example.com/2.3.0", tags.get("2.3.0"));
+        assertFalse(cache.isExpired());
+
+        // not modified
+        assertEquals(tags, cache.refresh());
+        assertEquals(Arrays.asList(null, ETAG), requestEtags);
+
+        // restored from the cache file
+        cache = new GitHubTagsCache(getUrl(), cacheFile, 60000);
+        assertEquals(Arrays.asList("2.10.1", "2.3.0", "2.2.9"), new ArrayList<String>(cache.getCachedTags().keySet()));
+        assertFalse(cache.isExpired());
+        cache = new GitHubTagsCache(getUrl(), cacheFile, 0);
+        assertTrue(cache.isExpired());
+    }
+
+    /**
+     * Test of refresh method, of class GitHubTagsCache. Cached tags are
+     * available offline.
+     */
+    @Test
+    public void testRefreshOffline() throws Exception {
+        File cacheFile = new File(getWorkDir(), "tags");
+        GitHubTagsCache cache = new GitHubTagsCache(getUrl(), cacheFile, 0);
+        cache.refresh();
+        server.stop(0);
+        server = null;
+
+        try {
+            cache.refresh();
+            fail("offline");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertEquals(3, cache.getCachedTags().size());
+        assertTrue(cache.isExpired());
+    }
+
+    private String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/tags"; // NOI18N
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.ui.wizards;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+import org.openide.util.Cancellable;
+
+/**
+ *
+ * @author junichi11
+ */
+public class PluginInstallerTest extends NbTestCase {
+
+    public PluginInstallerTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of install method, of class PluginInstaller.
+     */
+    @Test
+    public void testInstall() throws Exception {
+        File installDirectory = new File(getWorkDir(), "Plugin");
+        installDirectory.mkdir();
+        RecordingListener listener = new RecordingListener();
+        PluginInstaller installer = new PluginInstaller(installDirectory, 2, listener);
+        for (int i = 0; i < 5; i++) {
+            installer.install("Plugin" + i, createPluginZip("Plugin" + i)); // NOI18N
+        }
+        installer.install("Missing", new File(getWorkDir(), "missing.zip").toURI().toURL().toExternalForm()); // NOI18N
+        installer.waitFinished();
+
+        assertEquals(6, listener.started.size());
+        assertEquals(5, listener.finished.size());
+        assertEquals(Collections.singleton("Missing"), listener.failed);
+        assertTrue(listener.cancelled.isEmpty());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(new File(installDirectory, "Plugin" + i + "/Controller/Plugin" + i + "Controller.php").isFile()); // NOI18N
+            assertTrue(new File(installDirectory, "Plugin" + i + "/View/Elements").isDirectory()); // NOI18N
+        }
+    }
+
+    /**
+     * Test of cancel method, of class PluginInstaller.
+     */
+    @Test
+    public void testCancel() throws Exception {
+        File installDirectory = new File(getWorkDir(), "Plugin");
+        installDirectory.mkdir();
+        RecordingListener listener = new RecordingListener();
+        PluginInstaller installer = new PluginInstaller(installDirectory, 2, listener);
+        installer.cancel();
+        installer.install("Debug", createPluginZip("Debug")); // NOI18N
+        installer.install("Search", createPluginZip("Search")); // NOI18N
+        installer.waitFinished();
+
+        assertTrue(installer.isCancelled());
+        assertTrue(listener.started.isEmpty());
+        assertEquals(2, listener.cancelled.size());
+        assertFalse(new File(installDirectory, "Debug").exists());
+        assertFalse(new File(installDirectory, "Search").exists());
+    }
+
+    private String createPluginZip(String name) throws IOException {
+        File zip = new File(getWorkDir(), name + ".zip");
+        ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zip)));
+        try {
+            output.putNextEntry(new ZipEntry(name + "-master/")); // NOI18N
+            output.putNextEntry(new ZipEntry(name + "-master/View/")); // NOI18N
+            output.putNextEntry(new ZipEntry(name + "-master/View/Elements/")); // NOI18N
+            output.putNextEntry(new ZipEntry(name + "-master/Controller/" + name + "Controller.php")); // NOI18N
+            output.write(("<?php\nclass " + name + "Controller extends AppController {}\n").getBytes()); // NOI18N
+            output.closeEntry();
+        } finally {
+            output.close();
+        }
+        return zip.toURI().toURL().toExternalForm();
+    }
+
+    //~ Inner classes
+    private static class RecordingListener implements PluginInstaller.Listener {
+
+        final Set<String> started = Collections.synchronizedSet(new HashSet<String>());
+        final Set<String> finished = Collections.synchronizedSet(new HashSet<String>());
+        final Set<String> failed = Collections.synchronizedSet(new HashSet<String>());
+        final Set<String> cancelled = Collections.synchronizedSet(new HashSet<String>());
+
+        @Override
+        public void started(String name, Cancellable cancellable) {
+            started.add(name);
+        }
+
+        @Override
+        public void progress(String name, String text) {
+        }
+
+        @Override
+        public void finished(String name) {
+            finished.add(name);
+        }
+
+        @Override
+        public void failed(String name, IOException exception) {
+            failed.add(name);
+        }
+
+        @Override
+        public void cancelled(String name) {
+            cancelled.add(name);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class ArchiveCacheTest extends NbTestCase {
+
+    public ArchiveCacheTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of getArchive method, of class ArchiveCache.
+     */
+    @Test
+    public void testGetArchive() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new File(getWorkDir(), "cache"), 1024 * 1024);
+        File source = createFile("cakephp.zip", 1000, 'a');
+        String url = source.toURI().toURL().toExternalForm();
+
+        File archive = cache.getArchive(url, "2.3.0");
+        assertTrue(archive.isFile());
+        assertEquals(1000, archive.length());
+
+        // tag: not downloaded again
+        createFile("cakephp.zip", 2000, 'b');
+        assertEquals(archive, cache.getArchive(url, "2.3.0"));
+        assertEquals(1000, archive.length());
+
+        // no tag: downloaded again
+        File modified = cache.getArchive(url, null);
+        assertFalse(archive.equals(modified));
+        assertEquals(2000, modified.length());
+
+        // same content is kept once
+        File copy = createFile("copy.zip", 2000, 'b');
+        assertEquals(modified, cache.getArchive(copy.toURI().toURL().toExternalForm(), null));
+    }
+
+    /**
+     * Test of getArchive method, of class ArchiveCache. The cached archive is
+     * used if the URL can't be read.
+     */
+    @Test
+    public void testGetArchiveOffline() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new File(getWorkDir(), "cache"), 1024 * 1024);
+        File source = createFile("plugin.zip", 1000, 'a');
+        String url = source.toURI().toURL().toExternalForm();
+        File archive = cache.getArchive(url, null);
+        assertTrue(source.delete());
+
+        assertEquals(archive, cache.getArchive(url, null));
+        // reloaded index
+        cache = new ArchiveCache(new File(getWorkDir(), "cache"), 1024 * 1024);
+        assertEquals(archive, cache.getArchive(url, null));
+        try {
+            cache.getArchive(url, "1.0");
+            fail("not cached");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Test of getArchive method, of class ArchiveCache. Least recently used
+     * archives are removed.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new File(getWorkDir(), "cache"), 2500);
+        String url1 = createFile("1.zip", 1000, '1').toURI().toURL().toExternalForm();
+        String url2 = createFile("2.zip", 1000, '2').toURI().toURL().toExternalForm();
+        String url3 = createFile("3.zip", 1000, '3').toURI().toURL().toExternalForm();
+        File archive1 = cache.getArchive(url1, "1");
+        cache.release(archive1);
+        archive1.setLastModified(System.currentTimeMillis() - 20000);
+        File archive2 = cache.getArchive(url2, "2");
+        cache.release(archive2);
+        archive2.setLastModified(System.currentTimeMillis() - 30000);
+        // archive1 is used
+        cache.release(cache.getArchive(url1, "1"));
+        File archive3 = cache.getArchive(url3, "3");
+        cache.release(archive3);
+
+        assertTrue(archive1.isFile());
+        assertFalse(archive2.exists());
+        assertTrue(archive3.isFile());
+    }
+
+    /**
+     * Test of release method, of class ArchiveCache. Archives are not removed
+     * while they are used.
+     */
+    @Test
+    public void testEvictionInUse() throws Exception {
+        ArchiveCache cache = new ArchiveCache(new File(getWorkDir(), "cache"), 1500);
+        String url1 = createFile("1.zip", 1000, '1').toURI().toURL().toExternalForm();
+        String url2 = createFile("2.zip", 1000, '2').toURI().toURL().toExternalForm();
+        File archive1 = cache.getArchive(url1, "1");
+        archive1.setLastModified(System.currentTimeMillis() - 20000);
+        // used by other thread
+        File archive2 = cache.getArchive(url2, "2");
+        assertTrue(archive1.isFile());
+        assertTrue(archive2.isFile());
+
+        // removed when it is released
+        cache.release(archive1);
+        assertFalse(archive1.exists());
+        assertTrue(archive2.isFile());
+        cache.release(archive2);
+        assertTrue(archive2.isFile());
+    }
+
+    private File createFile(String name, int size, char c) throws IOException {
+        File file = new File(getWorkDir(), name);
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < size; i++) {
+                output.write(c);
+            }
+        } finally {
+            output.close();
+        }
+        return file;
+    }
+}
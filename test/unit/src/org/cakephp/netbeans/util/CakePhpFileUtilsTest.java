@@ -0,0 +1,187 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2012 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2012 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class CakePhpFileUtilsTest extends NbTestCase {
+
+    private static final int FILE_COUNT = 2000;
+
+    public CakePhpFileUtilsTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of unzip method, of class CakePhpFileUtils.
+     */
+    @Test
+    public void testUnzip() throws Exception {
+        File zip = createCakePhpZip();
+        File target = new File(getWorkDir(), "unzip");
+        target.mkdir();
+
+        // existing file is overwritten
+        File core = new File(target, "app/Config/core.php");
+        core.getParentFile().mkdirs();
+        write(core, new byte[10000]);
+
+        final List<String> texts = new ArrayList<String>();
+        long start = System.nanoTime();
+        CakePhpFileUtils.unzip(zip.toURI().toURL().toExternalForm(), target, new CakeDefaultZipEntryFilter() {
+            @Override
+            public void setText(String text) {
+                texts.add(text);
+            }
+        });
+        long elapsed = Math.max((System.nanoTime() - start) / 1000000, 1);
+        getLog().println(String.format("unzip: %d entries, %d KB in %d ms (%d KB/s)", // NOI18N
+                FILE_COUNT, zip.length() / 1024, elapsed, zip.length() / 1024 * 1000 / elapsed));
+
+        assertTrue(new File(target, "app/webroot").isDirectory());
+        assertFalse(new File(target, "cakephp-2.3.0").exists());
+        assertTrue(Arrays.equals(createContent("app/Config/core.php"), read(core)));
+        for (int i = 0; i < FILE_COUNT; i++) {
+            String path = "lib/Cake/Test/File" + i + ".php"; // NOI18N
+            assertTrue(Arrays.equals(createContent(path), read(new File(target, path))));
+        }
+        assertFalse(texts.isEmpty());
+    }
+
+    /**
+     * Test of unzip method, of class CakePhpFileUtils. The file is mapped to
+     * memory.
+     */
+    @Test
+    public void testUnzipFile() throws Exception {
+        File zip = createCakePhpZip();
+        File target = new File(getWorkDir(), "unzip");
+        target.mkdir();
+
+        long start = System.nanoTime();
+        CakePhpFileUtils.unzip(zip, target, new CakeDefaultZipEntryFilter());
+        long elapsed = Math.max((System.nanoTime() - start) / 1000000, 1);
+        getLog().println(String.format("unzip (mapped): %d entries, %d KB in %d ms (%d KB/s)", // NOI18N
+                FILE_COUNT, zip.length() / 1024, elapsed, zip.length() / 1024 * 1000 / elapsed));
+
+        assertTrue(new File(target, "app/webroot").isDirectory());
+        assertTrue(Arrays.equals(createContent("app/Config/core.php"), read(new File(target, "app/Config/core.php"))));
+        for (int i = 0; i < FILE_COUNT; i++) {
+            String path = "lib/Cake/Test/File" + i + ".php"; // NOI18N
+            assertTrue(Arrays.equals(createContent(path), read(new File(target, path))));
+        }
+    }
+
+    private File createCakePhpZip() throws IOException {
+        File zip = new File(getWorkDir(), "cakephp.zip");
+        ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zip)));
+        try {
+            output.putNextEntry(new ZipEntry("cakephp-2.3.0/"));
+            output.putNextEntry(new ZipEntry("cakephp-2.3.0/app/"));
+            output.putNextEntry(new ZipEntry("cakephp-2.3.0/app/webroot/"));
+            putFile(output, "app/Config/core.php");
+            for (int i = 0; i < FILE_COUNT; i++) {
+                putFile(output, "lib/Cake/Test/File" + i + ".php"); // NOI18N
+            }
+        } finally {
+            output.close();
+        }
+        return zip;
+    }
+
+    private void putFile(ZipOutputStream output, String path) throws IOException {
+        output.putNextEntry(new ZipEntry("cakephp-2.3.0/" + path)); // NOI18N
+        output.write(createContent(path));
+        output.closeEntry();
+    }
+
+    private byte[] createContent(String path) {
+        StringBuilder sb = new StringBuilder("<?php\n"); // NOI18N
+        int lines = Math.abs(path.hashCode() % 500);
+        for (int i = 0; i < lines; i++) {
+            sb.append("// ").append(path).append(' ').append(i).append('\n'); // NOI18N
+        }
+        return sb.toString().getBytes();
+    }
+
+    private void write(File file, byte[] data) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(data);
+        } finally {
+            output.close();
+        }
+    }
+
+    private byte[] read(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream input = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                int length = input.read(data, offset, data.length - offset);
+                if (length == -1) {
+                    break;
+                }
+                offset += length;
+            }
+        } finally {
+            input.close();
+        }
+        return data;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.cakephp.netbeans.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class InflectorTest extends NbTestCase {
+
+    private static final String[][] WORDS = {
+        {"post", "posts"},
+        {"category", "categories"},
+        {"person", "people"},
+        {"child", "children"},
+        {"status", "statuses"},
+        {"address", "addresses"},
+        {"knife", "knives"},
+        {"half", "halves"},
+        {"sheep", "sheep"},
+        {"mouse", "mice"},
+        {"matrix", "matrices"},
+        {"posts_tag", "posts_tags"}
+    };
+
+    public InflectorTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of pluralize method, of class Inflector.
+     */
+    @Test
+    public void testPluralize() {
+        Inflector inflector = Inflector.getInstance();
+        for (String[] word : WORDS) {
+            assertEquals(word[1], inflector.pluralize(word[0]));
+            // cached
+            assertEquals(word[1], inflector.pluralize(word[0]));
+        }
+    }
+
+    /**
+     * Test of singularize method, of class Inflector.
+     */
+    @Test
+    public void testSingularize() {
+        Inflector inflector = Inflector.getInstance();
+        for (String[] word : WORDS) {
+            assertEquals(word[0], inflector.singularize(word[1]));
+        }
+    }
+
+    /**
+     * Test of camelize, underscore and tableize methods, of class Inflector.
+     */
+    @Test
+    public void testCamelizeUnderscoreTableize() {
+        Inflector inflector = Inflector.getInstance();
+        assertEquals("PostsTag", inflector.camelize("posts_tag"));
+        assertEquals("postsTag", inflector.camelize("posts_tag", true));
+        assertEquals("posts_tag", inflector.underscore("PostsTag"));
+        assertEquals("user_groups", inflector.tableize("UserGroup"));
+        assertEquals("UserGroup", inflector.classify("user_groups"));
+    }
+
+    /**
+     * Test of pluralize and singularize methods from some threads.
+     */
+    @Test
+    public void testConcurrentInflection() throws Exception {
+        final Inflector inflector = Inflector.getInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 1000; j++) {
+                            for (String[] word : WORDS) {
+                                if (!word[1].equals(inflector.pluralize(word[0]))
+                                        || !word[0].equals(inflector.singularize(word[1]))) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}